@@ -7,6 +7,8 @@ import colgatedb.transactions.Permissions;
 import colgatedb.transactions.TransactionAbortedException;
 import colgatedb.transactions.TransactionId;
 
+import java.util.List;
+
 /**
  * ColgateDB
  * @author Michael Hay mhay@colgate.edu
@@ -33,6 +35,11 @@ public interface AccessManager {
      */
     boolean holdsLock(TransactionId tid, PageId pid, Permissions perm);
 
+    /**
+     * @see colgatedb.transactions.LockManager#getTidsForPage(PageId)
+     */
+    List<TransactionId> getTidsForPage(PageId pid);
+
     /**
      * @see colgatedb.transactions.LockManager#releaseLock(TransactionId, PageId)
      */
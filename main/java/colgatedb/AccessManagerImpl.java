@@ -56,6 +56,11 @@ public class AccessManagerImpl implements AccessManager {
         return lockManager.holdsLock(tid,pid,perm);
     }
 
+    @Override
+    public List<TransactionId> getTidsForPage(PageId pid) {
+        return lockManager.getTidsForPage(pid);
+    }
+
     @Override
     public void releaseLock(TransactionId tid, PageId pid) {
         lockManager.releaseLock(tid,pid);
@@ -117,41 +122,48 @@ public class AccessManagerImpl implements AccessManager {
 
     @Override
     public void transactionComplete(TransactionId tid, boolean commit) {
-        // release lock for all the pages that tid currently has lock
-        List<PageId> pages = lockManager.getPagesForTid(tid);
-        for (PageId apage: pages){
-            releaseLock(tid,apage);
-        }
-        // ensures strict 2PL
-        for (PageId pid : transList.keySet()){
-            List<TransactionId> tids = transList.get(pid);
-            boolean dirty = bfmanager.isDirty(pid);
-            if (commit && force){
-                //If committing and force, pages dirtied by tid should be flushed to disk
-                //update the before image of pages dirtied by this committed transaction
-                Page p = bfmanager.getPage(pid);
-                p.setBeforeImage();
-
-                //flush log before flushing page under allow steal policy
-                Database.getLogFile().force();
-                bfmanager.flushPage(pid);
-            }
-            else if(!commit){
-                // when aborting, pages that are still pinned should be unpinned and dirty ones should be discarded
-                if (transList.get(pid).size()!=0){//still pinned
-                    while (tids.contains(tid)){
-                        //a page might be pinned by the same tid multiple times
-                        tids.remove(tid);
-                        bfmanager.unpinPage(pid,dirty);
+        // other transactions may pin and unpin pages meanwhile, so the page tables are only walked while
+        // holding this object's monitor, as pinPage and unpinPage do
+        synchronized (this) {
+            for (PageId pid : transList.keySet()){
+                List<TransactionId> tids = transList.get(pid);
+                boolean dirty = bfmanager.isDirty(pid);
+                boolean dirtiedByTid = dirtyinfo.containsKey(pid) && dirtyinfo.get(pid).contains(tid);
+                if (commit && force){
+                    if (dirtiedByTid){
+                        //If committing and force, pages dirtied by tid should be flushed to disk
+                        //update the before image of pages dirtied by this committed transaction
+                        Page p = bfmanager.getPage(pid);
+                        p.setBeforeImage();
+
+                        //flush log before flushing page under allow steal policy
+                        Database.getLogFile().force();
+                        bfmanager.flushPage(pid);
+                        dirtyinfo.get(pid).remove(tid);
                     }
                 }
-                if (dirtyinfo.containsKey(pid) && dirtyinfo.get(pid).contains(tid)){
-                    //this pid is dirtied by this tid
-                    bfmanager.discardPage(pid);
-                    dirtyinfo.get(pid).remove(tid);
+                else if(!commit){
+                    // when aborting, pages that are still pinned should be unpinned and dirty ones should be discarded
+                    if (transList.get(pid).size()!=0){//still pinned
+                        while (tids.contains(tid)){
+                            //a page might be pinned by the same tid multiple times
+                            tids.remove(tid);
+                            bfmanager.unpinPage(pid,dirty);
+                        }
+                    }
+                    if (dirtiedByTid){
+                        //this pid is dirtied by this tid
+                        bfmanager.discardPage(pid);
+                        dirtyinfo.get(pid).remove(tid);
+                    }
                 }
+                transList.replace(pid,tids);//update transList after deleting tid
             }
-            transList.replace(pid,tids);//update transList after deleting tid
+        }
+        // ensures strict 2PL: locks are released only once the pages have been flushed or discarded
+        List<PageId> pages = lockManager.getPagesForTid(tid);
+        for (PageId apage: pages){
+            releaseLock(tid,apage);
         }
     }
 
@@ -28,18 +28,25 @@ public class BufferManagerImpl implements BufferManager {
 
     private boolean allowEvictDirty = false;  // a flag indicating whether a dirty page is candidate for eviction
     private HashMap<PageId, Frame> pool;
-    private int numpage;
+    private final long capacity;// capacity in bytes: the given number of pages of the default page size
+    private long usedBytes;// bytes taken by the pages in the pool, each counted at its table's page size
     private DiskManager dm;
     private Frame start;// the starting frame in the doubly linked list for implementing LRU
     private Frame tail;
 
     /**
      * Construct a new buffer manager.
-     * @param numPages maximum size of the buffer pool
+     * <p>
+     * Tables may have different page sizes (see {@link DiskManager#getPageSize(int)}).  The capacity of the
+     * pool is measured in bytes, numPages times {@link Database#getPageSize()}, and each page takes its own
+     * size, so a pool of 10 4KB pages holds, e.g., two 16KB pages and two 4KB pages, or forty 1KB pages.
+     *
+     * @param numPages maximum size of the buffer pool, in pages of the default page size
      * @param dm the disk managerr to call to read/write pages
      */
     public BufferManagerImpl(int numPages, DiskManager dm) {
-        numpage = numPages;
+        capacity = (long) numPages * Database.getPageSize();
+        usedBytes = 0;
         this.dm = dm;
         pool = new HashMap<PageId, Frame>();
         start = null;
@@ -57,9 +64,11 @@ public class BufferManagerImpl implements BufferManager {
             setToStart(f);// set this frame to be the start of linked list since it is recently used
             return f.page;
         }
-        int oldsize = pool.size();
-        if (oldsize >= numpage){
+        int bytes = dm.getPageSize(pid.getTableId());
+        // a page larger than the whole pool is still allowed when the pool is otherwise empty
+        while (usedBytes + bytes > capacity && !pool.isEmpty()){
             //bigger than size, need to evict for making space
+            int oldsize = pool.size();
             evictPage();
             if (pool.size() == oldsize) {
                 throw new BufferManagerException("Cannot evict!");
@@ -67,9 +76,10 @@ public class BufferManagerImpl implements BufferManager {
         }
         //otherwise, get page from disk
         Page newpage = dm.readPage(pid, pageMaker);
-        Frame newframe = new Frame(newpage);
+        Frame newframe = new Frame(newpage, bytes);
         setToStart(newframe);// since it is recently used
         pool.put(pid, newframe);
+        usedBytes += bytes;
         return newpage;
     }
 
@@ -165,6 +175,7 @@ public class BufferManagerImpl implements BufferManager {
                 flushPage(pid);
                 removeFrame(temp);
                 pool.remove(pid);
+                usedBytes -= temp.bytes;
                 return;
             }
             else{
@@ -211,7 +222,9 @@ public class BufferManagerImpl implements BufferManager {
     public synchronized void discardPage(PageId pid) {
         // remove any existent page from the pool but NOT flush to disk
         if (inBufferPool(pid)){
-            pool.remove(pid);
+            Frame f = pool.remove(pid);
+            removeFrame(f);
+            usedBytes -= f.bytes;
         }
     }
 
@@ -226,9 +239,11 @@ public class BufferManagerImpl implements BufferManager {
         public boolean isDirty;
         public Frame last;
         public Frame next;
+        private final int bytes;// the size of this page
 
-        public Frame(Page page) {
+        public Frame(Page page, int bytes) {
             this.page = page;
+            this.bytes = bytes;
             this.pinCount = 1;   // assumes Frame is created on first pin -- feel free to modify as you see fit
             this.isDirty = false;
             this.last = null;
@@ -1,7 +1,13 @@
 package colgatedb;
 
+import colgatedb.dbfile.ClusteredHeapFile;
 import colgatedb.dbfile.DbFile;
 import colgatedb.dbfile.HeapFile;
+import colgatedb.page.Page;
+import colgatedb.page.PageException;
+import colgatedb.page.PageFormat;
+import colgatedb.page.SimplePageId;
+import colgatedb.page.TuplePage;
 import colgatedb.tuple.TupleDesc;
 import colgatedb.tuple.Type;
 
@@ -112,6 +118,19 @@ public class Catalog {
         return id2info.get(tableid).table;
     }
 
+    /**
+     * Returns the size in bytes of the pages of the specified table.  Tables added without a page size
+     * use {@link Database#getPageSize()}.
+     *
+     * @param tableid The id of the table, as specified by the DbFile.getId()
+     *                function passed to addTable
+     * @throws NoSuchElementException if the table doesn't exist
+     */
+    public int getPageSize(int tableid) throws NoSuchElementException {
+        checkId(tableid);
+        return dm.getPageSize(tableid);
+    }
+
     public String getPrimaryKey(int tableid) {
         checkId(tableid);
         return id2info.get(tableid).key;
@@ -144,9 +163,15 @@ public class Catalog {
 
      * in the above, "pk" indicates that the field is the primary key for that table.
      *
+     * A line may end with the name of a {@link PageFormat} and/or a page size in bytes after the closing
+     * parenthesis, e.g., "Genre(mid int, genre string) variable_length 65536".  Tables without them use
+     * PageFormat.SLOTTED and {@link Database#getPageSize()}.  The word "clustered" there stores the table
+     * as a {@link ClusteredHeapFile} ordered by its primary key, which it must then have.
+     *
      * This implementation assumes that (a) each table is stored in a separate file whose name is the name
      * of the table followed by ".dat" and (b) is located in the same directory as catalogFile and (c) each
-     * table is stored in HeapFile format.
+     * table is stored in HeapFile format.  Each table's {@link colgatedb.dbfile.FreeSpaceMap} is saved next
+     * to its data file, with ".fsm" appended to the name.
      *
      * @param catalogFile an existing catalog file
      */
@@ -172,6 +197,12 @@ public class Catalog {
                         types.add(Type.INT_TYPE);
                     else if (els2[1].trim().toLowerCase().equals("string"))
                         types.add(Type.STRING_TYPE);
+                    else if (els2[1].trim().toLowerCase().equals("long"))
+                        types.add(Type.LONG_TYPE);
+                    else if (els2[1].trim().toLowerCase().equals("double"))
+                        types.add(Type.DOUBLE_TYPE);
+                    else if (els2[1].trim().toLowerCase().equals("timestamp"))
+                        types.add(Type.TIMESTAMP_TYPE);
                     else {
                         System.out.println("Unknown type " + els2[1]);
                         System.exit(0);
@@ -185,11 +216,46 @@ public class Catalog {
                         }
                     }
                 }
+                PageFormat format = PageFormat.SLOTTED;
+                int tablePageSize = pageSize;
+                boolean clustered = false;
+                for (String option : line.substring(line.indexOf(")") + 1).trim().split("\\s+")) {
+                    if (option.isEmpty()) {
+                        continue;
+                    }
+                    if (Character.isDigit(option.charAt(0))) {
+                        try {
+                            tablePageSize = Integer.parseInt(option);
+                        } catch (NumberFormatException e) {
+                            System.out.println("Unknown page size " + option);
+                            System.exit(0);
+                        }
+                    } else if (option.equalsIgnoreCase("clustered")) {
+                        clustered = true;
+                    } else {
+                        try {
+                            format = PageFormat.valueOf(option.toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Unknown table option " + option);
+                            System.exit(0);
+                        }
+                    }
+                }
                 Type[] typeAr = types.toArray(new Type[types.size()]);
                 String[] namesAr = names.toArray(new String[names.size()]);
                 TupleDesc td = new TupleDesc(typeAr, namesAr);
+                if (!holdsATuple(format, td, tablePageSize)) {
+                    System.out.println("Invalid page size " + tablePageSize + " for table " + name);
+                    System.exit(0);
+                }
                 File dataFile = new File(baseFolder, name + ".dat");
-                HeapFile tabHf = addHeapFile(name, td, primaryKey, dataFile);
+                if (clustered && primaryKey.equals("")) {
+                    System.out.println("Clustered table " + name + " has no primary key");
+                    System.exit(0);
+                }
+                HeapFile tabHf = clustered
+                        ? addClusteredHeapFile(name, td, primaryKey, dataFile, format, tablePageSize)
+                        : addHeapFile(name, td, primaryKey, dataFile, format, tablePageSize);
                 System.out.print("Added table : " + name + " with schema " + td + (primaryKey.equals("") ? "" : (" key is " + primaryKey)));
                 System.out.println(" Table has " + dm.getNumPages(tabHf.getId()) + " pages.");
             }
@@ -201,6 +267,21 @@ public class Catalog {
         }
     }
 
+    /**
+     * @return true if an empty page of the given format and size has room for at least one tuple
+     */
+    private static boolean holdsATuple(PageFormat format, TupleDesc td, int pageSize) {
+        if (pageSize <= 0) {
+            return false;
+        }
+        try {
+            Page page = format.getPageMaker(td, pageSize).makePage(new SimplePageId(0, 0));
+            return ((TuplePage) page).getNumEmptySlots() > 0;
+        } catch (PageException e) {
+            return false;   // e.g., too small for the page header
+        }
+    }
+
     public void loadSchema(String filename) {
         loadSchema(new File(filename));
     }
@@ -210,6 +291,17 @@ public class Catalog {
         return id2info.get(tableid).file;
     }
 
+    /**
+     * Saves the free space map of every HeapFile in the catalog.
+     */
+    public void saveFreeSpaceMaps() {
+        for (TableInfo info : id2info.values()) {
+            if (info.table instanceof HeapFile) {
+                ((HeapFile) info.table).saveFreeSpaceMap();
+            }
+        }
+    }
+
     // needed for tablestats
     public Iterator<Integer> tableIdIterator() {
         return id2info.keySet().iterator();
@@ -220,9 +312,36 @@ public class Catalog {
     }
 
     public static HeapFile addHeapFile(String name, TupleDesc td, String primaryKey, File dataFile) {
+        return addHeapFile(name, td, primaryKey, dataFile, PageFormat.SLOTTED);
+    }
+
+    public static HeapFile addHeapFile(String name, TupleDesc td, String primaryKey, File dataFile,
+                                       PageFormat pageFormat) {
+        return addHeapFile(name, td, primaryKey, dataFile, pageFormat, Database.getPageSize());
+    }
+
+    public static HeapFile addHeapFile(String name, TupleDesc td, String primaryKey, File dataFile,
+                                       PageFormat pageFormat, int pageSize) {
+        int tableid = tableIdForFile(dataFile);
+        Database.getDiskManager().addFileEntry(tableid, dataFile.getAbsolutePath(), pageSize);
+        HeapFile hf = new HeapFile(td, pageSize, tableid, Database.getDiskManager().getNumPages(tableid),
+                pageFormat, new File(dataFile.getPath() + ".fsm"));
+        Database.getCatalog().addTable(name, hf, primaryKey, dataFile);
+        return hf;
+    }
+
+    /**
+     * Adds a table stored as a {@link ClusteredHeapFile}, whose tuples are kept ordered by the primary key.
+     * @throws NoSuchElementException if primaryKey is not the name of a field of td
+     */
+    public static ClusteredHeapFile addClusteredHeapFile(String name, TupleDesc td, String primaryKey,
+                                                         File dataFile, PageFormat pageFormat, int pageSize) {
+        int keyField = td.fieldNameToIndex(primaryKey);
         int tableid = tableIdForFile(dataFile);
-        Database.getDiskManager().addFileEntry(tableid, dataFile.getAbsolutePath());
-        HeapFile hf = new HeapFile(td, Database.getPageSize(), tableid, Database.getDiskManager().getNumPages(tableid));
+        Database.getDiskManager().addFileEntry(tableid, dataFile.getAbsolutePath(), pageSize);
+        ClusteredHeapFile hf = new ClusteredHeapFile(td, pageSize, tableid,
+                Database.getDiskManager().getNumPages(tableid), pageFormat,
+                new File(dataFile.getPath() + ".fsm"), keyField);
         Database.getCatalog().addTable(name, hf, primaryKey, dataFile);
         return hf;
     }
@@ -42,6 +42,7 @@ public class Database {
     // actual settings
     private static int pageSize = DEFAULT_PAGE_SIZE;
     private static int poolSize = DEFAULT_POOL_SIZE;
+    private static boolean directIO = false;   // bypass the OS page cache for data files
 
     private static AtomicReference<Database> _instance = new AtomicReference<Database>(new Database());
     private final Catalog _catalog;
@@ -57,6 +58,7 @@ public class Database {
      */
     private Database() {
         _diskManager = new DiskManagerImpl(pageSize);
+        _diskManager.setDirectIO(directIO);
         _catalog = new Catalog(pageSize, _diskManager);
         _bufferManager = new BufferManagerImpl(poolSize, _diskManager);
 
@@ -137,6 +139,7 @@ public class Database {
     public static void reset() {
         pageSize = DEFAULT_PAGE_SIZE;
         poolSize = DEFAULT_POOL_SIZE;
+        directIO = false;
         _instance.set(new Database());
     }
 
@@ -145,6 +148,16 @@ public class Database {
         _instance.set(new Database());
     }
 
+    /**
+     * Opt in to (or out of) direct I/O for data files.  See {@link DiskManagerImpl#setDirectIO(boolean)}.
+     * With direct I/O, memory that the OS would have spent caching data files is better given to the
+     * buffer pool (see {@link #setBufferPoolSize(int)}).
+     */
+    public static void setDirectIO(boolean useDirectIO) {
+        directIO = useDirectIO;
+        _instance.get()._diskManager.setDirectIO(useDirectIO);
+    }
+
     public static void setBufferPoolSize(int numPages) {
         poolSize = numPages;
         _instance.set(new Database());
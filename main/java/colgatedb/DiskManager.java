@@ -51,4 +51,13 @@ public interface DiskManager {
      * @param page to write to disk.
      */
     void writePage(Page page);
+
+    /**
+     * @param tableid a table known to this DiskManager
+     * @return the size in bytes of the pages of the given table.  Unless overridden, every table uses
+     * {@link Database#getPageSize()}.
+     */
+    default int getPageSize(int tableid) {
+        return Database.getPageSize();
+    }
 }
\ No newline at end of file
@@ -4,9 +4,17 @@ import colgatedb.page.Page;
 import colgatedb.page.PageId;
 import colgatedb.page.PageMaker;
 
+import com.sun.nio.file.ExtendedOpenOption;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,13 +50,42 @@ import java.util.Map;
 public class DiskManagerImpl implements DiskManager {
 
     private static final String MODE = "rws";
-    private final int pageSize;
+    private static final OpenOption[] DIRECT_MODE = new OpenOption[]{
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SYNC,
+            ExtendedOpenOption.DIRECT};
+    private final int pageSize;   // page size of tables registered without one
+    private volatile boolean directIO = false;
+    // per-thread page-aligned buffer used for direct I/O, O_DIRECT requires aligned memory
+    private final ThreadLocal<ByteBuffer> alignedBuffer = new ThreadLocal<ByteBuffer>();
     Map<Integer, String> filenames = new HashMap<Integer, String>(); // local mapping from tableid to OS filename
+    Map<Integer, Integer> pageSizes = new HashMap<Integer, Integer>(); // page size of each table
 
     public DiskManagerImpl(int pageSize) {
         this.pageSize = pageSize;
     }
 
+    /**
+     * Turns direct I/O on or off for data files.  With direct I/O, pages are read and written with
+     * O_DIRECT (via {@link ExtendedOpenOption#DIRECT}) so they bypass the OS page cache and are cached
+     * only once, in the buffer pool.  This is opt-in: it requires a platform and file system that support
+     * O_DIRECT (e.g., Linux with ext4/xfs) and a page size that is a multiple of the file system block size.
+     * @param directIO true to bypass the OS page cache
+     * @throws DiskManagerException if direct I/O is requested but the page size of some registered file is
+     * not a multiple of its file system's block size.
+     */
+    public void setDirectIO(boolean directIO) {
+        if (directIO) {
+            for (Map.Entry<Integer, String> entry : filenames.entrySet()) {
+                checkAlignment(new File(entry.getValue()).toPath(), getPageSize(entry.getKey()));
+            }
+        }
+        this.directIO = directIO;
+    }
+
+    public boolean isDirectIO() {
+        return directIO;
+    }
+
     /**
      * Add entry in map between tableid and corresponding OS file.  This
      * method should be called when the database is first being brought "online."
@@ -56,8 +93,22 @@ public class DiskManagerImpl implements DiskManager {
      * @param filename
      */
     public void addFileEntry(int tableid, String filename) {
-        filenames.put(tableid, filename);
+        addFileEntry(tableid, filename, pageSize);
+    }
+
+    /**
+     * Add entry in map between tableid and corresponding OS file, whose pages have the given size.
+     * @param tableid
+     * @param filename
+     * @param tablePageSize the size in bytes of this table's pages
+     */
+    public void addFileEntry(int tableid, String filename, int tablePageSize) {
         File file = new File(filename);
+        if (directIO) {
+            checkAlignment(file.getAbsoluteFile().getParentFile().toPath(), tablePageSize);
+        }
+        filenames.put(tableid, filename);
+        pageSizes.put(tableid, tablePageSize);
         // check if file already exists
         if (!file.isFile()) {
             try {
@@ -69,7 +120,17 @@ public class DiskManagerImpl implements DiskManager {
         }
     }
 
+    /**
+     * @return the size in bytes of the pages of the given table
+     */
+    @Override
+    public int getPageSize(int tableid) {
+        Integer size = pageSizes.get(tableid);
+        return size == null ? pageSize : size;
+    }
+
     public int getNumPages(int tableid) {
+        int pageSize = getPageSize(tableid);
         File file = new File(filenames.get(tableid));
         long length = file.length();
         if (length % pageSize != 0) {
@@ -89,7 +150,7 @@ public class DiskManagerImpl implements DiskManager {
             throw new DiskManagerException("Attempting to allocate pageno = " + pagenoRequested +
                     " but file currently has only " + numPages + " pages.");
         }
-        byte[] emptyBytes = new byte[pageSize];
+        byte[] emptyBytes = new byte[getPageSize(pid.getTableId())];
         writePageData(pid, emptyBytes);
     }
 
@@ -105,13 +166,18 @@ public class DiskManagerImpl implements DiskManager {
     }
 
     private void writePageData(PageId pid, byte[] pageData) {
+        int pageSize = getPageSize(pid.getTableId());
         if (pageData.length != pageSize) {
             throw new DiskManagerException("page size is invalid! Got " + pageData.length + " bytes, expected " + pageSize);
         }
         File file = lookupFile(pid);
+        if (directIO) {
+            writePageDataDirect(file, pid, pageData, pageSize);
+            return;
+        }
         try {
             RandomAccessFile dataFile = new RandomAccessFile(file, MODE);
-            int offset = pid.pageNumber() * pageSize;
+            long offset = (long) pid.pageNumber() * pageSize;
             if (offset > dataFile.length()) {
                 throw new RuntimeException("Writing a page beyond end of file");
             }
@@ -125,12 +191,17 @@ public class DiskManagerImpl implements DiskManager {
 
     private byte[] readPageData(PageId pid) {
         File file = lookupFile(pid);
+        int pageSize = getPageSize(pid.getTableId());
+        if (directIO) {
+            return readPageDataDirect(file, pid, pageSize);
+        }
         try {
             RandomAccessFile dataFile = new RandomAccessFile(file, MODE);
-            if (dataFile.length() < pageSize * pid.pageNumber() + pageSize) {
+            long offset = (long) pid.pageNumber() * pageSize;
+            if (dataFile.length() < offset + pageSize) {
                 throw new DiskManagerException("Attempting to read beyond end of file!");
             }
-            dataFile.seek(pageSize * pid.pageNumber());
+            dataFile.seek(offset);
             byte[] data = new byte[pageSize];
             dataFile.read(data);
             dataFile.close();
@@ -140,6 +211,79 @@ public class DiskManagerImpl implements DiskManager {
         }
     }
 
+    private void writePageDataDirect(File file, PageId pid, byte[] pageData, int pageSize) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), DIRECT_MODE)) {
+            long offset = (long) pid.pageNumber() * pageSize;
+            if (offset > channel.size()) {
+                throw new RuntimeException("Writing a page beyond end of file");
+            }
+            ByteBuffer buf = getAlignedBuffer(file.toPath(), pageSize);
+            buf.put(pageData);
+            buf.flip();
+            while (buf.hasRemaining()) {
+                offset += channel.write(buf, offset);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            throw new DiskManagerException(e);
+        }
+    }
+
+    private byte[] readPageDataDirect(File file, PageId pid, int pageSize) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), DIRECT_MODE)) {
+            long offset = (long) pid.pageNumber() * pageSize;
+            if (channel.size() < offset + pageSize) {
+                throw new DiskManagerException("Attempting to read beyond end of file!");
+            }
+            ByteBuffer buf = getAlignedBuffer(file.toPath(), pageSize);
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, offset + buf.position());
+                if (n < 0) {
+                    throw new DiskManagerException("Unexpected end of file!");
+                }
+            }
+            buf.flip();
+            byte[] data = new byte[pageSize];
+            buf.get(data);
+            return data;
+        } catch (IOException | UnsupportedOperationException e) {
+            throw new DiskManagerException(e);
+        }
+    }
+
+    /**
+     * @return a cleared, block-aligned direct buffer limited to pageSize bytes, reused by the calling thread.
+     * The buffer is replaced by a larger one when a table with a larger page size is accessed.
+     */
+    private ByteBuffer getAlignedBuffer(Path path, int pageSize) throws IOException {
+        ByteBuffer buf = alignedBuffer.get();
+        if (buf == null || buf.capacity() < pageSize) {
+            int blockSize = checkAlignment(path, pageSize);
+            buf = ByteBuffer.allocateDirect(pageSize + blockSize - 1).alignedSlice(blockSize);
+            alignedBuffer.set(buf);
+        }
+        buf.clear();
+        buf.limit(pageSize);
+        return buf;
+    }
+
+    /**
+     * O_DIRECT requires that file offsets and transfer sizes be multiples of the file system's block size.
+     * Offsets are always multiples of pageSize, so it suffices to check the page size.
+     * @return the block size of the file system that holds path
+     */
+    private int checkAlignment(Path path, int pageSize) {
+        try {
+            long blockSize = Files.getFileStore(path).getBlockSize();
+            if (pageSize % blockSize != 0) {
+                throw new DiskManagerException("Direct I/O requires the page size (" + pageSize +
+                        ") to be a multiple of the block size (" + blockSize + ") of " + path);
+            }
+            return (int) blockSize;
+        } catch (IOException | UnsupportedOperationException e) {
+            throw new DiskManagerException(e);
+        }
+    }
+
     private File lookupFile(PageId pid) {
         if (!filenames.containsKey(pid.getTableId())) {
             throw new DiskManagerException("No record of this table id!");
@@ -0,0 +1,457 @@
+package colgatedb.dbfile;
+
+import colgatedb.AccessManager;
+import colgatedb.Database;
+import colgatedb.operators.Predicate;
+import colgatedb.page.PageFormat;
+import colgatedb.page.PageId;
+import colgatedb.page.SimplePageId;
+import colgatedb.page.TuplePage;
+import colgatedb.transactions.Permissions;
+import colgatedb.transactions.TransactionAbortedException;
+import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * ClusteredHeapFile is a {@link HeapFile} that keeps its tuples roughly ordered by a key field, so that a
+ * range condition on the key reads only the pages that hold the range.
+ * <p>
+ * An in-memory directory lists the file's pages in key order, each with a fence: a value no greater than
+ * any key on the page.  A tuple is inserted into the last page whose fence is at most its key.  When that
+ * page is full it is split: the tuples with the upper half of its keys move to a new page, taken from the
+ * file's empty pages or added at the end of the file, which follows it in the directory.  Page numbers
+ * therefore need not follow key order; the directory supplies it.
+ * <p>
+ * The directory is built by reading every page the first time the file is used, and kept up to date
+ * after that, much as the {@link ZoneMap} is.  Splits are not undone when a transaction aborts, but the
+ * fences stay valid, because a tuple returned to a page by an abort has a key at least that page's
+ * fence.  A key range scan therefore visits the pages in directory order, skips pages whose zone map
+ * rules out the range, and stops at the first page whose fence is past the upper bound.
+ * <p>
+ * Full scans, scans of a page range, fetches and deletes work as they do for any HeapFile.  A
+ * {@link Vacuum} would move tuples without regard to their keys, so it cannot be used on this file.
+ */
+public class ClusteredHeapFile extends HeapFile {
+
+    private final int keyField;
+    private List<Integer> pages;   // pages holding tuples, in key order; null until the directory is built
+    private List<Field> fences;    // fences.get(i) is no greater than any key on pages.get(i)
+    private final Deque<Integer> spare = new ArrayDeque<>();   // empty pages that are not in the directory
+
+    /**
+     * @param td the schema of the file
+     * @param pageSize the size in bytes of pages stored on disk
+     * @param tableid the unique id for this table
+     * @param numPages size of this file (i.e., number of pages already stored on disk)
+     * @param pageFormat the layout of the pages of this file
+     * @param freeSpaceFile where the file's {@link FreeSpaceMap} is saved, or null to keep it in memory only
+     * @param keyField the field that tuples are ordered by
+     * @throws IllegalArgumentException if keyField is not a field of td
+     */
+    public ClusteredHeapFile(TupleDesc td, int pageSize, int tableid, int numPages, PageFormat pageFormat,
+                             File freeSpaceFile, int keyField) {
+        super(td, pageSize, tableid, numPages, pageFormat, freeSpaceFile);
+        if (keyField < 0 || keyField >= td.numFields()) {
+            throw new IllegalArgumentException("No field " + keyField + " in " + td);
+        }
+        this.keyField = keyField;
+    }
+
+    /**
+     * @return the field that tuples are ordered by
+     */
+    public int getKeyField() {
+        return keyField;
+    }
+
+    /**
+     * Reads every page on behalf of tid to build the directory, if it has not been built yet.  Called with
+     * this object's monitor held.
+     */
+    private void buildDirectory(TransactionId tid) {
+        if (pages != null) {
+            return;
+        }
+        AccessManager accessManager = Database.getAccessManager();
+        final List<Integer> found = new ArrayList<>();
+        final List<Field> mins = new ArrayList<>();
+        for (int pageno = 0; pageno < numPages(); pageno++) {
+            // like a scan, building the directory takes no locks
+            TuplePage page = (TuplePage) accessManager.pinPage(tid, new SimplePageId(getId(), pageno), getPageMaker());
+            try {
+                getZoneMap().summarize(pageno, page);
+                Field min = null;
+                Iterator<Tuple> iter = page.iterator();
+                while (iter.hasNext()) {
+                    Field key = iter.next().getField(keyField);
+                    if (min == null || key.compare(Op.LESS_THAN, min)) {
+                        min = key;
+                    }
+                }
+                if (min == null) {
+                    spare.add(pageno);
+                } else {
+                    found.add(pageno);
+                    mins.add(min);
+                }
+            } finally {
+                accessManager.unpinPage(tid, page, false);
+            }
+        }
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                Field x = mins.get(a);
+                Field y = mins.get(b);
+                return x.compare(Op.LESS_THAN, y) ? -1 : (y.compare(Op.LESS_THAN, x) ? 1 : 0);
+            }
+        });
+        pages = new ArrayList<>(order.length);
+        fences = new ArrayList<>(order.length);
+        for (int i : order) {
+            pages.add(found.get(i));
+            fences.add(mins.get(i));
+        }
+    }
+
+    /**
+     * @return the position in the directory of the last page whose fence is at most key, or 0 if key is
+     * below every fence, or -1 if the directory is empty.  Called with this object's monitor held.
+     */
+    private int position(Field key) {
+        int lo = 0;
+        int hi = fences.size() - 1;
+        int pos = fences.isEmpty() ? -1 : 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fences.get(mid).compare(Op.LESS_THAN_OR_EQ, key)) {
+                pos = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Inserts t into the page whose key range covers its key, splitting the page if it is full.
+     */
+    @Override
+    public void insertTuple(TransactionId tid, Tuple t) throws TransactionAbortedException {
+        AccessManager accessManager = Database.getAccessManager();
+        Field key = t.getField(keyField);
+        while (true) {
+            int pageno;
+            synchronized (this) {
+                buildDirectory(tid);
+                int pos = position(key);
+                pageno = pos < 0 ? -1 : pages.get(pos);
+            }
+            if (pageno < 0) {
+                // the first page with tuples; its lock is acquired without holding this object's monitor
+                TuplePage page = pinNewPage(tid);
+                synchronized (this) {
+                    if (pages.isEmpty()) {
+                        insertInto(tid, page, t);
+                        pages.add(page.getId().pageNumber());
+                        fences.add(key);
+                        return;
+                    }
+                    // another transaction added the first page meanwhile: keep this one for a later split
+                    spare.add(page.getId().pageNumber());
+                }
+                getFreeSpaceMap().update(page.getId().pageNumber(), page.getNumEmptySlots());
+                accessManager.unpinPage(tid, page, false);
+                continue;
+            }
+            PageId pid = new SimplePageId(getId(), pageno);
+            // whether the lock on this page is acquired here, in which case it can be released if a split moved the key elsewhere
+            boolean justAcquired = !accessManager.holdsLock(tid, pid, Permissions.READ_ONLY);
+            accessManager.acquireLock(tid, pid, Permissions.READ_WRITE);
+            TuplePage page = (TuplePage) accessManager.pinPage(tid, pid, getPageMaker());
+            boolean moved;
+            synchronized (this) {
+                int pos = position(key);
+                moved = pages.get(pos) != pageno;
+                if (!moved && page.hasRoomFor(t)) {
+                    if (key.compare(Op.LESS_THAN, fences.get(pos))) {
+                        fences.set(pos, key);   // only the first page can receive a key below its fence
+                    }
+                    insertInto(tid, page, t);
+                    return;
+                }
+            }
+            if (moved) {
+                // another transaction split the page while this one waited for the lock
+                accessManager.unpinPage(tid, page, false);
+                if (justAcquired) {
+                    accessManager.releaseLock(tid, pid);
+                }
+                continue;
+            }
+            try {
+                split(tid, page, t);
+            } finally {
+                accessManager.unpinPage(tid, page, true);
+            }
+        }
+    }
+
+    /**
+     * Inserts t with {@link #insertTuple}, as a page added at the end of the file would not be in the
+     * directory.
+     */
+    @Override
+    public void insertInToNewPage(TransactionId tid, Tuple t) throws TransactionAbortedException {
+        insertTuple(tid, t);
+    }
+
+    /**
+     * Inserts t into a pinned page with room for it and unpins the page.
+     */
+    private void insertInto(TransactionId tid, TuplePage page, Tuple t) {
+        int pageno = page.getId().pageNumber();
+        page.insertTuple(t);
+        getZoneMap().include(pageno, t);
+        getFreeSpaceMap().update(pageno, page.getNumEmptySlots());
+        Database.getAccessManager().unpinPage(tid, page, true);
+    }
+
+    /**
+     * Pins an empty page on behalf of tid, which holds an exclusive lock on it: one of the file's spare
+     * pages if possible, or else a new page at the end of the file.
+     */
+    private TuplePage pinEmptyPage(TransactionId tid) throws TransactionAbortedException {
+        AccessManager accessManager = Database.getAccessManager();
+        while (true) {
+            Integer pageno;
+            synchronized (this) {
+                pageno = spare.poll();
+            }
+            if (pageno == null) {
+                return pinNewPage(tid);
+            }
+            PageId pid = new SimplePageId(getId(), pageno);
+            boolean justAcquired = !accessManager.holdsLock(tid, pid, Permissions.READ_ONLY);
+            accessManager.acquireLock(tid, pid, Permissions.READ_WRITE);
+            TuplePage page = (TuplePage) accessManager.pinPage(tid, pid, getPageMaker());
+            if (page.iterator().hasNext()) {
+                // no longer empty, e.g., a delete from it was aborted: list it in the directory instead
+                addToDirectory(page);
+                accessManager.unpinPage(tid, page, false);
+                if (justAcquired) {
+                    accessManager.releaseLock(tid, pid);
+                }
+                continue;
+            }
+            return page;
+        }
+    }
+
+    private void addToDirectory(TuplePage page) {
+        Field min = null;
+        Iterator<Tuple> iter = page.iterator();
+        while (iter.hasNext()) {
+            Field key = iter.next().getField(keyField);
+            if (min == null || key.compare(Op.LESS_THAN, min)) {
+                min = key;
+            }
+        }
+        synchronized (this) {
+            int pos = position(min);
+            if (pos < 0 || min.compare(Op.LESS_THAN, fences.get(pos))) {
+                pages.add(0, page.getId().pageNumber());
+                fences.add(0, min);
+            } else {
+                pages.add(pos + 1, page.getId().pageNumber());
+                fences.add(pos + 1, min);
+            }
+        }
+    }
+
+    /**
+     * Splits a full page, which tid has locked exclusively and pinned, so that there is room for t.  The
+     * tuples with the upper half of the page's keys move to an empty page, which is entered in the
+     * directory right after the full one with the lowest moved key as its fence.  If every key on the
+     * page is the same, no tuple moves, and the empty page receives later tuples with that key.
+     */
+    private void split(TransactionId tid, TuplePage page, Tuple t) throws TransactionAbortedException {
+        List<Tuple> tuples = new ArrayList<>();
+        Iterator<Tuple> iter = page.iterator();
+        while (iter.hasNext()) {
+            tuples.add(iter.next());
+        }
+        Collections.sort(tuples, new Comparator<Tuple>() {
+            @Override
+            public int compare(Tuple a, Tuple b) {
+                Field x = a.getField(keyField);
+                Field y = b.getField(keyField);
+                return x.compare(Op.LESS_THAN, y) ? -1 : (y.compare(Op.LESS_THAN, x) ? 1 : 0);
+            }
+        });
+        Field lowest = tuples.get(0).getField(keyField);
+        Field splitKey = tuples.get(tuples.size() / 2).getField(keyField);
+        if (!splitKey.compare(Op.GREATER_THAN, lowest)) {
+            // the median is the lowest key: move the keys above it instead, if there are any
+            for (Tuple u : tuples) {
+                if (u.getField(keyField).compare(Op.GREATER_THAN, lowest)) {
+                    splitKey = u.getField(keyField);
+                    break;
+                }
+            }
+        }
+        boolean moveAny = splitKey.compare(Op.GREATER_THAN, lowest);
+        TuplePage newPage = pinEmptyPage(tid);
+        int pageno = page.getId().pageNumber();
+        int newPageno = newPage.getId().pageNumber();
+        for (Tuple u : tuples) {
+            if (moveAny && u.getField(keyField).compare(Op.GREATER_THAN_OR_EQ, splitKey)) {
+                Tuple copy = u.copy();
+                page.deleteTuple(u);
+                newPage.insertTuple(copy);
+                getZoneMap().include(newPageno, copy);
+            }
+        }
+        getFreeSpaceMap().update(pageno, page.getNumEmptySlots());
+        getFreeSpaceMap().update(newPageno, newPage.getNumEmptySlots());
+        synchronized (this) {
+            int pos = pages.indexOf(pageno);
+            pages.add(pos + 1, newPageno);
+            fences.add(pos + 1, splitKey);
+        }
+        Database.getAccessManager().unpinPage(tid, newPage, true);
+    }
+
+    /**
+     * Inserts the tuples one at a time, as each may belong on a different page.
+     */
+    @Override
+    public int insertTuples(TransactionId tid, Iterator<Tuple> tuples) throws TransactionAbortedException {
+        int count = 0;
+        while (tuples.hasNext()) {
+            insertTuple(tid, tuples.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns an iterator over the tuples whose keys are between lo and hi, inclusive.  Pages are read in
+     * key order, so tuples are returned roughly in key order (in slot order within each page).
+     *
+     * @param tid the transaction doing the scan
+     * @param lo the lowest key to return, or null for no lower bound
+     * @param hi the highest key to return, or null for no upper bound
+     */
+    public DbFileIterator rangeIterator(TransactionId tid, Field lo, Field hi) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (lo != null) {
+            predicates.add(new Predicate(keyField, Op.GREATER_THAN_OR_EQ, lo));
+        }
+        if (hi != null) {
+            predicates.add(new Predicate(keyField, Op.LESS_THAN_OR_EQ, hi));
+        }
+        return new KeyRangeIterator(tid, predicates, null, hi);
+    }
+
+    /**
+     * A scan with a predicate that bounds the key from above reads the pages in key order and stops at
+     * the first page past the bound; otherwise it scans the whole file, as a HeapFile does.
+     */
+    @Override
+    public DbFileIterator iterator(TransactionId tid, List<Predicate> predicates, int[] columns) {
+        Field hi = null;
+        if (predicates != null) {
+            Type keyType = getTupleDesc().getFieldType(keyField);
+            for (Predicate p : predicates) {
+                if (p.getField() != keyField || p.getOperand().getType() != keyType) {
+                    continue;
+                }
+                Op op = p.getOp();
+                if (op == Op.EQUALS || op == Op.LESS_THAN || op == Op.LESS_THAN_OR_EQ) {
+                    if (hi == null || p.getOperand().compare(Op.LESS_THAN, hi)) {
+                        hi = p.getOperand();
+                    }
+                }
+            }
+        }
+        if (hi == null) {
+            return super.iterator(tid, predicates, columns);
+        }
+        return new KeyRangeIterator(tid, predicates, columns, hi);
+    }
+
+    /**
+     * Reads the pages in directory order, stopping at the first page whose fence is above hi.  Pages the
+     * zone map rules out, such as those wholly below a lower bound, are skipped without being read.
+     */
+    private class KeyRangeIterator extends HeapFileIterator {
+        private final TransactionId tid;
+        private final Field hi;   // the scan ends at the first page whose fence is above hi, if not null
+        private int[] order;      // the directory, as of when the iterator was opened
+        private Field[] bounds;
+        private int pos;
+
+        KeyRangeIterator(TransactionId tid, List<Predicate> predicates, int[] columns, Field hi) {
+            super(tid, predicates, columns, null);
+            this.tid = tid;
+            this.hi = hi;
+        }
+
+        @Override
+        public void open() throws TransactionAbortedException {
+            super.open();
+            synchronized (ClusteredHeapFile.this) {
+                buildDirectory(tid);
+                order = new int[pages.size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = pages.get(i);
+                }
+                bounds = fences.toArray(new Field[fences.size()]);
+            }
+            pos = 0;
+        }
+
+        @Override
+        int nextPage(int pageno) {
+            if (pos >= order.length || (hi != null && bounds[pos].compare(Op.GREATER_THAN, hi))) {
+                return Integer.MAX_VALUE;
+            }
+            return order[pos++];
+        }
+    }
+}
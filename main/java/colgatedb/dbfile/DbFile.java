@@ -3,11 +3,18 @@ package colgatedb.dbfile;
 import colgatedb.BufferManager;
 import colgatedb.DbException;
 import colgatedb.DiskManagerException;
+import colgatedb.operators.Predicate;
 import colgatedb.transactions.TransactionAbortedException;
 import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.RecordId;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
 /**
  * ColgateDB
  * @author Michael Hay mhay@colgate.edu
@@ -46,6 +53,26 @@ public interface DbFile {
      */
     void insertTuple(TransactionId tid, Tuple t) throws TransactionAbortedException;
 
+    /**
+     * Inserts each of the given tuples to the file on behalf of transaction, as if by calling
+     * {@link #insertTuple} on each.  Implementations may override this to add many tuples to a page at once.
+     *
+     * @param tid    The transaction performing the update
+     * @param tuples The tuples to add.  Each tuple should be updated to reflect that it is now stored
+     *               in this file.
+     * @return the number of tuples added
+     * @throws DbException if a tuple cannot be added
+     * @throws DiskManagerException if the needed file can't be read/written
+     */
+    default int insertTuples(TransactionId tid, Iterator<Tuple> tuples) throws TransactionAbortedException {
+        int count = 0;
+        while (tuples.hasNext()) {
+            insertTuple(tid, tuples.next());
+            count++;
+        }
+        return count;
+    }
+
     /**
      * Removes the specified tuple from the file on behalf of the specified
      * transaction.
@@ -61,6 +88,47 @@ public interface DbFile {
      */
     void deleteTuple(TransactionId tid, Tuple t) throws TransactionAbortedException;
 
+    /**
+     * Removes each of the given tuples from the file on behalf of the specified transaction, as if by
+     * calling {@link #deleteTuple} on each.  Implementations may override this to delete all the tuples
+     * of a page at once.
+     *
+     * @param tid    The transaction performing the update
+     * @param tuples The tuples to delete.  Each tuple should be updated to reflect that it is no longer
+     *               stored on any page.
+     * @return the number of tuples deleted
+     * @throws DbException if a tuple cannot be deleted or is not a member of the file
+     */
+    default int deleteTuples(TransactionId tid, Collection<Tuple> tuples) throws TransactionAbortedException {
+        for (Tuple t : tuples) {
+            deleteTuple(tid, t);
+        }
+        return tuples.size();
+    }
+
+    /**
+     * Reads the tuple with the given RecordId on behalf of the specified transaction, acquiring a shared
+     * lock on its page.
+     *
+     * @param tid The transaction performing the read
+     * @param rid the location of the tuple
+     * @return the tuple
+     * @throws DbException if rid does not refer to a tuple stored in this file
+     */
+    Tuple fetchTuple(TransactionId tid, RecordId rid) throws TransactionAbortedException;
+
+    /**
+     * Reads the tuples with the given RecordIds on behalf of the specified transaction, as if by calling
+     * {@link #fetchTuple} on each.  The ids are visited in page order so that each page is locked and
+     * pinned only once.
+     *
+     * @param tid  The transaction performing the read
+     * @param rids the locations of the tuples
+     * @return the tuples, in the order of rids
+     * @throws DbException if an id does not refer to a tuple stored in this file
+     */
+    List<Tuple> fetchTuples(TransactionId tid, Collection<RecordId> rids) throws TransactionAbortedException;
+
     /**
      * Returns an iterator over all the tuples stored in this DbFile. The
      * iterator must access pages through the {@link BufferManager}, rather
@@ -70,6 +138,58 @@ public interface DbFile {
      */
     DbFileIterator iterator(TransactionId tid);
 
+    /**
+     * Returns an iterator over the tuples stored on the given pages of this DbFile.  Iterators over
+     * disjoint ranges may be used by different threads at the same time.
+     *
+     * @param tid the transaction doing the scan
+     * @param range the pages to scan; pages beyond the end of the file are ignored
+     * @return an iterator over the tuples on the pages in range
+     */
+    DbFileIterator iterator(TransactionId tid, PageRange range);
+
+    /**
+     * Returns an iterator over the tuples stored in this DbFile that satisfy every one of the given
+     * predicates, projected onto the given columns.  The returned tuples have the schema
+     * {@code getTupleDesc().project(columns)} and keep the RecordId of the stored tuple.
+     *
+     * @param tid the transaction doing the scan
+     * @param predicates conditions on the fields of this file's TupleDesc, or null for none
+     * @param columns the fields to return, in order, or null for all fields
+     * @return an iterator over the qualifying tuples
+     * @throws java.util.NoSuchElementException if a column is not a field of this file
+     */
+    DbFileIterator iterator(TransactionId tid, List<Predicate> predicates, int[] columns);
+
+    /**
+     * Returns the number of pages in this DbFile.
+     */
+    int numPages();
+
+    /**
+     * Divides the pages of this file into at most n disjoint ranges of nearly equal size, in page order,
+     * so that they can be scanned in parallel.  An empty file yields no ranges.
+     *
+     * @param n the desired number of ranges
+     * @return the ranges, which together cover pages 0..numPages()-1
+     * @throws IllegalArgumentException if n is not positive
+     */
+    default List<PageRange> split(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Cannot split into " + n + " ranges");
+        }
+        int pages = numPages();
+        int parts = Math.min(n, pages);
+        List<PageRange> ranges = new ArrayList<>(parts);
+        int start = 0;
+        for (int i = 0; i < parts; i++) {
+            int end = start + pages / parts + (i < pages % parts ? 1 : 0);
+            ranges.add(new PageRange(start, end));
+            start = end;
+        }
+        return ranges;
+    }
+
     /**
      * Returns a unique ID used to identify this DbFile in the Catalog.
      *
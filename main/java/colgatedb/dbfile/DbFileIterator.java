@@ -55,6 +55,17 @@ public interface DbFileIterator {
      */
     public void rewind() throws TransactionAbortedException;
 
+    /**
+     * Asks this iterator to return the same Tuple object from every call to next, overwriting it each time,
+     * so that a scan creates no objects per tuple.  A returned tuple is then only valid until the next call
+     * to next; use {@link Tuple#copy()} to keep it.  Iterators that do not support this ignore it and keep
+     * returning distinct tuples.  Should be called before open.
+     *
+     * @param reuse true to reuse tuples, false to return distinct tuples (the default)
+     */
+    public default void setReuseTuples(boolean reuse) {
+    }
+
     /**
      * Closes the iterator.
      */
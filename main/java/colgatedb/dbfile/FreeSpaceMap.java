@@ -0,0 +1,201 @@
+package colgatedb.dbfile;
+
+import colgatedb.DbException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * FreeSpaceMap records, for each page of a table, roughly how many more tuples the page can accept, so
+ * that an insert can go straight to a page with room instead of pinning every page from the start of
+ * the file.
+ * <p>
+ * Each page has a one-byte entry: the page's {@link colgatedb.page.TuplePage#getNumEmptySlots()}, capped
+ * at {@link #MAX_FREE}, or {@link #UNKNOWN} if the page has not been examined.  Entries are hints, not
+ * facts: an aborted transaction can free or fill slots without the map hearing about it.  Callers must
+ * therefore check the page itself before inserting and report what they find with {@link #update}.  An
+ * unknown page is always a candidate for an insert.
+ * <p>
+ * The map may be backed by a file, with one byte per page.  It is written by {@link #save()}; pages added
+ * to the table after the last save are unknown when the map is next loaded.
+ */
+public class FreeSpaceMap {
+
+    public static final int MAX_FREE = 254;
+    public static final int UNKNOWN = 255;
+
+    private final File file;   // null if the map is kept in memory only
+    private byte[] entries;    // indexed by page number
+    private int numPages;
+    private final BitSet candidates = new BitSet();   // pages whose entry is not 0
+    private final BitSet empty = new BitSet();   // pages known to hold no committed tuples (see setEmpty)
+    private boolean dirty;
+
+    /**
+     * Creates a map of a table with the given number of pages, all of them unknown.
+     * @param numPages the number of pages in the table
+     */
+    public FreeSpaceMap(int numPages) {
+        this(numPages, null);
+    }
+
+    /**
+     * Creates a map of a table with the given number of pages, reading any entries previously saved in
+     * file.  Pages without a saved entry are unknown.
+     * @param numPages the number of pages in the table
+     * @param file where the map is saved, or null to keep it in memory only
+     * @throws DbException if the file exists but cannot be read
+     */
+    public FreeSpaceMap(int numPages, File file) {
+        this.file = file;
+        this.numPages = numPages;
+        entries = new byte[Math.max(16, numPages)];
+        Arrays.fill(entries, (byte) UNKNOWN);
+        candidates.set(0, numPages);
+        if (file != null && file.isFile()) {
+            byte[] saved;
+            try {
+                saved = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                throw new DbException("Unable to read free space map " + file + ": " + e.getMessage());
+            }
+            int n = Math.min(saved.length, numPages);
+            System.arraycopy(saved, 0, entries, 0, n);
+            for (int i = 0; i < n; i++) {
+                if (saved[i] == 0) {
+                    candidates.clear(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param pageno a page of the table
+     * @return the entry for the page: a number of free slots between 0 and {@link #MAX_FREE}, or
+     * {@link #UNKNOWN}
+     */
+    public synchronized int getFree(int pageno) {
+        checkPage(pageno);
+        return entries[pageno] & 0xFF;
+    }
+
+    /**
+     * Finds a page that may have room for another tuple.
+     * @param from the first page number to consider
+     * @return the lowest page number at or after from whose entry is not 0, or -1 if every such page is
+     * known to be full
+     */
+    public synchronized int findPage(int from) {
+        int pageno = candidates.nextSetBit(from);
+        return pageno < numPages ? pageno : -1;
+    }
+
+    /**
+     * Records how many more tuples a page can accept, if its entry is {@link #UNKNOWN}.  For callers, such
+     * as scans, that read the page without locking it: a known entry may be one a writer has set on
+     * purpose, e.g., a new page entered as full until its creator has locked it.
+     * @param pageno a page of the table
+     * @param free the page's {@link colgatedb.page.TuplePage#getNumEmptySlots()}
+     */
+    public synchronized void updateIfUnknown(int pageno, int free) {
+        checkPage(pageno);
+        if ((entries[pageno] & 0xFF) == UNKNOWN) {
+            update(pageno, free);
+        }
+    }
+
+    /**
+     * Records how many more tuples a page can accept.  The page is no longer known to be empty.
+     * @param pageno a page of the table
+     * @param free the page's {@link colgatedb.page.TuplePage#getNumEmptySlots()}
+     */
+    public synchronized void update(int pageno, int free) {
+        checkPage(pageno);
+        empty.clear(pageno);
+        int entry = Math.min(Math.max(free, 0), MAX_FREE);
+        if ((entries[pageno] & 0xFF) != entry) {
+            entries[pageno] = (byte) entry;
+            candidates.set(pageno, entry != 0);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Records that a page has been added to the end of the table.
+     * @param pageno the page number of the new page, which must be the current number of pages
+     * @param free the new page's {@link colgatedb.page.TuplePage#getNumEmptySlots()}
+     */
+    public synchronized void addPage(int pageno, int free) {
+        if (pageno != numPages) {
+            throw new DbException("Page " + pageno + " is not the next page of a table with " + numPages);
+        }
+        if (numPages == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        numPages++;
+        entries[pageno] = (byte) UNKNOWN;
+        update(pageno, free);
+        dirty = true;
+    }
+
+    /**
+     * Records whether a page is known to hold no tuples, so that scans may skip it without reading it.
+     * Unlike the free slot counts, this is not a hint: a page may only be marked empty by a transaction
+     * that holds an exclusive lock on it and has removed its last tuple, and the mark must be cleared
+     * again if that transaction aborts.  Any {@link #update} clears the mark.  Marks are not saved.
+     * @param pageno a page of the table
+     * @param isEmpty true to mark the page empty, false to clear the mark
+     */
+    public synchronized void setEmpty(int pageno, boolean isEmpty) {
+        checkPage(pageno);
+        empty.set(pageno, isEmpty);
+    }
+
+    /**
+     * @param pageno a page of the table
+     * @return true if the page is marked empty (see {@link #setEmpty})
+     */
+    public synchronized boolean isEmpty(int pageno) {
+        return empty.get(pageno);
+    }
+
+    /**
+     * Writes the map to its file, if it has one and has changed since it was last saved.
+     * @throws DbException if the file cannot be written
+     */
+    public synchronized void save() {
+        if (file == null || !dirty) {
+            return;
+        }
+        try {
+            Files.write(file.toPath(), Arrays.copyOf(entries, numPages));
+        } catch (IOException e) {
+            throw new DbException("Unable to write free space map " + file + ": " + e.getMessage());
+        }
+        dirty = false;
+    }
+
+    private void checkPage(int pageno) {
+        if (pageno < 0 || pageno >= numPages) {
+            throw new DbException("Page " + pageno + " is not in a table with " + numPages + " pages");
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package colgatedb.dbfile;
 
 import colgatedb.*;
+import colgatedb.operators.Predicate;
 import colgatedb.page.*;
 import colgatedb.transactions.Permissions;
 import colgatedb.transactions.TransactionAbortedException;
 import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
 import colgatedb.tuple.RecordId;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ColgateDB
@@ -32,19 +42,35 @@ import java.util.NoSuchElementException;
  * in no particular order. Tuples are stored on pages, each of which is a fixed
  * size, and the file is simply a collection of those pages. HeapFile works
  * closely with SlottedPage. The format of SlottedPages is described in the javadocs
- * for SlottedPage.
+ * for SlottedPage.  A table may instead use another {@link PageFormat}, such as
+ * variable-length pages, chosen when the HeapFile is created.
+ * <p>
+ * Inserts may run in many threads at once.  Each thread first tries the page it last inserted into, and
+ * inserters pass over pages that other transactions have locked rather than queueing for them, adding a
+ * page of their own if need be, so that concurrent writers spread out over the file instead of all
+ * waiting on the same page.
  *
  * @see SlottedPage
+ * @see VarLenSlottedPage
  */
 public class HeapFile implements DbFile {
 
-    private final SlottedPageMaker pageMaker;   // this should be initialized in constructor
+    private final PageFormat pageFormat;
+    private final PageMaker pageMaker;   // this should be initialized in constructor
     private int tableid;
     private TupleDesc td;
     private int pageSize;
-    private int numPages;
+    private final AtomicInteger numPages;   // advanced only once a new page is allocated
     //private BufferManager bfmanager;
     private AccessManager accessManager;
+    private final ZoneMap zoneMap;   // per-page min/max of each column, used to skip pages in filtered scans
+    private final FreeSpaceMap freeSpaceMap;   // per-page free slots, used to find a page for an insert
+    private final ThreadLocal<Integer> lastPage = new ThreadLocal<Integer>() {   // page each thread last inserted into
+        @Override
+        protected Integer initialValue() {
+            return -1;
+        }
+    };
 
     /**
      * Creates a heap file.
@@ -54,19 +80,86 @@ public class HeapFile implements DbFile {
      * @param numPages size of this heapfile (i.e., number of pages already stored on disk)
      */
     public HeapFile(TupleDesc td, int pageSize, int tableid, int numPages) {
+        this(td, pageSize, tableid, numPages, PageFormat.SLOTTED);
+    }
+
+    /**
+     * Creates a heap file whose pages have the given format.
+     * @param td the schema for records stored in this heapfile
+     * @param pageSize the size in bytes of pages stored on disk (needed for PageMaker)
+     * @param tableid the unique id for this table (needed to create appropriate page ids)
+     * @param numPages size of this heapfile (i.e., number of pages already stored on disk)
+     * @param pageFormat the layout of this heapfile's pages
+     */
+    public HeapFile(TupleDesc td, int pageSize, int tableid, int numPages, PageFormat pageFormat) {
+        this(td, pageSize, tableid, numPages, pageFormat, null);
+    }
+
+    /**
+     * Creates a heap file whose pages have the given format and whose {@link FreeSpaceMap} is saved in
+     * the given file.
+     * @param td the schema for records stored in this heapfile
+     * @param pageSize the size in bytes of pages stored on disk (needed for PageMaker)
+     * @param tableid the unique id for this table (needed to create appropriate page ids)
+     * @param numPages size of this heapfile (i.e., number of pages already stored on disk)
+     * @param pageFormat the layout of this heapfile's pages
+     * @param freeSpaceFile where the free space map is saved, or null to keep it in memory only
+     */
+    public HeapFile(TupleDesc td, int pageSize, int tableid, int numPages, PageFormat pageFormat,
+                    File freeSpaceFile) {
         this.td = td;
         this.pageSize = pageSize;
         this.tableid = tableid;
-        this.numPages = numPages;
-        pageMaker = new SlottedPageMaker(td,pageSize);
+        this.numPages = new AtomicInteger(numPages);
+        this.pageFormat = pageFormat;
+        pageMaker = pageFormat.getPageMaker(td,pageSize);
+        zoneMap = new ZoneMap(td);
+        freeSpaceMap = new FreeSpaceMap(numPages, freeSpaceFile);
         accessManager = Database.getAccessManager();
     }
 
     /**
      * Returns the number of pages in this HeapFile.
      */
+    @Override
     public int numPages() {
-        return this.numPages;
+        return this.numPages.get();
+    }
+
+    /**
+     * Returns the size in bytes of the pages in this HeapFile.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the format of the pages in this HeapFile.
+     */
+    public PageFormat getPageFormat() {
+        return pageFormat;
+    }
+
+    // used in testing and by Vacuum
+    ZoneMap getZoneMap() {
+        return zoneMap;
+    }
+
+    // used in testing and by Vacuum
+    FreeSpaceMap getFreeSpaceMap() {
+        return freeSpaceMap;
+    }
+
+    // used by Vacuum
+    PageMaker getPageMaker() {
+        return pageMaker;
+    }
+
+    /**
+     * Writes this file's {@link FreeSpaceMap} to disk, if it is backed by a file and has changed.
+     */
+    public void saveFreeSpaceMap() {
+        freeSpaceMap.save();
     }
 
     @Override
@@ -81,104 +174,389 @@ public class HeapFile implements DbFile {
 
     /**
      A helper method that allocates space for a new page and insert tuple t into it
+     @throws TransactionAbortedException if the lock on the new page cannot be acquired
+     */
+    public void insertInToNewPage(TransactionId tid, Tuple t) throws TransactionAbortedException {
+        TuplePage newpage = pinNewPage(tid);
+        int pageno = newpage.getId().pageNumber();
+        newpage.insertTuple(t);
+        zoneMap.include(pageno, t);
+        freeSpaceMap.update(pageno, newpage.getNumEmptySlots());
+        accessManager.unpinPage(tid,newpage,true);
+        lastPage.set(pageno);
+    }
+
+    /**
+     * Allocates space for a new, empty page at the end of this file and pins it on behalf of tid, which
+     * holds an exclusive lock on it.  The caller must unpin the page and update its free space map entry.
+     * @throws TransactionAbortedException if the lock cannot be acquired; the page is then left empty
      */
-    public void insertInToNewPage(TransactionId tid, Tuple t){
-        SimplePageId newpid = new SimplePageId(tableid,numPages);
-        // ensures atomicity when allocating a new page
+    TuplePage pinNewPage(TransactionId tid) throws TransactionAbortedException {
+        SimplePageId newpid;
+        // pages are added one at a time so the file, the zone map and the free space map stay in step; the
+        // page is entered as full so that other inserters leave it alone, and it becomes visible to scans
+        // only once it exists on disk
         synchronized (this) {
+            newpid = new SimplePageId(tableid,numPages.get());
             accessManager.allocatePage(newpid);
+            zoneMap.addEmptyPage(newpid.pageNumber());
+            freeSpaceMap.addPage(newpid.pageNumber(), 0);
+            numPages.incrementAndGet();
         }
-        // ensures strict 2PL, acquire lock before pinning it
+        // ensures strict 2PL, acquire lock before pinning it; another transaction may already have found the
+        // page (e.g., by its RecordId), so the request can wait and even abort
         try{
             accessManager.acquireLock(tid,newpid, Permissions.READ_WRITE);
         }
-        catch (TransactionAbortedException e){ }
-        SlottedPage newpage = (SlottedPage) accessManager.pinPage(tid,newpid,pageMaker);
-        newpage.insertTuple(t);
-        accessManager.unpinPage(tid,newpage,true);
-        numPages++;
+        catch (TransactionAbortedException e){
+            // the page stays empty: let later inserts find it, and correct the entry when they pin it
+            freeSpaceMap.update(newpid.pageNumber(), FreeSpaceMap.MAX_FREE);
+            throw e;
+        }
+        return (TuplePage) accessManager.pinPage(tid,newpid,pageMaker);
     }
 
+    /**
+     * @return true if a transaction other than tid holds a lock on the page
+     */
+    private boolean isLockedByOthers(TransactionId tid, PageId pid) {
+        for (TransactionId holder : accessManager.getTidsForPage(pid)) {
+            if (!holder.equals(tid)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Inserts t into the given page if the page has room and no other transaction holds a lock on it.
+     * @return true if t was inserted
+     */
+    private boolean insertIfRoom(TransactionId tid, int pageno, Tuple t) throws TransactionAbortedException {
+        SimplePageId pid = new SimplePageId(tableid,pageno);
+        if (isLockedByOthers(tid, pid)) {
+            return false;   // try another page rather than wait
+        }
+        // whether the lock on this page is acquired here, in which case it can be released if the page is full
+        boolean justAcquired = !accessManager.holdsLock(tid,pid,Permissions.READ_ONLY);
+        // an exclusive lock is taken at once: two inserters that each held a shared lock on the page and
+        // then asked to upgrade it would deadlock
+        accessManager.acquireLock(tid,pid, Permissions.READ_WRITE);
+        TuplePage apage = (TuplePage) accessManager.pinPage(tid,pid,pageMaker);
+        if (!apage.hasRoomFor(t)) {
+            freeSpaceMap.update(pageno, 0);
+            accessManager.unpinPage(tid,apage,false);
+            if (justAcquired){
+                accessManager.releaseLock(tid,pid);
+            }
+            return false;
+        }
+        apage.insertTuple(t);
+        zoneMap.include(pageno, t);
+        freeSpaceMap.update(pageno, apage.getNumEmptySlots());
+        accessManager.unpinPage(tid,apage,true);
+        lastPage.set(pageno);
+        return true;
+    }
 
+    /**
+     * Inserts t into the page this thread last inserted into, if it still has room, and otherwise into the
+     * first page that the {@link FreeSpaceMap} says may have room, rather than trying every page in turn.
+     * Pages locked by other transactions are passed over.  A page that turns out to be full has its entry
+     * corrected and is unpinned unchanged; if no page has room, a new page is added.
+     */
     @Override
     public void insertTuple(TransactionId tid, Tuple t) throws TransactionAbortedException {
-        // find page with empty space to insert
-        for (int i = 0; i < numPages; i++){
-            SimplePageId pid = new SimplePageId(tableid,i);
-            boolean justacquired = false;// whether the lock of this page is just acquired
-            if (accessManager.holdsLock(tid,pid,Permissions.READ_ONLY)){
-                justacquired = true;
-            }
-            // for strict 2PL, ensures lock is acquired before pinning
-            try{
-                accessManager.acquireLock(tid,pid, Permissions.READ_ONLY);
-            }
-            catch (TransactionAbortedException e){}
-            SlottedPage apage = (SlottedPage) accessManager.pinPage(tid,pid,pageMaker);
-            if (apage.getNumEmptySlots() > 0){// find empty slot in this page
-                accessManager.acquireLock(tid,pid, Permissions.READ_WRITE);
-                apage.insertTuple(t);
-                accessManager.unpinPage(tid,apage,true);
+        int last = lastPage.get();
+        if (last >= 0 && last < numPages.get() && freeSpaceMap.getFree(last) != 0 && insertIfRoom(tid, last, t)) {
+            return;
+        }
+        for (int i = freeSpaceMap.findPage(0); i >= 0; i = freeSpaceMap.findPage(i + 1)) {
+            if (i != last && insertIfRoom(tid, i, t)) {
                 return;
             }
-            else{//no empty room for insert into this page
-                //if just acquired, can release it
-                if (justacquired){
-                    accessManager.releaseLock(tid,pid);
-                }
-                accessManager.unpinPage(tid,apage,true);
-            }
         }
         // if no page or no page with empty space, needs to allocate space for a new page
         insertInToNewPage(tid,t);
     }
 
 
+    /**
+     * Inserts the tuples a page at a time: each page with room, and then each new page, is locked and
+     * pinned once, filled with as many of the tuples as fit, and unpinned, so that a single log record
+     * is written per page rather than per tuple.  Pages locked by other transactions are passed over.
+     */
+    @Override
+    public int insertTuples(TransactionId tid, Iterator<Tuple> tuples) throws TransactionAbortedException {
+        int count = 0;
+        Tuple t = tuples.hasNext() ? tuples.next() : null;
+        int i = freeSpaceMap.findPage(0);
+        while (t != null) {
+            TuplePage apage;
+            if (i >= 0) {
+                SimplePageId pid = new SimplePageId(tableid,i);
+                if (isLockedByOthers(tid, pid)) {
+                    i = freeSpaceMap.findPage(i + 1);
+                    continue;
+                }
+                boolean justAcquired = !accessManager.holdsLock(tid,pid,Permissions.READ_ONLY);
+                accessManager.acquireLock(tid,pid, Permissions.READ_WRITE);
+                apage = (TuplePage) accessManager.pinPage(tid,pid,pageMaker);
+                if (!apage.hasRoomFor(t)) {
+                    freeSpaceMap.update(i, 0);
+                    accessManager.unpinPage(tid,apage,false);
+                    if (justAcquired){
+                        accessManager.releaseLock(tid,pid);
+                    }
+                    i = freeSpaceMap.findPage(i + 1);
+                    continue;
+                }
+            } else {
+                apage = pinNewPage(tid);
+                if (!apage.hasRoomFor(t)) {
+                    freeSpaceMap.update(apage.getId().pageNumber(), apage.getNumEmptySlots());
+                    accessManager.unpinPage(tid,apage,false);
+                    throw new DbException("Tuple does not fit on an empty page: " + t);
+                }
+            }
+            int pageno = apage.getId().pageNumber();
+            while (t != null && apage.hasRoomFor(t)) {
+                apage.insertTuple(t);
+                zoneMap.include(pageno, t);
+                count++;
+                t = tuples.hasNext() ? tuples.next() : null;
+            }
+            freeSpaceMap.update(pageno, t == null ? apage.getNumEmptySlots() : 0);
+            accessManager.unpinPage(tid,apage,true);
+            lastPage.set(pageno);
+            if (i >= 0) {
+                i = freeSpaceMap.findPage(i + 1);
+            }
+        }
+        return count;
+    }
+
     @Override
     public void deleteTuple(TransactionId tid, Tuple t) throws TransactionAbortedException {
-        //get the target pid from t
-        SimplePageId targetpid = (SimplePageId) t.getRecordId().getPageId();
-        if (targetpid.getTableId() == tableid && targetpid.pageNumber() < numPages) {
-            SlottedPage targetpage = (SlottedPage) accessManager.pinPage(tid,targetpid, pageMaker);
-            targetpage.deleteTuple(t);
-            accessManager.unpinPage(tid,targetpage, true);
+        deleteTuples(tid, Collections.singletonList(t));
+    }
+
+    /**
+     * Sorts the tuples by page, then for each page acquires an exclusive lock and pins it once, deletes
+     * all of its tuples, and unpins it, so that a single log record is written per page rather than per
+     * tuple.  Every tuple is checked to belong to this file before any is deleted.
+     */
+    @Override
+    public int deleteTuples(TransactionId tid, Collection<Tuple> tuples) throws TransactionAbortedException {
+        Tuple[] ts = tuples.toArray(new Tuple[tuples.size()]);
+        for (Tuple t : ts) {
+            RecordId rid = t.getRecordId();
+            if (rid == null || rid.getPageId().getTableId() != tableid || rid.getPageId().pageNumber() < 0
+                    || rid.getPageId().pageNumber() >= numPages.get()) {
+                throw new DbException("Cannot delete tuple!");
+            }
         }
-        else{
-            throw new DbException("Cannot delete tuple!");
+        Arrays.sort(ts, new Comparator<Tuple>() {
+            @Override
+            public int compare(Tuple a, Tuple b) {
+                return Integer.compare(a.getRecordId().getPageId().pageNumber(),
+                        b.getRecordId().getPageId().pageNumber());
+            }
+        });
+        int i = 0;
+        while (i < ts.length) {
+            PageId targetpid = ts[i].getRecordId().getPageId();
+            accessManager.acquireLock(tid,targetpid, Permissions.READ_WRITE);
+            TuplePage targetpage = (TuplePage) accessManager.pinPage(tid,targetpid, pageMaker);
+            try {
+                while (i < ts.length && ts[i].getRecordId().getPageId().equals(targetpid)) {
+                    targetpage.deleteTuple(ts[i]);
+                    i++;
+                }
+            } finally {
+                freeSpaceMap.update(targetpid.pageNumber(), targetpage.getNumEmptySlots());
+                accessManager.unpinPage(tid,targetpage, true);
+            }
         }
+        return ts.length;
+    }
 
+    @Override
+    public Tuple fetchTuple(TransactionId tid, RecordId rid) throws TransactionAbortedException {
+        TuplePage page = pinForFetch(tid, rid);
+        try {
+            return fetch(page, rid);
+        } finally {
+            accessManager.unpinPage(tid, page, false);
+        }
+    }
+
+    /**
+     * Sorts the ids by page and slot, then locks and pins each page once and reads all of its requested
+     * tuples before moving on.
+     */
+    @Override
+    public List<Tuple> fetchTuples(TransactionId tid, Collection<RecordId> rids) throws TransactionAbortedException {
+        final RecordId[] ids = rids.toArray(new RecordId[rids.size()]);
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Integer.compare(ids[a].getPageId().pageNumber(), ids[b].getPageId().pageNumber());
+                return c != 0 ? c : Integer.compare(ids[a].tupleno(), ids[b].tupleno());
+            }
+        });
+        Tuple[] result = new Tuple[ids.length];
+        TuplePage page = null;
+        try {
+            for (int i : order) {
+                if (page == null || !page.getId().equals(ids[i].getPageId())) {
+                    if (page != null) {
+                        accessManager.unpinPage(tid, page, false);
+                        page = null;
+                    }
+                    page = pinForFetch(tid, ids[i]);
+                }
+                result[i] = fetch(page, ids[i]);
+            }
+        } finally {
+            if (page != null) {
+                accessManager.unpinPage(tid, page, false);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Locks (shared) and pins the page holding rid, which must be a page of this file.
+     */
+    private TuplePage pinForFetch(TransactionId tid, RecordId rid) throws TransactionAbortedException {
+        if (rid == null) {
+            throw new DbException("Cannot fetch a tuple without a RecordId");
+        }
+        if (rid.getPageId().getTableId() != tableid || rid.getPageId().pageNumber() < 0
+                || rid.getPageId().pageNumber() >= numPages.get()) {
+            throw new DbException("Page " + rid.getPageId().pageNumber() + " of table "
+                    + rid.getPageId().getTableId() + " is not in this file");
+        }
+        PageId pid = rid.getPageId();
+        if (!accessManager.holdsLock(tid, pid, Permissions.READ_ONLY)) {
+            accessManager.acquireLock(tid, pid, Permissions.READ_ONLY);
+        }
+        return (TuplePage) accessManager.pinPage(tid, pid, pageMaker);
+    }
+
+    private static Tuple fetch(TuplePage page, RecordId rid) {
+        int slotno = rid.tupleno();
+        if (slotno < 0 || slotno >= page.getNumSlots() || page.isSlotEmpty(slotno)) {
+            throw new DbException("No tuple in slot " + slotno + " of page " + rid.getPageId().pageNumber());
+        }
+        return page.getTuple(slotno);
     }
 
     @Override
     public DbFileIterator iterator(TransactionId tid) {
-        return new HeapFileIterator(tid);
+        return new HeapFileIterator(tid, null, null, null);
+    }
+
+    @Override
+    public DbFileIterator iterator(TransactionId tid, PageRange range) {
+        return new HeapFileIterator(tid, null, null, range);
+    }
+
+    /**
+     * Returns an iterator over the tuples of this file that satisfy the given predicate.
+     *
+     * @param tid the transaction doing the scan
+     * @param predicate the condition tuples must satisfy
+     * @see #iterator(TransactionId, List, int[])
+     */
+    public DbFileIterator iterator(TransactionId tid, Predicate predicate) {
+        return iterator(tid, Collections.singletonList(predicate), null);
+    }
+
+    /**
+     * Pages whose {@link ZoneMap} summary shows that no tuple can satisfy one of the predicates are skipped
+     * without being read.  On the pages that are read, the predicates are tested against the page bytes
+     * (see {@link TuplePage#iterator(int[], colgatedb.tuple.Op[], colgatedb.tuple.Field[], int[], Tuple)}),
+     * so only qualifying tuples, and of those only the requested columns, are materialized.
+     */
+    @Override
+    public DbFileIterator iterator(TransactionId tid, List<Predicate> predicates, int[] columns) {
+        return new HeapFileIterator(tid, predicates, columns, null);
     }
 
 
     /**
      * @see DbFileIterator
      */
-    private class HeapFileIterator implements DbFileIterator {
+    class HeapFileIterator implements DbFileIterator {
         private int currPgNum;//Page number of the current page being used
-        private SimplePageId currPid;
-        private SlottedPage currPage;
+        private TuplePage currPage;//pinned current page, or null if no page is pinned
         private Iterator<Tuple> tupleIt;//tuple iterator of the current page
         private TransactionId tid;
+        private final int[] fieldnos;//fields tested by the predicates
+        private final Op[] ops;
+        private final Field[] operands;
+        private final int[] columns;//fields returned, or null for all fields
+        private final PageRange range;//the pages to scan, or null to scan to the end of the file
+        private Tuple row;//the tuple returned by every call to next, or null if tuples are not reused
         private boolean open;
 
-        public HeapFileIterator(TransactionId tid) {
+        public HeapFileIterator(TransactionId tid, List<Predicate> predicates, int[] columns, PageRange range) {
             open = false;
             this.tid = tid;
+            int n = predicates == null ? 0 : predicates.size();
+            fieldnos = new int[n];
+            ops = new Op[n];
+            operands = new Field[n];
+            for (int i = 0; i < n; i++) {
+                Predicate p = predicates.get(i);
+                fieldnos[i] = p.getField();
+                ops[i] = p.getOp();
+                operands[i] = p.getOperand();
+            }
+            if (columns != null) {
+                td.project(columns);   // validates the column numbers
+            }
+            this.columns = columns;
+            this.range = range;
+        }
+
+        private int firstPage() {
+            return range == null ? 0 : range.getStart();
+        }
+
+        private int endPage() {
+            int n = numPages.get();
+            return range == null ? n : Math.min(range.getEnd(), n);
+        }
+
+        /**
+         * @return the page to read after the given one; a page number at or past the end of the scan ends it
+         */
+        int nextPage(int pageno) {
+            return pageno + 1;
+        }
+
+        private boolean mayMatch(int pageno) {
+            for (int i = 0; i < fieldnos.length; i++) {
+                if (!zoneMap.mayMatch(pageno, fieldnos[i], ops[i], operands[i])) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         @Override
         public void open() throws TransactionAbortedException {
             open = true;
-            currPgNum = 0;
-            currPid = new SimplePageId(tableid, currPgNum);
-            currPage = (SlottedPage)accessManager.pinPage(tid,currPid,pageMaker);
-            tupleIt = currPage.iterator();
+            currPgNum = firstPage() - 1;
+            currPage = null;
+            tupleIt = null;
         }
 
         @Override
@@ -186,27 +564,31 @@ public class HeapFile implements DbFile {
             if (!open){
                 return false;
             }
-            if (tupleIt != null){
-                // If tuples iterator for current page has more items
-                if (tupleIt.hasNext()){
-                    return true;
+            // If tuples iterator for current page has no more items, go on to the next page in the heap file
+            while (tupleIt == null || !tupleIt.hasNext()) {
+                unpinCurrent();
+                currPgNum = nextPage(currPgNum);
+                if (currPgNum >= endPage()) {//No more pages, end of heap file or range
+                    return false;
                 }
-                // Else, go on to the next page in the heap file
-                else {
-                    if (currPgNum < numPages-1) {
-                        accessManager.unpinPage(tid, currPage,false);
-                        currPgNum++;
-                        currPid = new SimplePageId(tableid, currPgNum);
-                        currPage = (SlottedPage) accessManager.pinPage(tid,currPid,pageMaker);
-                        tupleIt = currPage.iterator();
-                        return hasNext();
-                    }
-                    else{//No more pages, end of heap file
-                        accessManager.unpinPage(tid,currPage,false);
-                    }
+                if (freeSpaceMap.isEmpty(currPgNum) || !mayMatch(currPgNum)) {
+                    continue;//no tuple on this page can qualify
                 }
+                SimplePageId currPid = new SimplePageId(tableid, currPgNum);
+                currPage = (TuplePage) accessManager.pinPage(tid,currPid,pageMaker);
+                zoneMap.summarize(currPgNum, currPage);
+                freeSpaceMap.updateIfUnknown(currPgNum, currPage.getNumEmptySlots());   // no lock: only fill in a hint
+                tupleIt = currPage.iterator(fieldnos, ops, operands, columns, row);
             }
-            return false;
+            return true;
+        }
+
+        private void unpinCurrent() {
+            if (currPage != null) {
+                accessManager.unpinPage(tid,currPage,false);
+                currPage = null;
+            }
+            tupleIt = null;
         }
 
         @Override
@@ -226,16 +608,16 @@ public class HeapFile implements DbFile {
             open();
         }
 
+        @Override
+        public void setReuseTuples(boolean reuse) {
+            row = reuse ? new Tuple(columns == null ? td : td.project(columns)) : null;
+        }
+
         @Override
         public void close() {
             open = false;
-            if (tupleIt.hasNext()){// If a page is still being referenced, should free it
-                accessManager.unpinPage(tid,currPage,false);
-            }
+            unpinCurrent();// If a page is still being referenced, should free it
             currPgNum = -1;
-            currPid = null;
-            currPage = null;
-            tupleIt = null;
         }
     }
 
@@ -0,0 +1,79 @@
+package colgatedb.dbfile;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * A contiguous range of the pages of a {@link DbFile}, from page number start (inclusive) to end (exclusive).
+ * Ranges are produced by {@link DbFile#split(int)} so that the pages of a file can be scanned in parallel.
+ */
+public class PageRange {
+
+    private final int start;
+    private final int end;
+
+    /**
+     * @param start the first page number in the range
+     * @param end one more than the last page number in the range
+     * @throws IllegalArgumentException if start is negative or end is less than start
+     */
+    public PageRange(int start, int end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid page range [" + start + ", " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the first page number in the range
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return one more than the last page number in the range
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the number of pages in the range
+     */
+    public int numPages() {
+        return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PageRange){
+            PageRange that = (PageRange) o;
+            return start == that.start && end == that.end;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
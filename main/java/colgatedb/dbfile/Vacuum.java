@@ -0,0 +1,239 @@
+package colgatedb.dbfile;
+
+import colgatedb.AccessManager;
+import colgatedb.Database;
+import colgatedb.DbException;
+import colgatedb.page.PageId;
+import colgatedb.page.SimplePageId;
+import colgatedb.page.TuplePage;
+import colgatedb.transactions.Permissions;
+import colgatedb.transactions.Transaction;
+import colgatedb.transactions.TransactionAbortedException;
+import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.RecordId;
+import colgatedb.tuple.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * Vacuum compacts a {@link HeapFile} while it is in use, moving tuples off sparse pages near the end of
+ * the file into pages with room nearer the start.
+ * <p>
+ * Pages are visited from the last to the first.  A page is sparse if less than a given fraction of its
+ * capacity is used; each tuple on a sparse page is inserted into the first page before it that has room
+ * (found with the file's {@link FreeSpaceMap}) and deleted from the sparse page.  Compaction stops when a
+ * tuple cannot be moved to an earlier page.  The work is done in a series of short transactions, each
+ * covering a few pages, under the usual locks and logging, so readers and writers are only delayed
+ * briefly and an abort undoes only the current batch.
+ * <p>
+ * Pages that are emptied stay in the file.  Their free space map entries let later inserts reuse them,
+ * and they are marked empty so that scans skip them without reading them.
+ * <p>
+ * Moving a tuple changes its RecordId.  {@link #run()} returns the new location of every moved tuple,
+ * keyed by its old location, so that anything holding RecordIds (such as an index) can be updated.
+ * <p>
+ * The rate at which pages are visited can be limited, to bound the share of I/O that compaction uses.
+ */
+public class Vacuum {
+
+    private final HeapFile file;
+    private final double sparseThreshold;
+    private final int pagesPerTransaction;
+    private final int maxPagesPerSecond;
+
+    /**
+     * Creates a vacuum that compacts pages less than half full, 4 pages per transaction, without a
+     * rate limit.
+     * @param file the file to compact
+     */
+    public Vacuum(HeapFile file) {
+        this(file, 0.5, 4, 0);
+    }
+
+    /**
+     * @param file the file to compact
+     * @param sparseThreshold a page is compacted if less than this fraction of its capacity is used
+     * @param pagesPerTransaction the number of pages visited by each transaction; the pages a transaction
+     *                            dirties cannot be evicted until it commits, so this must be well below the
+     *                            size of the buffer pool
+     * @param maxPagesPerSecond the maximum rate at which pages are visited, or 0 for no limit
+     * @throws IllegalArgumentException if pagesPerTransaction is not positive or maxPagesPerSecond is negative,
+     *                                  or if file is a {@link ClusteredHeapFile}, whose tuples must stay in key order
+     */
+    public Vacuum(HeapFile file, double sparseThreshold, int pagesPerTransaction, int maxPagesPerSecond) {
+        if (pagesPerTransaction <= 0 || maxPagesPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid vacuum settings");
+        }
+        if (file instanceof ClusteredHeapFile) {
+            throw new IllegalArgumentException("Cannot vacuum a clustered file");
+        }
+        this.file = file;
+        this.sparseThreshold = sparseThreshold;
+        this.pagesPerTransaction = pagesPerTransaction;
+        this.maxPagesPerSecond = maxPagesPerSecond;
+    }
+
+    /**
+     * Compacts the file.  If a transaction is aborted (e.g., to break a deadlock), the moves made by
+     * earlier transactions stand and the exception is rethrown.
+     * @return the new RecordId of each moved tuple, keyed by its old RecordId
+     * @throws TransactionAbortedException if one of the vacuum's transactions is aborted
+     */
+    public Map<RecordId, RecordId> run() throws TransactionAbortedException {
+        Map<RecordId, RecordId> moves = new HashMap<>();
+        FreeSpaceMap fsm = file.getFreeSpaceMap();
+        long start = System.currentTimeMillis();
+        int visited = 0;
+        int pageno = file.numPages() - 1;
+        boolean done = false;
+        while (pageno > 0 && !done) {
+            Transaction txn = new Transaction();
+            txn.start();
+            List<Integer> emptied = new ArrayList<>();
+            Map<RecordId, RecordId> batch = new HashMap<>();
+            try {
+                for (int n = 0; n < pagesPerTransaction && pageno > 0 && !done; n++) {
+                    if (!throttle(start, visited++)) {
+                        done = true;
+                        break;
+                    }
+                    done = !compact(txn.getId(), pageno, emptied, batch);
+                    pageno--;
+                }
+                for (int p : emptied) {
+                    fsm.setEmpty(p, true);   // while the exclusive locks are still held
+                }
+                complete(txn, true);
+            } catch (TransactionAbortedException | RuntimeException e) {
+                for (int p : emptied) {
+                    fsm.setEmpty(p, false);   // before the tuples are restored
+                }
+                complete(txn, false);
+                throw e;
+            }
+            moves.putAll(batch);
+        }
+        return moves;
+    }
+
+    /**
+     * Sleeps as needed so that pages are visited no faster than maxPagesPerSecond.
+     * @return false if the thread was interrupted, in which case compaction should stop
+     */
+    private boolean throttle(long start, int visited) {
+        if (maxPagesPerSecond == 0) {
+            return true;
+        }
+        long wait = start + visited * 1000L / maxPagesPerSecond - System.currentTimeMillis();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void complete(Transaction txn, boolean commit) {
+        try {
+            if (commit) {
+                txn.commit();
+            } else {
+                txn.abort();
+            }
+        } catch (IOException e) {
+            throw new DbException("Unable to complete vacuum transaction: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the tuples of the given page, if it is sparse, to earlier pages.
+     * @param emptied the page number is added to this list if the page is emptied
+     * @param moves the new location of each moved tuple is added to this map
+     * @return false if a tuple could not be moved, in which case compaction should stop
+     */
+    private boolean compact(TransactionId tid, int pageno, List<Integer> emptied, Map<RecordId, RecordId> moves)
+            throws TransactionAbortedException {
+        AccessManager accessManager = Database.getAccessManager();
+        PageId pid = new SimplePageId(file.getId(), pageno);
+        accessManager.acquireLock(tid, pid, Permissions.READ_WRITE);
+        TuplePage page = (TuplePage) accessManager.pinPage(tid, pid, file.getPageMaker());
+        boolean dirty = false;
+        try {
+            List<Tuple> tuples = new ArrayList<>();
+            Iterator<Tuple> iter = page.iterator();
+            while (iter.hasNext()) {
+                tuples.add(iter.next());
+            }
+            if (tuples.isEmpty() || tuples.size() >= sparseThreshold * (tuples.size() + page.getNumEmptySlots())) {
+                return true;
+            }
+            for (Tuple t : tuples) {
+                RecordId oldRid = t.getRecordId();
+                Tuple copy = t.copy();
+                if (!insertBefore(tid, pageno, copy)) {
+                    return false;
+                }
+                page.deleteTuple(t);
+                dirty = true;
+                moves.put(oldRid, copy.getRecordId());
+            }
+            emptied.add(pageno);
+            return true;
+        } finally {
+            file.getFreeSpaceMap().update(pageno, page.getNumEmptySlots());
+            accessManager.unpinPage(tid, page, dirty);
+        }
+    }
+
+    /**
+     * Inserts t into the first page before page limit that has room for it.
+     * @return false if no such page has room
+     */
+    private boolean insertBefore(TransactionId tid, int limit, Tuple t) throws TransactionAbortedException {
+        AccessManager accessManager = Database.getAccessManager();
+        FreeSpaceMap fsm = file.getFreeSpaceMap();
+        for (int i = fsm.findPage(0); i >= 0 && i < limit; i = fsm.findPage(i + 1)) {
+            PageId pid = new SimplePageId(file.getId(), i);
+            // whether the lock on this page is acquired here, in which case it can be released if the page is full
+            boolean justAcquired = !accessManager.holdsLock(tid, pid, Permissions.READ_ONLY);
+            accessManager.acquireLock(tid, pid, Permissions.READ_WRITE);
+            TuplePage page = (TuplePage) accessManager.pinPage(tid, pid, file.getPageMaker());
+            if (page.hasRoomFor(t)) {
+                page.insertTuple(t);
+                file.getZoneMap().include(i, t);
+                fsm.update(i, page.getNumEmptySlots());
+                accessManager.unpinPage(tid, page, true);
+                return true;
+            }
+            fsm.update(i, 0);
+            accessManager.unpinPage(tid, page, false);
+            if (justAcquired) {
+                accessManager.releaseLock(tid, pid);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package colgatedb.dbfile;
+
+import colgatedb.page.Page;
+import colgatedb.page.TuplePage;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * ZoneMap keeps, for each page of a table, the minimum and maximum value of every column, so that a scan
+ * with a predicate can skip pages that cannot hold a qualifying tuple.
+ * <p>
+ * Summaries are kept in memory only.  A page's summary is unknown until the page is first read in full
+ * (see {@link #summarize}); a page with an unknown summary is never skipped.  After that, inserts widen
+ * the summary.  Deletes leave it unchanged: an aborted delete puts the tuple back, so a summary may
+ * only ever grow, and it is therefore always a superset of the values on the page.
+ */
+public class ZoneMap {
+
+    private final TupleDesc td;
+    private final List<Field[]> mins = new ArrayList<>();   // indexed by page number; null if unknown
+    private final List<Field[]> maxs = new ArrayList<>();
+
+    public ZoneMap(TupleDesc td) {
+        this.td = td;
+    }
+
+    /**
+     * @return true if a summary for the given page is known
+     */
+    public synchronized boolean isKnown(int pageno) {
+        return pageno < mins.size() && mins.get(pageno) != null;
+    }
+
+    /**
+     * Computes the summary of a page if it is not already known.  Both the current contents of the page and
+     * its before image are included, so the summary remains valid if uncommitted changes are rolled back.
+     * The caller must have the page pinned.
+     */
+    public synchronized void summarize(int pageno, TuplePage page) {
+        if (isKnown(pageno)) {
+            return;
+        }
+        while (mins.size() <= pageno) {
+            mins.add(null);
+            maxs.add(null);
+        }
+        // an empty page has a summary whose entries are all null: no predicate can match it
+        mins.set(pageno, new Field[td.numFields()]);
+        maxs.set(pageno, new Field[td.numFields()]);
+        include(pageno, page);
+        Page before = page.getBeforeImage();
+        if (before instanceof TuplePage) {
+            include(pageno, (TuplePage) before);
+        }
+    }
+
+    private void include(int pageno, TuplePage page) {
+        Iterator<Tuple> iter = page.iterator();
+        while (iter.hasNext()) {
+            include(pageno, iter.next());
+        }
+    }
+
+    /**
+     * Widens the summary of a page, if known, to cover tuple t.  Called when t is inserted into the page.
+     */
+    public synchronized void include(int pageno, Tuple t) {
+        if (!isKnown(pageno)) {
+            return;
+        }
+        Field[] min = mins.get(pageno);
+        Field[] max = maxs.get(pageno);
+        for (int i = 0; i < td.numFields(); i++) {
+            Field f = t.getField(i);
+            if (min[i] == null || f.compare(Op.LESS_THAN, min[i])) {
+                min[i] = f;
+            }
+            if (max[i] == null || f.compare(Op.GREATER_THAN, max[i])) {
+                max[i] = f;
+            }
+        }
+    }
+
+    /**
+     * Records that a new, empty page has been added, so its summary is known to be empty.
+     */
+    public synchronized void addEmptyPage(int pageno) {
+        while (mins.size() <= pageno) {
+            mins.add(null);
+            maxs.add(null);
+        }
+        mins.set(pageno, new Field[td.numFields()]);
+        maxs.set(pageno, new Field[td.numFields()]);
+    }
+
+    /**
+     * @return false if no tuple on the page can satisfy "field op operand"; true if one might
+     */
+    public synchronized boolean mayMatch(int pageno, int fieldno, Op op, Field operand) {
+        if (!isKnown(pageno)) {
+            return true;
+        }
+        Field min = mins.get(pageno)[fieldno];
+        Field max = maxs.get(pageno)[fieldno];
+        if (min == null) {
+            return false;   // no tuples on the page
+        }
+        switch (op) {
+            case EQUALS:
+                return !operand.compare(Op.LESS_THAN, min) && !operand.compare(Op.GREATER_THAN, max);
+            case NOT_EQUALS:
+                return !(min.compare(Op.EQUALS, operand) && max.compare(Op.EQUALS, operand));
+            case GREATER_THAN:
+                return max.compare(Op.GREATER_THAN, operand);
+            case GREATER_THAN_OR_EQ:
+                return max.compare(Op.GREATER_THAN_OR_EQ, operand);
+            case LESS_THAN:
+                return min.compare(Op.LESS_THAN, operand);
+            case LESS_THAN_OR_EQ:
+                return min.compare(Op.LESS_THAN_OR_EQ, operand);
+            default:
+                return true;   // e.g., LIKE on strings cannot be decided from a range
+        }
+    }
+}
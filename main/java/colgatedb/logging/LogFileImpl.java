@@ -417,6 +417,7 @@ public class LogFileImpl implements LogFile {
 
                 force();
                 Database.getBufferManager().flushAllPages();
+                Database.getCatalog().saveFreeSpaceMaps();
                 startCpOffset = raf.getFilePointer();
                 raf.writeInt(LogType.CHECKPOINT_RECORD);
                 raf.writeLong(-1); //no tid , but leave space for convenience
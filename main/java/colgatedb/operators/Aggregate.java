@@ -42,8 +42,8 @@ public class Aggregate extends Operator {
      * Constructor.
      * <p/>
      * Implementation hint: depending on the type of afield, you will want to
-     * construct an {@link IntegerAggregator} or {@link StringAggregator} to help
-     * you with your implementation of readNext().
+     * construct an {@link IntegerAggregator}, {@link NumericAggregator} or
+     * {@link StringAggregator} to help you with your implementation of readNext().
      *
      * @param child  The DbIterator that is feeding us tuples.
      * @param afield The column over which we are computing an aggregate.
@@ -56,14 +56,17 @@ public class Aggregate extends Operator {
         this.afield = afield;
         this.gfield = gfield;
         this.aop = aop;
-        gfieldtype = child.getTupleDesc().getFieldType(gfield);
+        gfieldtype = gfield == Aggregator.NO_GROUPING ? null : child.getTupleDesc().getFieldType(gfield);
         afieldtype = child.getTupleDesc().getFieldType(afield);
         if (afieldtype.equals(Type.INT_TYPE)){
             aggregator = new IntegerAggregator(gfield,gfieldtype,afield,aop);
         }
-        else{
+        else if (afieldtype.equals(Type.STRING_TYPE)) {
             aggregator = new StringAggregator(gfield,gfieldtype,afield,aop);
         }
+        else{
+            aggregator = new NumericAggregator(gfield,gfieldtype,afield,afieldtype,aop);
+        }
 
     }
 
@@ -117,6 +120,21 @@ public class Aggregate extends Operator {
         return aop.toString();
     }
 
+    /**
+     * @return the type of the result of applying aop to a column of type afieldtype.  Counts are ints;
+     * other aggregates of long and double columns have the type of the column, and so do the min, max
+     * and average of a timestamp column, but the sum of timestamps is a long.
+     */
+    public static Type aggregateType(Type afieldtype, Aggregator.Op aop) {
+        if (aop == Aggregator.Op.COUNT || afieldtype == Type.INT_TYPE || afieldtype == Type.STRING_TYPE) {
+            return Type.INT_TYPE;
+        }
+        if (afieldtype == Type.TIMESTAMP_TYPE && aop == Aggregator.Op.SUM) {
+            return Type.LONG_TYPE;
+        }
+        return afieldtype;
+    }
+
     public void open() throws NoSuchElementException, DbException,
             TransactionAbortedException {
         child.open();
@@ -170,11 +188,11 @@ public class Aggregate extends Operator {
         Type[] typearr;
         if (gfield != Aggregator.NO_GROUPING) {
             namearr = new String[] {"groupValue", nameOfAggregatorOp(aop)+aggregateFieldName()};
-            typearr = new Type[] {gfieldtype, Type.INT_TYPE};
+            typearr = new Type[] {gfieldtype, aggregateType(afieldtype, aop)};
         }
         else {
             namearr = new String[] {nameOfAggregatorOp(aop)+aggregateFieldName()};
-            typearr = new Type[] {Type.INT_TYPE};
+            typearr = new Type[] {aggregateType(afieldtype, aop)};
         }
         return new TupleDesc(typearr, namearr);
     }
@@ -65,6 +65,18 @@ public interface DbIterator extends Serializable {
      */
     public TupleDesc getTupleDesc();
 
+    /**
+     * Asks this iterator to return the same Tuple object from every call to next, overwriting it each time,
+     * so that a pipeline of scans, filters and projections creates no objects per tuple.  A returned tuple
+     * is then only valid until the next call to next; operators that keep tuples must {@link Tuple#copy()}
+     * them.  Iterators that do not support this ignore it and keep returning distinct tuples.  Operators
+     * that support it pass it on to their children.  Should be called before open.
+     *
+     * @param reuse true to reuse tuples, false to return distinct tuples (the default)
+     */
+    public default void setReuseTuples(boolean reuse) {
+    }
+
     /**
      * Closes the iterator.
      */
@@ -3,7 +3,6 @@ package colgatedb.operators;
 import colgatedb.Database;
 import colgatedb.DbException;
 import colgatedb.dbfile.DbFile;
-import colgatedb.page.SimplePageId;
 import colgatedb.transactions.TransactionAbortedException;
 import colgatedb.transactions.TransactionId;
 import colgatedb.tuple.IntField;
@@ -11,6 +10,10 @@ import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 import colgatedb.tuple.Type;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -33,6 +36,9 @@ import java.util.NoSuchElementException;
  * them from the table they belong to.
  */
 public class Delete extends Operator {
+    /** the number of child tuples deleted with one call to {@link DbFile#deleteTuples} per table */
+    public static final int BATCH_SIZE = 1024;
+
     private TransactionId tid;
     private DbIterator child;
     private boolean open;
@@ -95,7 +101,8 @@ public class Delete extends Operator {
 
     /**
      * Deletes tuples as they are read from the child operator. Deletes are
-     * processed via the deleteTuple method on the appropriate DbFile.  The
+     * processed via the deleteTuples method on the appropriate DbFile, up to
+     * {@link #BATCH_SIZE} tuples at a time.  The
      * DbFile can be obtained via a combination of the RecordId of the tuple
      * being deleted and the Catalog.
      *
@@ -105,20 +112,49 @@ public class Delete extends Operator {
     @Override
     public Tuple next() throws DbException, TransactionAbortedException,
             NoSuchElementException {
-        colgatedb.Catalog cat = Database.getCatalog();
         if (hasNext()){
+            // tuples are handed to their files in batches so that each page is changed once per batch; they are
+            // copied, RecordId included, as the child may reuse the tuple it returns (see DbIterator#setReuseTuples)
+            List<Tuple> batch = new ArrayList<>(BATCH_SIZE);
             do {
-                Tuple t = child.next();
-                SimplePageId pid = (SimplePageId) t.getRecordId().getPageId();
-                DbFile hpfile = cat.getDatabaseFile(pid.getTableId());
-                hpfile.deleteTuple(tid,t);
-                affectedcount++;
+                batch.add(child.next().copy());
+                if (batch.size() == BATCH_SIZE || !child.hasNext()) {
+                    affectedcount += deleteBatch(batch);
+                    batch.clear();
+                }
             }while (child.hasNext());
         }
         result.setField(0,new IntField(affectedcount));
         return result;
     }
 
+    /**
+     * Deletes the tuples, grouped by the table they belong to.
+     * @return the number of tuples deleted
+     */
+    private int deleteBatch(List<Tuple> batch) throws TransactionAbortedException {
+        Map<Integer, List<Tuple>> byTable = new LinkedHashMap<>();
+        for (Tuple t : batch) {
+            if (t.getRecordId() == null) {
+                throw new DbException("Cannot delete a tuple that is not stored in a table");
+            }
+            int tableid = t.getRecordId().getPageId().getTableId();
+            List<Tuple> tuples = byTable.get(tableid);
+            if (tuples == null) {
+                tuples = new ArrayList<>();
+                byTable.put(tableid, tuples);
+            }
+            tuples.add(t);
+        }
+        int count = 0;
+        colgatedb.Catalog cat = Database.getCatalog();
+        for (Map.Entry<Integer, List<Tuple>> entry : byTable.entrySet()) {
+            DbFile hpfile = cat.getDatabaseFile(entry.getKey());
+            count += hpfile.deleteTuples(tid, entry.getValue());
+        }
+        return count;
+    }
+
     @Override
     public DbIterator[] getChildren() {
         return new DbIterator[]{this.child};
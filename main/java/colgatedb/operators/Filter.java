@@ -62,29 +62,36 @@ public class Filter extends Operator {
             TransactionAbortedException {
         child.open();
         open = true;
+        current = null;
     }
 
     @Override
     public void close() {
         child.close();
         open = false;
+        current = null;
     }
 
     @Override
     public void rewind() throws DbException, TransactionAbortedException {
         child.rewind();
+        current = null;
     }
 
     @Override
     // should do heavy lifting
     public boolean hasNext() throws DbException, TransactionAbortedException {
-        if (open){
-            while( child.hasNext()){
-                Tuple t = child.next();
-                if (pred.filter(t)) {
-                    current = t;
-                    return true;
-                }
+        if (!open) {
+            return false;
+        }
+        if (current != null) {
+            return true;    // already found, and not yet returned by next
+        }
+        while( child.hasNext()){
+            Tuple t = child.next();
+            if (pred.filter(t)) {
+                current = t;
+                return true;
             }
         }
         return false;
@@ -107,6 +114,11 @@ public class Filter extends Operator {
         return temp;
     }
 
+    @Override
+    public void setReuseTuples(boolean reuse) {
+        child.setReuseTuples(reuse);    // tuples are passed through unchanged
+    }
+
     @Override
     public DbIterator[] getChildren() { return new DbIterator[]{this.child}; }
 
@@ -11,6 +11,8 @@ import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 import colgatedb.tuple.Type;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -33,6 +35,9 @@ import java.util.NoSuchElementException;
  * constructor
  */
 public class Insert extends Operator {
+    /** the number of child tuples passed to {@link DbFile#insertTuples} in one call */
+    public static final int BATCH_SIZE = 1024;
+
     private TransactionId tid;
     private DbIterator child;
     private int tableid;
@@ -106,8 +111,9 @@ public class Insert extends Operator {
     /**
      * Inserts tuples read from child into the tableid specified by the
      * constructor. It returns a single-field tuple containing the number of
-     * inserted records. Inserts should be completed by calling the insertTuple
-     * method on the appropriate DbFile (which can be looked up in the Catalog).
+     * inserted records. Inserts are completed by calling the insertTuples
+     * method on the appropriate DbFile (which can be looked up in the Catalog),
+     * up to {@link #BATCH_SIZE} tuples at a time.
      * <p>
      * Note that insert DOES NOT need check to see if a particular tuple is a
      * duplicate before inserting it.
@@ -118,10 +124,15 @@ public class Insert extends Operator {
     public Tuple next() throws DbException, TransactionAbortedException,
             NoSuchElementException {
         if (hasNext()){
+            // tuples are handed to the file in batches so that it can fill a page at a time; they are copied,
+            // as the child may reuse the tuple it returns (see DbIterator#setReuseTuples)
+            List<Tuple> batch = new ArrayList<>(BATCH_SIZE);
             do {
-                Tuple t = child.next();
-                hpfile.insertTuple(tid,t);
-                affectedcount++;
+                batch.add(child.next().copy());
+                if (batch.size() == BATCH_SIZE || !child.hasNext()) {
+                    affectedcount += hpfile.insertTuples(tid, batch.iterator());
+                    batch.clear();
+                }
             }while (child.hasNext());
         }
         result.setField(0,new IntField(affectedcount));
@@ -66,11 +66,10 @@ public class IntegerAggregator implements Aggregator {
         }
         if (!aggrMap.containsKey(tupfield)){
             //create an AggregateFields object for this groupby value
-            String s = tupfield.toString();
+            String s = String.valueOf(tupfield);
             aggrMap.put(tupfield,new AggregateFields(s));
         }
-        IntField tupleaggrfield = (IntField)tup.getField(afield);
-        int tuplevalue = tupleaggrfield.getValue();
+        int tuplevalue = tup.getInt(afield);
         AggregateFields aggrfield = aggrMap.get(tupfield);
         //min
         if (tuplevalue < aggrfield.min) {
@@ -86,7 +85,6 @@ public class IntegerAggregator implements Aggregator {
         aggrfield.count++;
         //average
         aggrfield.sumCount = aggrfield.sum/aggrfield.count;
-        aggrMap.put(tupfield,aggrfield);
     }
 
     /**
@@ -134,12 +132,15 @@ public class IntegerAggregator implements Aggregator {
             else if (op.equals(Op.MAX)){
                 result = af.max;
             }
+            else if (op.equals(Op.COUNT)){
+                result = af.count;
+            }
             if (gbfield == Aggregator.NO_GROUPING){
-                newtuple.setField(0, new IntField(result));
+                newtuple.setInt(0, result);
             }
             else {
                 newtuple.setField(0, groupby);
-                newtuple.setField(1, new IntField(result));
+                newtuple.setInt(1, result);
             }
             tuplelist.add(newtuple);
         }
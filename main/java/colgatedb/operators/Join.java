@@ -3,11 +3,9 @@ package colgatedb.operators;
 import colgatedb.DbException;
 import colgatedb.dbfile.DbFileIterator;
 import colgatedb.transactions.TransactionAbortedException;
-import colgatedb.tuple.Field;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 
-import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
@@ -37,6 +35,7 @@ public class Join extends Operator {
     private TupleDesc td2;
     private TupleDesc newtd;
     private Tuple joinresult;
+    private Tuple row;  // the tuple returned by every call to next, or null if tuples are not reused
     private Tuple t1;
     private Tuple t2;
 
@@ -104,19 +103,7 @@ public class Join extends Operator {
             while (child2.hasNext()){
                 t2 = child2.next();
                 if (joinp.filter(t1,t2)){
-                    int i = 0;
-                    Tuple newt = new Tuple(newtd);
-                    Iterator<Field> t1f= t1.fields();
-                    while (t1f.hasNext()){
-                        newt.setField(i,t1f.next());
-                        i++;
-                    }
-                    Iterator<Field> t2f= t2.fields();
-                    while (t2f.hasNext()){
-                        newt.setField(i,t2f.next());
-                        i++;
-                    }
-                    joinresult = newt;
+                    joinresult = row != null ? concatInto(t1, t2) : Tuple.concat(newtd, t1, t2);
                     return true;
                 }
             }
@@ -159,6 +146,28 @@ public class Join extends Operator {
 
     }
 
+    private Tuple concatInto(Tuple t1, Tuple t2) {
+        int n1 = td1.numFields();
+        for (int i = 0; i < n1; i++) {
+            row.setField(i, t1, i);
+        }
+        for (int i = 0; i < td2.numFields(); i++) {
+            row.setField(n1 + i, t2, i);
+        }
+        return row;
+    }
+
+    /**
+     * In addition to reusing its own output tuple, Join passes the request on to both children: an outer
+     * tuple stays valid while the inner child is scanned, because the outer child is not advanced until then.
+     */
+    @Override
+    public void setReuseTuples(boolean reuse) {
+        row = reuse ? new Tuple(newtd) : null;
+        child1.setReuseTuples(reuse);
+        child2.setReuseTuples(reuse);
+    }
+
     @Override
     public DbIterator[] getChildren() {
         return new DbIterator[]{child1,child2};
@@ -1,8 +1,11 @@
 package colgatedb.operators;
 
-import colgatedb.tuple.Field;
+import colgatedb.tuple.DoubleField;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.LongField;
 import colgatedb.tuple.Op;
 import colgatedb.tuple.Tuple;
+import colgatedb.tuple.Type;
 
 import java.io.Serializable;
 
@@ -52,6 +55,21 @@ public class JoinPredicate implements Serializable {
      * @return true if the tuples satisfy the predicate.
      */
     public boolean filter(Tuple t1, Tuple t2) {
+        // compare numeric values without creating Fields
+        Type type = t1.getTupleDesc().getFieldType(field1);
+        if (type == t2.getTupleDesc().getFieldType(field2)) {
+            switch (type) {
+                case INT_TYPE:
+                    return IntField.compare(t1.getInt(field1), op, t2.getInt(field2));
+                case LONG_TYPE:
+                case TIMESTAMP_TYPE:
+                    return LongField.compare(t1.getLong(field1), op, t2.getLong(field2));
+                case DOUBLE_TYPE:
+                    return DoubleField.compare(t1.getDouble(field1), op, t2.getDouble(field2));
+                default:
+                    break;
+            }
+        }
         return t1.getField(field1).compare(op,t2.getField(field2));
     }
 
@@ -0,0 +1,148 @@
+package colgatedb.operators;
+
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * Knows how to compute some aggregate over a set of LongFields, TimestampFields or DoubleFields.  Values
+ * are read from tuples as primitives (see {@link Tuple#getLong} and {@link Tuple#getDouble}).  The type
+ * of the result is given by {@link Aggregate#aggregateType}; the average of longs and timestamps is
+ * rounded towards zero.
+ */
+public class NumericAggregator implements Aggregator {
+
+    private final int gbfield;
+    private final Type gbfieldtype;
+    private final int afield;
+    private final boolean isDouble;   // true for a DOUBLE_TYPE aggregate field, false for LONG_TYPE or TIMESTAMP_TYPE
+    private final Op op;
+    private final Type resultType;
+    private final HashMap<Field, Accumulator> groups = new HashMap<>();   // the key is null if there is no grouping
+
+    /**
+     * Aggregate constructor
+     *
+     * @param gbfield     the 0-based index of the group-by field in the tuple, or
+     *                    NO_GROUPING if there is no grouping
+     * @param gbfieldtype the type of the group by field (e.g., Type.INT_TYPE), or null
+     *                    if there is no grouping
+     * @param afield      the 0-based index of the aggregate field in the tuple
+     * @param afieldtype  the type of the aggregate field: LONG_TYPE, DOUBLE_TYPE or TIMESTAMP_TYPE
+     * @param what        the aggregation operator: MIN, MAX, SUM, AVG or COUNT
+     * @throws IllegalArgumentException if afieldtype or what is not supported
+     */
+    public NumericAggregator(int gbfield, Type gbfieldtype, int afield, Type afieldtype, Op what) {
+        if (afieldtype != Type.LONG_TYPE && afieldtype != Type.DOUBLE_TYPE && afieldtype != Type.TIMESTAMP_TYPE) {
+            throw new IllegalArgumentException("unsupported type " + afieldtype);
+        }
+        if (what != Op.MIN && what != Op.MAX && what != Op.SUM && what != Op.AVG && what != Op.COUNT) {
+            throw new IllegalArgumentException("unsupported operator " + what);
+        }
+        this.gbfield = gbfield;
+        this.gbfieldtype = gbfieldtype;
+        this.afield = afield;
+        this.isDouble = afieldtype == Type.DOUBLE_TYPE;
+        this.op = what;
+        this.resultType = Aggregate.aggregateType(afieldtype, what);
+    }
+
+    /**
+     * Merge a new tuple into the aggregate, grouping as indicated in the
+     * constructor
+     *
+     * @param tup the Tuple containing an aggregate field and a group-by field
+     */
+    public void mergeTupleIntoGroup(Tuple tup) {
+        Field group = gbfield == Aggregator.NO_GROUPING ? null : tup.getField(gbfield);
+        Accumulator acc = groups.get(group);
+        if (acc == null) {
+            acc = new Accumulator();
+            groups.put(group, acc);
+        }
+        if (isDouble) {
+            double value = tup.getDouble(afield);
+            if (acc.count == 0 || Double.compare(value, acc.dmin) < 0) {
+                acc.dmin = value;
+            }
+            if (acc.count == 0 || Double.compare(value, acc.dmax) > 0) {
+                acc.dmax = value;
+            }
+            acc.dsum += value;
+        } else {
+            long value = tup.getLong(afield);
+            if (acc.count == 0 || value < acc.min) {
+                acc.min = value;
+            }
+            if (acc.count == 0 || value > acc.max) {
+                acc.max = value;
+            }
+            acc.sum += value;
+        }
+        acc.count++;
+    }
+
+    /**
+     * Create a DbIterator over group aggregate results.
+     *
+     * @return a DbIterator whose tuples are the pair (groupVal, aggregateVal)
+     * if using group, or a single (aggregateVal) if no grouping.
+     */
+    public DbIterator iterator() {
+        TupleDesc td;
+        if (gbfield == Aggregator.NO_GROUPING) {
+            td = new TupleDesc(new Type[]{resultType}, new String[]{"aggregateValue"});
+        } else {
+            td = new TupleDesc(new Type[]{gbfieldtype, resultType}, new String[]{"groupValue", "aggregateValue"});
+        }
+        int resultField = td.numFields() - 1;
+        ArrayList<Tuple> tuplelist = new ArrayList<Tuple>();
+        for (Field group : groups.keySet()) {
+            Accumulator acc = groups.get(group);
+            Tuple t = new Tuple(td);
+            if (group != null) {
+                t.setField(0, group);
+            }
+            if (op == Op.COUNT) {
+                t.setInt(resultField, acc.count);
+            } else if (isDouble) {
+                t.setDouble(resultField, op == Op.MIN ? acc.dmin : op == Op.MAX ? acc.dmax :
+                        op == Op.SUM ? acc.dsum : acc.dsum / acc.count);
+            } else {
+                t.setLong(resultField, op == Op.MIN ? acc.min : op == Op.MAX ? acc.max :
+                        op == Op.SUM ? acc.sum : acc.sum / acc.count);
+            }
+            tuplelist.add(t);
+        }
+        return new TupleIterator(td, tuplelist);
+    }
+
+    /**
+     * A helper struct to store accumulated aggregate values.  Only the fields for the type of the
+     * aggregate field are used.
+     */
+    private static class Accumulator {
+        long min, max, sum;
+        double dmin, dmax, dsum;
+        int count;
+    }
+}
@@ -2,8 +2,7 @@ package colgatedb.operators;
 
 import colgatedb.DbException;
 import colgatedb.transactions.TransactionAbortedException;
-import colgatedb.tuple.Field;
-import colgatedb.tuple.Op;
+import colgatedb.tuple.KeyEncoder;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 
@@ -34,6 +33,7 @@ public class OrderBy extends Operator {
     private String orderByFieldName;
     private Iterator<Tuple> it;
     private boolean asc;
+    private KeyEncoder keyEncoder;
     private boolean open;
 
     /**
@@ -49,6 +49,7 @@ public class OrderBy extends Operator {
         this.orderByField = orderbyField;
         this.orderByFieldName = td.getFieldName(orderbyField);
         this.asc = asc;
+        this.keyEncoder = new KeyEncoder(td, new int[]{orderbyField}, new boolean[]{asc});
     }
 
     public boolean isASC() {
@@ -70,10 +71,18 @@ public class OrderBy extends Operator {
     public void open() throws DbException, NoSuchElementException,
             TransactionAbortedException {
         child.open();
-        // load all the tuples in a collection, and sort it
-        while (child.hasNext())
-            childTups.add((Tuple) child.next());
-        Collections.sort(childTups, new TupleComparator(orderByField, asc));
+        // load all the tuples in a collection, and sort it by their keys, each of which is encoded once; the
+        // tuples are copied, as the child may reuse the tuple it returns (see DbIterator#setReuseTuples)
+        ArrayList<KeyedTuple> keyed = new ArrayList<KeyedTuple>();
+        while (child.hasNext()) {
+            Tuple t = child.next().copy();
+            keyed.add(new KeyedTuple(keyEncoder.encode(t), t));
+        }
+        Collections.sort(keyed, new KeyedTupleComparator());
+        childTups.clear();
+        for (KeyedTuple kt : keyed) {
+            childTups.add(kt.tuple);
+        }
         it = childTups.iterator();
         open = true;
     }
@@ -114,24 +123,20 @@ public class OrderBy extends Operator {
 
 }
 
-class TupleComparator implements Comparator<Tuple> {
-    int field;
-    boolean asc;
+class KeyedTuple {
+    final byte[] key;
+    final Tuple tuple;
 
-    public TupleComparator(int field, boolean asc) {
-        this.field = field;
-        this.asc = asc;
+    KeyedTuple(byte[] key, Tuple tuple) {
+        this.key = key;
+        this.tuple = tuple;
     }
+}
+
+class KeyedTupleComparator implements Comparator<KeyedTuple> {
 
-    public int compare(Tuple o1, Tuple o2) {
-        Field t1 = (o1).getField(field);
-        Field t2 = (o2).getField(field);
-        if (t1.compare(Op.EQUALS, t2))
-            return 0;
-        if (t1.compare(Op.GREATER_THAN, t2))
-            return asc ? 1 : -1;
-        else
-            return asc ? -1 : 1;
+    public int compare(KeyedTuple o1, KeyedTuple o2) {
+        return KeyEncoder.compare(o1.key, o2.key);
     }
 
 }
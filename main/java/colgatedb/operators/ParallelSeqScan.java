@@ -0,0 +1,264 @@
+package colgatedb.operators;
+
+import colgatedb.Database;
+import colgatedb.DbException;
+import colgatedb.dbfile.DbFile;
+import colgatedb.dbfile.DbFileIterator;
+import colgatedb.dbfile.PageRange;
+import colgatedb.transactions.TransactionAbortedException;
+import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * ParallelSeqScan is a {@link SeqScan} that reads a table with several worker threads.  The table's pages
+ * are divided by {@link DbFile#split(int)} into disjoint ranges, and each worker pins and decodes the
+ * pages of one range.  Workers hand their tuples to this operator through bounded queues, so a worker
+ * that gets too far ahead of the parent operator waits rather than buffering the whole table.
+ * <p>
+ * By default tuples are returned in whatever order the workers produce them.  If order is preserved,
+ * each worker has its own queue and the queues are drained in page order, so tuples are returned in
+ * the same order as a SeqScan; workers for later ranges still read ahead until their queue is full.
+ * <p>
+ * The buffer pool must have room for one pinned page per worker.  Returned tuples are never reused.
+ */
+public class ParallelSeqScan implements DbIterator {
+
+    /** default number of tuples each queue can hold */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final TransactionId tid;
+    private final int tableid;
+    private final String tableAlias;
+    private final DbFile dbfile;
+    private final int numWorkers;
+    private final boolean preserveOrder;
+    private final int queueCapacity;
+    private final Tuple end;   // put on a queue by a worker that has no more tuples
+
+    private List<Worker> workers;
+    private List<BlockingQueue<Tuple>> queues;   // one per worker if order is preserved, otherwise one shared
+    private int finished;   // number of workers whose end marker has been taken from a queue
+    private Tuple nextTuple;   // tuple taken from a queue but not yet returned
+    private volatile Throwable failure;   // first exception or error thrown by a worker
+    private boolean open;
+
+    /**
+     * Creates a parallel scan over the specified table as a part of the specified transaction.
+     *
+     * @param tid           The transaction this scan is running as a part of.
+     * @param tableid       the id of the table to scan.
+     * @param tableAlias    the alias of this table (see {@link SeqScan#SeqScan(TransactionId, int, String)})
+     * @param numWorkers    the number of threads reading the table
+     * @param preserveOrder true to return tuples in the same order as a SeqScan
+     * @param queueCapacity the number of tuples a queue can hold
+     * @throws IllegalArgumentException if numWorkers or queueCapacity is not positive
+     */
+    public ParallelSeqScan(TransactionId tid, int tableid, String tableAlias, int numWorkers,
+                           boolean preserveOrder, int queueCapacity) {
+        if (numWorkers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("numWorkers and queueCapacity must be positive");
+        }
+        this.tid = tid;
+        this.tableid = tableid;
+        this.tableAlias = tableAlias;
+        this.numWorkers = numWorkers;
+        this.preserveOrder = preserveOrder;
+        this.queueCapacity = queueCapacity;
+        dbfile = Database.getCatalog().getDatabaseFile(tableid);
+        end = new Tuple(dbfile.getTupleDesc());
+        open = false;
+    }
+
+    public ParallelSeqScan(TransactionId tid, int tableid, String tableAlias, int numWorkers,
+                           boolean preserveOrder) {
+        this(tid, tableid, tableAlias, numWorkers, preserveOrder, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ParallelSeqScan(TransactionId tid, int tableid, int numWorkers) {
+        this(tid, tableid, Database.getCatalog().getTableName(tableid), numWorkers, false);
+    }
+
+    /**
+     * @return the table name of the table the operator scans
+     */
+    public String getTableName() {
+        return Database.getCatalog().getTableName(tableid);
+    }
+
+    /**
+     * @return the alias of the table this operator scans
+     */
+    public String getAlias() {
+        return tableAlias;
+    }
+
+    @Override
+    public TupleDesc getTupleDesc() {
+        return SeqScan.aliasTupleDesc(dbfile.getTupleDesc(), tableAlias);
+    }
+
+    /**
+     * Starts one worker for each range of pages.
+     */
+    @Override
+    public void open() throws DbException, TransactionAbortedException {
+        List<PageRange> ranges = dbfile.split(numWorkers);
+        workers = new ArrayList<>(ranges.size());
+        queues = new ArrayList<>();
+        if (!preserveOrder) {
+            queues.add(new ArrayBlockingQueue<Tuple>(queueCapacity));
+        }
+        for (PageRange range : ranges) {
+            if (preserveOrder) {
+                queues.add(new ArrayBlockingQueue<Tuple>(queueCapacity));
+            }
+            workers.add(new Worker(dbfile.iterator(tid, range), queues.get(queues.size() - 1), range));
+        }
+        finished = 0;
+        nextTuple = null;
+        failure = null;
+        open = true;
+        for (Worker w : workers) {
+            w.start();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws DbException, TransactionAbortedException {
+        if (!open) {
+            return false;
+        }
+        while (nextTuple == null && finished < workers.size()) {
+            BlockingQueue<Tuple> queue = queues.get(preserveOrder ? finished : 0);
+            Tuple t;
+            try {
+                t = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DbException("Interrupted while waiting for tuples");
+            }
+            if (t == end) {
+                finished++;
+                checkFailure();
+            } else {
+                nextTuple = t;
+            }
+        }
+        return nextTuple != null;
+    }
+
+    private void checkFailure() throws TransactionAbortedException {
+        Throwable e = failure;
+        if (e instanceof TransactionAbortedException) {
+            throw (TransactionAbortedException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    @Override
+    public Tuple next() throws DbException, TransactionAbortedException, NoSuchElementException {
+        if (!open) {
+            throw new NoSuchElementException("Closed!");
+        }
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Tuple t = nextTuple;
+        nextTuple = null;
+        return t;
+    }
+
+    @Override
+    public void rewind() throws DbException, TransactionAbortedException {
+        close();
+        open();
+    }
+
+    /**
+     * Stops the workers and waits for them to unpin their pages.
+     */
+    @Override
+    public void close() {
+        if (workers != null) {
+            for (Worker w : workers) {
+                w.interrupt();
+            }
+            for (Worker w : workers) {
+                try {
+                    w.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        workers = null;
+        queues = null;
+        nextTuple = null;
+        open = false;
+    }
+
+    /**
+     * Scans one range of pages, putting each tuple and finally the end marker on its queue.
+     */
+    private class Worker extends Thread {
+        private final DbFileIterator iter;
+        private final BlockingQueue<Tuple> queue;
+
+        Worker(DbFileIterator iter, BlockingQueue<Tuple> queue, PageRange range) {
+            super("ParallelSeqScan-" + tableid + "-" + range);
+            setDaemon(true);
+            this.iter = iter;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                iter.open();
+                while (iter.hasNext()) {
+                    queue.put(iter.next());
+                }
+            } catch (InterruptedException e) {
+                return;   // the scan was closed; nobody is waiting for the end marker
+            } catch (Throwable e) {
+                // anything else, including Errors, is passed on to the parent, which would otherwise wait
+                // forever for the end marker
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                iter.close();
+            }
+            try {
+                queue.put(end);
+            } catch (InterruptedException e) {
+                // the scan was closed
+            }
+        }
+    }
+}
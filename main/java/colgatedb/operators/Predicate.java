@@ -1,8 +1,13 @@
 package colgatedb.operators;
 
+import colgatedb.tuple.DoubleField;
 import colgatedb.tuple.Field;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.LongField;
 import colgatedb.tuple.Op;
+import colgatedb.tuple.TimestampField;
 import colgatedb.tuple.Tuple;
+import colgatedb.tuple.Type;
 
 import java.io.Serializable;
 
@@ -27,6 +32,9 @@ public class Predicate implements Serializable {
     private final int field;
     private final Op op;
     private final Field operand;
+    private final Type operandType;     // the type of operand, or null if operand is null
+    private final long longValue;       // the value of an int, long or timestamp operand
+    private final double doubleValue;   // the value of a double operand
 
     /**
      * Constructor.
@@ -39,6 +47,17 @@ public class Predicate implements Serializable {
         this.field = field;
         this.op = op;
         this.operand = operand;
+        this.operandType = operand == null ? null : operand.getType();
+        if (operand instanceof IntField) {
+            longValue = ((IntField) operand).getValue();
+        } else if (operand instanceof LongField) {
+            longValue = ((LongField) operand).getValue();
+        } else if (operand instanceof TimestampField) {
+            longValue = ((TimestampField) operand).getValue();
+        } else {
+            longValue = 0;
+        }
+        doubleValue = operand instanceof DoubleField ? ((DoubleField) operand).getValue() : 0;
     }
 
     /**
@@ -72,6 +91,20 @@ public class Predicate implements Serializable {
      * @return true if the comparison is true, false otherwise.
      */
     public boolean filter(Tuple t) {
+        // compare numeric values without creating a Field
+        if (operandType != null && t.getTupleDesc().getFieldType(field) == operandType) {
+            switch (operandType) {
+                case INT_TYPE:
+                    return IntField.compare(t.getInt(field), op, (int) longValue);
+                case LONG_TYPE:
+                case TIMESTAMP_TYPE:
+                    return LongField.compare(t.getLong(field), op, longValue);
+                case DOUBLE_TYPE:
+                    return DoubleField.compare(t.getDouble(field), op, doubleValue);
+                default:
+                    break;
+            }
+        }
         return t.getField(field).compare(op,operand);
     }
 
@@ -34,6 +34,7 @@ public class Project extends Operator {
     private DbIterator child;
     private TupleDesc td;
     private ArrayList<Integer> outFieldIds;
+    private Tuple row;  // the tuple returned by every call to next, or null if tuples are not reused
 
     /**
      * Constructor accepts a child operator to read tuples to apply projection
@@ -91,14 +92,20 @@ public class Project extends Operator {
             throw new NoSuchElementException("no more tuples!");
         }
         Tuple t = child.next();
-        Tuple newTuple = new Tuple(td);
-        newTuple.setRecordId(t.getRecordId());
+        Tuple newTuple = row != null ? row : new Tuple(td);
+        newTuple.copyRecordId(t);
         for (int i = 0; i < td.numFields(); i++) {
-            newTuple.setField(i, t.getField(outFieldIds.get(i)));
+            newTuple.setField(i, t, outFieldIds.get(i));
         }
         return newTuple;
     }
 
+    @Override
+    public void setReuseTuples(boolean reuse) {
+        row = reuse ? new Tuple(td) : null;
+        child.setReuseTuples(reuse);
+    }
+
 
     @Override
     public DbIterator[] getChildren() {
@@ -11,6 +11,7 @@ import colgatedb.tuple.TupleDesc;
 import colgatedb.tuple.Type;
 
 
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -37,6 +38,7 @@ public class SeqScan implements DbIterator {
     private colgatedb.Catalog my_catalog;
     private DbFile dbfile;
     private DbFileIterator fileIte;
+    private final int[] columns;   // the fields of the table returned, or null for all fields
     private boolean open;
 
 
@@ -54,12 +56,31 @@ public class SeqScan implements DbIterator {
      *                   tableAlias.null, or null.null).
      */
     public SeqScan(TransactionId tid, int tableid, String tableAlias) {
+        this(tid, tableid, tableAlias, null, null);
+    }
+
+    /**
+     * Creates a sequential scan that returns only the tuples satisfying every one of the given predicates,
+     * projected onto the given columns.  The predicates and projection are evaluated inside the table's
+     * iterator (see {@link DbFile#iterator(TransactionId, List, int[])}), so tuples that do not qualify and
+     * columns that are not needed are never decoded.  This takes the place of a Filter and a Project over
+     * a plain SeqScan.
+     *
+     * @param tid        The transaction this scan is running as a part of.
+     * @param tableid    the id of the table to scan.
+     * @param tableAlias the alias of this table (see {@link #SeqScan(TransactionId, int, String)})
+     * @param predicates conditions on the fields of the table (numbered as in the table's TupleDesc), or null
+     * @param columns    the fields of the table to return, in order, or null for all fields
+     */
+    public SeqScan(TransactionId tid, int tableid, String tableAlias, List<Predicate> predicates, int[] columns) {
         this.tid = tid;
         this.tableid = tableid;
         this.tableAlias = tableAlias;
+        this.columns = columns;
         my_catalog = Database.getCatalog();
         dbfile = my_catalog.getDatabaseFile(tableid);
-        fileIte= dbfile.iterator(tid);
+        fileIte = predicates == null && columns == null ? dbfile.iterator(tid) :
+                dbfile.iterator(tid, predicates, columns);
         open = false;
     }
 
@@ -99,6 +120,11 @@ public class SeqScan implements DbIterator {
 
     public TupleDesc getTupleDesc() {
         TupleDesc oridesc = dbfile.getTupleDesc();
+        return aliasTupleDesc(columns == null ? oridesc : oridesc.project(columns), tableAlias);
+    }
+
+    // prefixes each field name in oridesc with tableAlias; shared with ParallelSeqScan
+    static TupleDesc aliasTupleDesc(TupleDesc oridesc, String tableAlias) {
         Type[] typearr = new Type[oridesc.numFields()];
         String[] fieldarr = new String[oridesc.numFields()];
         for (int i = 0; i< oridesc.numFields(); i++){
@@ -134,4 +160,9 @@ public class SeqScan implements DbIterator {
             TransactionAbortedException {
         fileIte.rewind();
     }
+
+    @Override
+    public void setReuseTuples(boolean reuse) {
+        fileIte.setReuseTuples(reuse);
+    }
 }
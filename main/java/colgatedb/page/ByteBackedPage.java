@@ -0,0 +1,435 @@
+package colgatedb.page;
+
+import colgatedb.tuple.DoubleField;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.LongField;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.RecordId;
+import colgatedb.tuple.TimestampField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * ByteBackedPage holds what is common to pages whose only representation is their serialized bytes.
+ * <p>
+ * Reading a page is just a copy of its bytes: tuples are decoded lazily, the first time they are
+ * requested (and then cached, so that repeated requests return the same object), and individual fields
+ * can be decoded without materializing the whole tuple.  Inserts and deletes patch the bytes in place,
+ * so {@link #getPageData()} never re-encodes the page.
+ * <p>
+ * Page bytes are copy-on-write.  {@link #getPageData()} and {@link #getBeforeImage()} share the
+ * current byte array instead of copying it, and {@link #setBeforeImage()} just records that the current
+ * bytes are the before image.  The first modification after any of these copies the bytes once, leaving
+ * the shared array as an immutable snapshot.  A page that is only read is therefore never copied.
+ * <p>
+ * Subclasses define the byte format.  They must call {@link #prepareWrite()} before modifying
+ * {@link #data}.
+ */
+public abstract class ByteBackedPage implements TuplePage {
+
+    protected final PageId pid;
+    protected final TupleDesc td;
+    protected final int pageSize;
+    protected byte[] data;          // raw page bytes
+    private boolean shared;         // if true, data is referenced elsewhere and must be copied before it is modified
+    private Tuple[] tuplearr = new Tuple[0];  // tuples materialized so far; null if slot is empty or not yet decoded
+    private final Object oldDataLock = new Object();
+    private byte[] oldData;         // immutable snapshot of the before image; null if page is unmodified since then
+
+    /**
+     * Wraps the given bytes (of length pageSize) without copying them.
+     * @param shared true if bytes is an immutable snapshot that must be copied before it is modified
+     */
+    protected ByteBackedPage(PageId pid, TupleDesc td, int pageSize, byte[] bytes, boolean shared) {
+        this.pid = pid;
+        this.td = td;
+        this.pageSize = pageSize;
+        this.data = bytes;
+        this.shared = shared;
+    }
+
+    /**
+     * @return the slot at or after slotno that is used, or getNumSlots() if there is none.
+     */
+    protected int nextUsedSlot(int slotno) {
+        while (slotno < getNumSlots() && isSlotEmpty(slotno)) {
+            slotno++;
+        }
+        return slotno;
+    }
+
+    /**
+     * Tests the condition "field op operand" against one field of the tuple in the given (used) slot.
+     * Subclasses may override this to compare the raw bytes without decoding the field.
+     */
+    protected boolean fieldMatches(int slotno, int fieldno, Op op, Field operand) {
+        return getField(slotno, fieldno).compare(op, operand);
+    }
+
+    /**
+     * Decodes the data of the given (used) slot into t, whose schema is that of this page, overwriting
+     * all of its fields.  Its RecordId need not be set.
+     */
+    protected abstract void decodeTuple(int slotno, Tuple t);
+
+    /**
+     * Decodes field fieldno of the tuple in the given (used) slot into field i of t, which has the same
+     * type.  Subclasses may override this to decode the raw bytes without creating a Field.
+     */
+    protected void decodeFieldInto(int slotno, int fieldno, Tuple t, int i) {
+        t.setField(i, decodeField(slotno, fieldno));
+    }
+
+    /**
+     * @return true if {@link #rawMatches} can evaluate "field op operand" for a field of the given type
+     */
+    protected static boolean isRawComparable(Type type, Field operand) {
+        return (type == Type.INT_TYPE || type == Type.LONG_TYPE || type == Type.DOUBLE_TYPE
+                || type == Type.TIMESTAMP_TYPE) && operand != null && operand.getType() == type;
+    }
+
+    /**
+     * Tests "field op operand" against a fixed-width numeric field encoded at the given offset of bytes,
+     * without creating a Field.  {@link #isRawComparable} must hold.
+     */
+    protected static boolean rawMatches(byte[] bytes, int offset, Type type, Op op, Field operand) {
+        if (type == Type.INT_TYPE) {
+            return IntField.compare(Type.readInt(bytes, offset), op, ((IntField) operand).getValue());
+        } else if (type == Type.DOUBLE_TYPE) {
+            return DoubleField.compare(Double.longBitsToDouble(Type.readLong(bytes, offset)), op,
+                    ((DoubleField) operand).getValue());
+        } else if (type == Type.LONG_TYPE) {
+            return LongField.compare(Type.readLong(bytes, offset), op, ((LongField) operand).getValue());
+        }
+        return LongField.compare(Type.readLong(bytes, offset), op, ((TimestampField) operand).getValue());
+    }
+
+    /**
+     * @return the value of one field of the tuple in the given (used) slot.
+     */
+    protected abstract Field decodeField(int slotno, int fieldno);
+
+    /**
+     * @return true if t (whose schema matches this page) can be written into the given slot
+     */
+    protected abstract boolean canInsert(int slotno, Tuple t);
+
+    /**
+     * @return a slot into which t (whose schema matches this page) can be written, or -1 if there is none
+     */
+    protected abstract int findFreeSlot(Tuple t);
+
+    /**
+     * Encodes t into the given slot, which {@link #canInsert} has approved.  Called after prepareWrite.
+     */
+    protected abstract void writeTuple(int slotno, Tuple t);
+
+    /**
+     * Marks the given (used) slot as empty.  Called after prepareWrite.
+     */
+    protected abstract void clearSlot(int slotno);
+
+    /**
+     * @return a page of the same format and schema that wraps (without copying) the given immutable bytes
+     */
+    protected abstract Page makeSnapshotPage(byte[] bytes);
+
+    @Override
+    public PageId getId() {
+        return pid;
+    }
+
+    @Override
+    public TupleDesc getTupleDesc() {
+        return td;
+    }
+
+    @Override
+    public boolean isSlotEmpty(int slotno) {
+        return !isSlotUsed(slotno);
+    }
+
+    @Override
+    public Tuple getTuple(int slotno) {
+        if (isSlotUsed(slotno)){
+            Tuple t = slotno < tuplearr.length ? tuplearr[slotno] : null;
+            if (t == null) {
+                // first request for this tuple: decode it from the page bytes
+                t = new Tuple(td);
+                decodeTuple(slotno, t);
+                t.setRecordId(new RecordId(pid, slotno));
+                cacheTuple(slotno, t);
+            }
+            return t;
+        }
+        throw new PageException("An empty slot!");
+    }
+
+    @Override
+    public void readTuple(int slotno, Tuple row) {
+        if (isSlotUsed(slotno)) {
+            Tuple t = slotno < tuplearr.length ? tuplearr[slotno] : null;
+            if (t != null) {
+                for (int i = 0; i < td.numFields(); i++) {
+                    row.setField(i, t, i);
+                }
+            } else {
+                decodeTuple(slotno, row);
+            }
+            row.setRecordId(pid, slotno);
+            return;
+        }
+        throw new PageException("An empty slot!");
+    }
+
+    @Override
+    public Field getField(int slotno, int fieldno) {
+        if (isSlotUsed(slotno)) {
+            if (slotno < tuplearr.length && tuplearr[slotno] != null) {
+                return tuplearr[slotno].getField(fieldno);
+            }
+            return decodeField(slotno, fieldno);
+        }
+        throw new PageException("An empty slot!");
+    }
+
+    @Override
+    public boolean hasRoomFor(Tuple t) {
+        return td.equals(t.getTupleDesc()) && findFreeSlot(t) >= 0;
+    }
+
+    @Override
+    public void insertTuple(int slotno, Tuple t) {
+        if (td.equals(t.getTupleDesc()) && canInsert(slotno, t)){
+            prepareWrite();
+            writeTuple(slotno, t);
+            t.setRecordId(new RecordId(pid, slotno));
+            cacheTuple(slotno, null);   // not t: the caller may go on to modify it; decode from the bytes instead
+            return;
+        }
+        throw new PageException("Unable to insert into "+slotno+"!");
+    }
+
+    @Override
+    public void insertTuple(Tuple t) throws PageException {
+        if (td.equals(t.getTupleDesc())){
+            int slotno = findFreeSlot(t);
+            if (slotno >= 0) {
+                insertTuple(slotno, t);
+                return;
+            }
+        }
+        throw new PageException("Unable to insert!");
+    }
+
+    @Override
+    public void deleteTuple(Tuple t) throws PageException {
+        RecordId rid = t.getRecordId();
+        if (rid != null && pid.equals(rid.getPageId()) && rid.tupleno() >= 0 && rid.tupleno() < getNumSlots()
+                && isSlotUsed(rid.tupleno())){
+            prepareWrite();
+            clearSlot(rid.tupleno());
+            cacheTuple(rid.tupleno(), null);
+            t.setRecordId(null);
+            return;
+        }
+        throw new PageException("Unable to delete tuple!");
+    }
+
+    private void cacheTuple(int slotno, Tuple t) {
+        if (slotno >= tuplearr.length) {
+            if (t == null) {
+                return;
+            }
+            tuplearr = Arrays.copyOf(tuplearr, Math.max(getNumSlots(), slotno + 1));
+        }
+        tuplearr[slotno] = t;
+    }
+
+    @Override
+    public Iterator<Tuple> iterator() {
+        return new TupleSlotIterator(null, null, null, null, null, null);
+    }
+
+    @Override
+    public Iterator<Tuple> iterator(int fieldno, Op op, Field operand) {
+        if (fieldno < 0 || fieldno >= td.numFields()) {
+            throw new PageException("invalid field " + fieldno);
+        }
+        return new TupleSlotIterator(new int[]{fieldno}, new Op[]{op}, new Field[]{operand}, null, null, null);
+    }
+
+    @Override
+    public Iterator<Tuple> iterator(int fieldno, Op op, Field operand, Tuple row) {
+        if (op != null && (fieldno < 0 || fieldno >= td.numFields())) {
+            throw new PageException("invalid field " + fieldno);
+        }
+        if (!td.equals(row.getTupleDesc())) {
+            throw new PageException("row does not match the schema of this page");
+        }
+        if (op == null) {
+            return new TupleSlotIterator(null, null, null, null, null, row);
+        }
+        return new TupleSlotIterator(new int[]{fieldno}, new Op[]{op}, new Field[]{operand}, null, null, row);
+    }
+
+    @Override
+    public Iterator<Tuple> iterator(int[] fieldnos, Op[] ops, Field[] operands, int[] columns, Tuple row) {
+        if (ops.length != fieldnos.length || operands.length != fieldnos.length) {
+            throw new PageException("expected one comparison and operand per field");
+        }
+        for (int fieldno : fieldnos) {
+            if (fieldno < 0 || fieldno >= td.numFields()) {
+                throw new PageException("invalid field " + fieldno);
+            }
+        }
+        if (fieldnos.length == 0) {
+            fieldnos = null;
+        }
+        TupleDesc rowTd = columns == null ? td : td.project(columns);
+        if (row != null && !rowTd.equals(row.getTupleDesc())) {
+            throw new PageException("row does not match the projected schema of this page");
+        }
+        return new TupleSlotIterator(fieldnos, ops, operands, columns, rowTd, row);
+    }
+
+    private class TupleSlotIterator implements Iterator<Tuple> {
+
+        private int currIdx = 0;   // the next slot to examine
+        private final int[] fieldnos;  // fields tested by the filter, or null if there is no filter
+        private final Op[] ops;
+        private final Field[] operands;
+        private final int[] columns;   // fields to return, or null to return whole tuples
+        private final TupleDesc rowTd; // schema of the returned tuples if columns is not null
+        private final Tuple row;   // the tuple that next overwrites and returns, or null to return new or cached tuples
+
+        TupleSlotIterator(int[] fieldnos, Op[] ops, Field[] operands, int[] columns, TupleDesc rowTd, Tuple row) {
+            this.fieldnos = fieldnos;
+            this.ops = ops;
+            this.operands = operands;
+            this.columns = columns;
+            this.rowTd = rowTd;
+            this.row = row;
+        }
+
+        private boolean matches(int slotno) {
+            for (int i = 0; i < fieldnos.length; i++) {
+                if (!fieldMatches(slotno, fieldnos[i], ops[i], operands[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            currIdx = nextUsedSlot(currIdx);
+            while (fieldnos != null && currIdx < getNumSlots() && !matches(currIdx)) {
+                currIdx = nextUsedSlot(currIdx + 1);
+            }
+            return currIdx < getNumSlots();
+        }
+
+        @Override
+        public Tuple next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slotno = currIdx++;
+            if (columns != null) {
+                Tuple t = row != null ? row : new Tuple(rowTd);
+                Tuple cached = slotno < tuplearr.length ? tuplearr[slotno] : null;
+                for (int i = 0; i < columns.length; i++) {
+                    if (cached != null) {
+                        t.setField(i, cached, columns[i]);
+                    } else {
+                        decodeFieldInto(slotno, columns[i], t, i);
+                    }
+                }
+                t.setRecordId(pid, slotno);
+                return t;
+            }
+            if (row != null) {
+                readTuple(slotno, row);
+                return row;
+            }
+            return getTuple(slotno);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("my data can't be modified!");
+        }
+    }
+
+    /**
+     * Returns the bytes of this page.  The array is shared with the page (no copy is made) and must not
+     * be modified by the caller; the page copies it before its own next modification.
+     */
+    @Override
+    public byte[] getPageData() {
+        synchronized (oldDataLock) {
+            shared = true;
+            return data;
+        }
+    }
+
+    /**
+     * Must be called before modifying data: takes the before-image snapshot if this is the first
+     * modification since the last call to setBeforeImage, and copies data if it is shared.
+     */
+    protected void prepareWrite() {
+        synchronized (oldDataLock) {
+            if (oldData == null) {
+                oldData = data;
+                shared = true;
+            }
+            if (shared) {
+                data = data.clone();
+                shared = false;
+            }
+        }
+    }
+
+    @Override
+    public Page getBeforeImage() {
+        byte[] oldDataRef;
+        synchronized (oldDataLock) {
+            if (oldData != null) {
+                oldDataRef = oldData;
+            } else {
+                oldDataRef = data;
+                shared = true;
+            }
+        }
+        return makeSnapshotPage(oldDataRef);
+    }
+
+    @Override
+    public void setBeforeImage() {
+        synchronized (oldDataLock) {
+            oldData = null;   // current bytes are the before image; snapshot is taken on next modification
+        }
+    }
+}
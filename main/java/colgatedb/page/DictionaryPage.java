@@ -0,0 +1,530 @@
+package colgatedb.page;
+
+import colgatedb.Database;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.StringField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * DictionaryPage stores tuples whose string fields are dictionary-encoded: each distinct string on the page
+ * is stored once, in a page-local dictionary, and rows hold 2-byte codes into it.  Pages of tables with
+ * low-cardinality string columns (genres, roles, ...) hold many more rows than a {@link SlottedPage}.
+ * <p>
+ * The page layout is:
+ * <pre>
+ *     [numSlots: 4][numEntries: 4][dictEnd: 4][entry 0][entry 1]...  free  ...[row N-1]...[row 1][row 0]
+ * </pre>
+ * The dictionary grows from the header towards the end of the page; entry k (the string with code k) is a
+ * 1-byte length followed by the string's bytes, and dictEnd is the position just after the last entry
+ * (or 0 if there are no entries).
+ * Rows have a fixed length and grow from the end of the page towards the dictionary, so row i is always at
+ * pageSize - (i+1) * rowLength.  A row is a 1-byte flag (1 if the slot is used) followed by its fields:
+ * a string is its 2-byte code and other types are written as on a SlottedPage.  Unused bytes are zero.
+ * <p>
+ * Entries are never removed while the page has rows that use them; entries no longer used are reclaimed
+ * (and the remaining entries renumbered) when an insert runs out of space, and the whole dictionary is
+ * dropped when the page becomes empty.
+ * <p>
+ * Predicates on string fields are evaluated once per dictionary entry rather than once per row (see
+ * {@link #iterator(int, Op, Field)}), and all rows with the same code share one StringField object, so
+ * operators that compare or hash strings benefit as well.  {@link #getCode(int, int)} exposes the codes
+ * themselves for grouping within a page.
+ */
+public class DictionaryPage extends ByteBackedPage {
+
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    private final int rowLength;
+    private final int[] fieldOffsets;   // position of each field within a row
+    private int numSlots;               // number of rows
+    private int numUsed;                // number of rows that hold a tuple
+    private int numEntries;             // number of dictionary entries
+    private int dictEnd;                // position after the last dictionary entry
+    private int[] entryOffsets;         // position of each dictionary entry
+    private StringField[] entryFields;  // decoded entries, shared by all rows with that code; null if not yet decoded
+
+    // built on first modification
+    private Map<String, Integer> codes; // string -> code
+    private int[] refCounts;            // number of rows using each code
+    private int deadBytes;              // bytes of entries no row uses
+
+    // cache for evaluating a predicate on each string field, one result per dictionary entry
+    private final Op[] matchOps;
+    private final Field[] matchOperands;
+    private final boolean[][] matches;
+
+    /**
+     * Constructs empty DictionaryPage
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     */
+    public DictionaryPage(PageId pid, TupleDesc td, int pageSize) {
+        this(pid, td, pageSize, new byte[pageSize], false);
+    }
+
+    /**
+     * Constructs DictionaryPage with its data initialized according to last parameter
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     * @param data data with which to initialize page content
+     */
+    public DictionaryPage(PageId pid, TupleDesc td, int pageSize, byte[] data) {
+        this(pid, td, pageSize, Arrays.copyOf(data, pageSize), false);
+    }
+
+    /**
+     * Constructor used by log recovery; the schema comes from the catalog.
+     */
+    public DictionaryPage(PageId pid, byte[] bytes) {
+        this(pid, Database.getCatalog().getTupleDesc(pid.getTableId()), bytes.length, bytes);
+    }
+
+    /**
+     * Wraps the given bytes (of length pageSize) without copying them.
+     * @param shared true if bytes is an immutable snapshot that must be copied before it is modified
+     */
+    private DictionaryPage(PageId pid, TupleDesc td, int pageSize, byte[] bytes, boolean shared) {
+        super(pid, td, pageSize, bytes, shared);
+        fieldOffsets = new int[td.numFields()];
+        int len = 1;
+        for (int i = 0; i < td.numFields(); i++) {
+            fieldOffsets[i] = len;
+            len += td.getFieldType(i) == Type.STRING_TYPE ? 2 : td.getFieldType(i).getLen();
+        }
+        rowLength = len;
+        matchOps = new Op[td.numFields()];
+        matchOperands = new Field[td.numFields()];
+        matches = new boolean[td.numFields()][];
+        if (pageSize < HEADER_SIZE + rowLength + 1 + Type.STRING_LEN * numStringFields()) {
+            throw new PageException("Page size " + pageSize + " too small for dictionary pages");
+        }
+        numSlots = Type.readInt(data, 0);
+        numEntries = Type.readInt(data, 4);
+        dictEnd = Type.readInt(data, 8);
+        if (dictEnd == 0) {
+            dictEnd = HEADER_SIZE;   // new page
+        }
+        entryOffsets = new int[Math.max(numEntries, 8)];
+        entryFields = new StringField[entryOffsets.length];
+        int offset = HEADER_SIZE;
+        for (int k = 0; k < numEntries; k++) {
+            entryOffsets[k] = offset;
+            offset += 1 + (data[offset] & 0xFF);
+        }
+        if (numSlots < 0 || numEntries < 0 || offset != dictEnd || getFreeBytes() < 0) {
+            throw new PageException("Corrupt dictionary page");
+        }
+        for (int i = 0; i < numSlots; i++) {
+            if (data[getRowOffset(i)] != 0) {
+                numUsed++;
+            }
+        }
+        setBeforeImage();  // used for logging, leave this line at end of constructor
+    }
+
+    private int numStringFields() {
+        int n = 0;
+        for (int i = 0; i < td.numFields(); i++) {
+            if (td.getFieldType(i) == Type.STRING_TYPE) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private int getRowOffset(int slotno) {
+        return pageSize - (slotno + 1) * rowLength;
+    }
+
+    /**
+     * @return the number of bytes between the dictionary and the rows
+     */
+    public int getFreeBytes() {
+        return pageSize - numSlots * rowLength - dictEnd;
+    }
+
+    @Override
+    public boolean isSlotUsed(int slotno) {
+        return slotno >= 0 && slotno < numSlots && data[getRowOffset(slotno)] != 0;
+    }
+
+    /**
+     * @return the number of rows on the page, used or not.  This grows as tuples are inserted.
+     */
+    @Override
+    public int getNumSlots() {
+        return numSlots;
+    }
+
+    /**
+     * @return an estimate of how many more tuples fit on this page, assuming their strings are already in
+     * the dictionary.
+     */
+    @Override
+    public int getNumEmptySlots() {
+        return numSlots - numUsed + getFreeBytes() / rowLength;
+    }
+
+    /**
+     * @return the number of entries in this page's dictionary
+     */
+    public int getDictionarySize() {
+        return numEntries;
+    }
+
+    /**
+     * @return the string with the given code
+     */
+    public StringField getDictionaryEntry(int code) {
+        StringField f = entryFields[code];
+        if (f == null) {
+            int offset = entryOffsets[code];
+            f = new StringField(new String(data, offset + 1, data[offset] & 0xFF), Type.STRING_LEN);
+            entryFields[code] = f;
+        }
+        return f;
+    }
+
+    /**
+     * Returns the dictionary code of a string field of the tuple in the given slot.  Two rows on this page
+     * have equal values in a string field if and only if they have the same code.
+     * @param slotno the slot of interest
+     * @param fieldno a field of type STRING_TYPE
+     * @throws PageException if slot is empty or the field is not a string
+     */
+    public int getCode(int slotno, int fieldno) {
+        if (!isSlotUsed(slotno) || td.getFieldType(fieldno) != Type.STRING_TYPE) {
+            throw new PageException("No code for slot " + slotno + " field " + fieldno);
+        }
+        return VarLenSlottedPageFormatter.readShort(data, getRowOffset(slotno) + fieldOffsets[fieldno]);
+    }
+
+    @Override
+    protected void decodeTuple(int slotno, Tuple t) {
+        int offset = getRowOffset(slotno);
+        for (int i = 0; i < td.numFields(); i++) {
+            Type type = td.getFieldType(i);
+            if (type == Type.STRING_TYPE) {
+                t.setField(i, decodeField(slotno, i));
+            } else {
+                type.parseInto(data, offset + fieldOffsets[i], t, i);
+            }
+        }
+    }
+
+    @Override
+    protected Field decodeField(int slotno, int fieldno) {
+        int offset = getRowOffset(slotno) + fieldOffsets[fieldno];
+        if (td.getFieldType(fieldno) == Type.STRING_TYPE) {
+            return getDictionaryEntry(VarLenSlottedPageFormatter.readShort(data, offset));
+        }
+        return td.getFieldType(fieldno).parse(data, offset);
+    }
+
+    @Override
+    protected void decodeFieldInto(int slotno, int fieldno, Tuple t, int i) {
+        Type type = td.getFieldType(fieldno);
+        if (type == Type.STRING_TYPE) {
+            t.setField(i, decodeField(slotno, fieldno));
+        } else {
+            type.parseInto(data, getRowOffset(slotno) + fieldOffsets[fieldno], t, i);
+        }
+    }
+
+    @Override
+    protected boolean fieldMatches(int slotno, int fieldno, Op op, Field operand) {
+        int offset = getRowOffset(slotno) + fieldOffsets[fieldno];
+        if (td.getFieldType(fieldno) == Type.STRING_TYPE) {
+            boolean[] fieldMatches = matches[fieldno];
+            if (op != matchOps[fieldno] || operand != matchOperands[fieldno] || fieldMatches == null
+                    || fieldMatches.length != numEntries) {
+                fieldMatches = new boolean[numEntries];
+                for (int k = 0; k < numEntries; k++) {
+                    fieldMatches[k] = getDictionaryEntry(k).compare(op, operand);
+                }
+                matches[fieldno] = fieldMatches;
+                matchOps[fieldno] = op;
+                matchOperands[fieldno] = operand;
+            }
+            return fieldMatches[VarLenSlottedPageFormatter.readShort(data, offset)];
+        }
+        if (isRawComparable(td.getFieldType(fieldno), operand)) {
+            return rawMatches(data, offset, td.getFieldType(fieldno), op, operand);
+        }
+        return super.fieldMatches(slotno, fieldno, op, operand);
+    }
+
+    /**
+     * Builds the string-to-code map and reference counts, if not already built.
+     */
+    private void prepareDictionary() {
+        if (codes != null) {
+            return;
+        }
+        codes = new HashMap<>();
+        refCounts = new int[entryOffsets.length];
+        for (int k = 0; k < numEntries; k++) {
+            codes.put(getDictionaryEntry(k).getValue(), k);
+        }
+        for (int i = 0; i < numSlots; i++) {
+            if (isSlotUsed(i)) {
+                for (int f = 0; f < td.numFields(); f++) {
+                    if (td.getFieldType(f) == Type.STRING_TYPE) {
+                        refCounts[getCode(i, f)]++;
+                    }
+                }
+            }
+        }
+        deadBytes = 0;
+        for (int k = 0; k < numEntries; k++) {
+            if (refCounts[k] == 0) {
+                deadBytes += getEntryLength(k);
+            }
+        }
+    }
+
+    private int getEntryLength(int code) {
+        return 1 + (data[entryOffsets[code]] & 0xFF);
+    }
+
+    private static String getString(Tuple t, int fieldno) {
+        String s = ((StringField) t.getField(fieldno)).getValue();
+        return s.length() > Type.STRING_LEN ? s.substring(0, Type.STRING_LEN) : s;
+    }
+
+    @Override
+    protected boolean canInsert(int slotno, Tuple t) {
+        if (slotno < 0 || isSlotUsed(slotno)) {
+            return false;
+        }
+        prepareDictionary();
+        int needed = Math.max(0, slotno + 1 - numSlots) * rowLength;
+        int reclaimable = deadBytes;
+        int newEntries = 0;
+        for (int f = 0; f < td.numFields(); f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE && !isRepeated(t, f)) {
+                Integer code = codes.get(getString(t, f));
+                if (code == null) {
+                    needed += 1 + getString(t, f).length();
+                    newEntries++;
+                } else if (refCounts[code] == 0) {
+                    reclaimable -= getEntryLength(code);   // a dead entry that will be used again
+                }
+            }
+        }
+        return needed <= getFreeBytes() + reclaimable && numEntries + newEntries <= MAX_ENTRIES;
+    }
+
+    /**
+     * @return true if string field fieldno of t has the same value as an earlier string field of t
+     */
+    private static boolean isRepeated(Tuple t, int fieldno) {
+        TupleDesc td = t.getTupleDesc();
+        for (int f = 0; f < fieldno; f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE && getString(t, f).equals(getString(t, fieldno))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected int findFreeSlot(Tuple t) {
+        int slotno = numSlots;
+        for (int i = 0; i < numSlots; i++) {
+            if (!isSlotUsed(i)) {
+                slotno = i;
+                break;
+            }
+        }
+        return canInsert(slotno, t) ? slotno : -1;
+    }
+
+    @Override
+    protected void writeTuple(int slotno, Tuple t) {
+        prepareDictionary();
+        int needed = Math.max(0, slotno + 1 - numSlots) * rowLength;
+        for (int f = 0; f < td.numFields(); f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE && !isRepeated(t, f) && !codes.containsKey(getString(t, f))) {
+                needed += 1 + getString(t, f).length();
+            }
+        }
+        if (needed > getFreeBytes()) {
+            compact(t);
+        }
+        numSlots = Math.max(numSlots, slotno + 1);   // new rows come out of the free gap, which is all zeros
+        int offset = getRowOffset(slotno);
+        for (int f = 0; f < td.numFields(); f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE) {
+                int code = getOrAddCode(getString(t, f));
+                if (refCounts[code]++ == 0) {
+                    deadBytes -= getEntryLength(code);
+                }
+                VarLenSlottedPageFormatter.writeShort(data, offset + fieldOffsets[f], code);
+            } else {
+                td.getFieldType(f).serialize(t, f, data, offset + fieldOffsets[f]);
+            }
+        }
+        data[offset] = 1;
+        numUsed++;
+        writeHeader();
+    }
+
+    private int getOrAddCode(String s) {
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        if (numEntries == entryOffsets.length) {
+            entryOffsets = Arrays.copyOf(entryOffsets, numEntries * 2);
+            entryFields = Arrays.copyOf(entryFields, numEntries * 2);
+            refCounts = Arrays.copyOf(refCounts, numEntries * 2);
+        }
+        entryOffsets[numEntries] = dictEnd;
+        data[dictEnd] = (byte) s.length();
+        for (int i = 0; i < s.length(); i++) {
+            data[dictEnd + 1 + i] = (byte) s.charAt(i);   // same as DataOutputStream.writeBytes
+        }
+        dictEnd += 1 + s.length();
+        deadBytes += 1 + s.length();   // until the caller increments its reference count
+        codes.put(s, numEntries);
+        return numEntries++;
+    }
+
+    @Override
+    protected void clearSlot(int slotno) {
+        prepareDictionary();
+        for (int f = 0; f < td.numFields(); f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE) {
+                int code = getCode(slotno, f);
+                if (--refCounts[code] == 0) {
+                    deadBytes += getEntryLength(code);
+                }
+            }
+        }
+        int offset = getRowOffset(slotno);
+        Arrays.fill(data, offset, offset + rowLength, (byte) 0);
+        numUsed--;
+        // drop empty rows from the end, and the whole dictionary once the page is empty
+        while (numSlots > 0 && data[getRowOffset(numSlots - 1)] == 0) {
+            numSlots--;
+        }
+        if (numUsed == 0) {
+            Arrays.fill(data, HEADER_SIZE, dictEnd, (byte) 0);
+            numEntries = 0;
+            dictEnd = HEADER_SIZE;
+            Arrays.fill(entryFields, null);
+            Arrays.fill(refCounts, 0);
+            codes.clear();
+            deadBytes = 0;
+            Arrays.fill(matches, null);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Rebuilds the dictionary without the entries no row uses, keeping any entries needed by the tuple about
+     * to be inserted, and renumbers the codes in the rows.
+     */
+    private void compact(Tuple keep) {
+        int[] remap = new int[numEntries];
+        int[] newOffsets = new int[entryOffsets.length];
+        StringField[] newFields = new StringField[entryOffsets.length];
+        int[] newRefCounts = new int[entryOffsets.length];
+        byte[] packed = new byte[pageSize];
+        int end = HEADER_SIZE;
+        int n = 0;
+        for (int k = 0; k < numEntries; k++) {
+            if (refCounts[k] > 0 || usesEntry(keep, k)) {
+                int len = getEntryLength(k);
+                System.arraycopy(data, entryOffsets[k], packed, end, len);
+                newOffsets[n] = end;
+                newFields[n] = entryFields[k];
+                newRefCounts[n] = refCounts[k];
+                remap[k] = n++;
+                end += len;
+            }
+        }
+        int rowsStart = pageSize - numSlots * rowLength;
+        System.arraycopy(data, rowsStart, packed, rowsStart, numSlots * rowLength);
+        data = packed;   // safe: called after prepareWrite, so data is not shared
+        for (int i = 0; i < numSlots; i++) {
+            if (isSlotUsed(i)) {
+                for (int f = 0; f < td.numFields(); f++) {
+                    if (td.getFieldType(f) == Type.STRING_TYPE) {
+                        int offset = getRowOffset(i) + fieldOffsets[f];
+                        VarLenSlottedPageFormatter.writeShort(data, offset,
+                                remap[VarLenSlottedPageFormatter.readShort(data, offset)]);
+                    }
+                }
+            }
+        }
+        numEntries = n;
+        dictEnd = end;
+        entryOffsets = newOffsets;
+        entryFields = newFields;
+        refCounts = newRefCounts;
+        codes.clear();
+        deadBytes = 0;
+        for (int k = 0; k < numEntries; k++) {
+            codes.put(getDictionaryEntry(k).getValue(), k);
+            if (refCounts[k] == 0) {
+                deadBytes += getEntryLength(k);
+            }
+        }
+        Arrays.fill(matches, null);
+        writeHeader();
+    }
+
+    private boolean usesEntry(Tuple t, int code) {
+        for (int f = 0; f < td.numFields(); f++) {
+            if (td.getFieldType(f) == Type.STRING_TYPE && getString(t, f).equals(getDictionaryEntry(code).getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeHeader() {
+        writeInt(0, numSlots);
+        writeInt(4, numEntries);
+        writeInt(8, numEntries == 0 ? 0 : dictEnd);   // an empty page is all zeros
+    }
+
+    private void writeInt(int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    @Override
+    protected Page makeSnapshotPage(byte[] bytes) {
+        return new DictionaryPage(pid, td, pageSize, bytes, true);
+    }
+}
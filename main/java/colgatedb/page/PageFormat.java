@@ -0,0 +1,73 @@
+package colgatedb.page;
+
+import colgatedb.tuple.TupleDesc;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * The on-disk layouts available for the pages of a table.  Each table uses one format for all of its pages.
+ */
+public enum PageFormat {
+
+    /**
+     * Fixed-length slots; strings are padded to {@link colgatedb.tuple.Type#STRING_LEN}.
+     * @see SlottedPage
+     */
+    SLOTTED {
+        @Override
+        public PageMaker getPageMaker(TupleDesc td, int pageSize) {
+            return new SlottedPageMaker(td, pageSize);
+        }
+    },
+
+    /**
+     * A slot directory with variable-length tuples and compact strings.
+     * @see VarLenSlottedPage
+     */
+    VARIABLE_LENGTH {
+        @Override
+        public PageMaker getPageMaker(TupleDesc td, int pageSize) {
+            return new VarLenSlottedPageMaker(td, pageSize);
+        }
+    },
+
+    /**
+     * Fixed-length slots with the values of each column stored together, for scans that test few columns.
+     * @see PaxPage
+     */
+    PAX {
+        @Override
+        public PageMaker getPageMaker(TupleDesc td, int pageSize) {
+            return new PaxPageMaker(td, pageSize);
+        }
+    },
+
+    /**
+     * Strings are replaced by codes into a page-local dictionary, for low-cardinality string columns.
+     * @see DictionaryPage
+     */
+    DICTIONARY {
+        @Override
+        public PageMaker getPageMaker(TupleDesc td, int pageSize) {
+            return new DictionaryPageMaker(td, pageSize);
+        }
+    };
+
+    /**
+     * @return a PageMaker that makes pages of this format.  The pages it makes are {@link TuplePage}s.
+     */
+    public abstract PageMaker getPageMaker(TupleDesc td, int pageSize);
+}
@@ -0,0 +1,192 @@
+package colgatedb.page;
+
+import colgatedb.Database;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+import java.util.Arrays;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * PaxPage stores fixed-length tuples like a {@link SlottedPage} and has the same number of slots, but groups
+ * the values of each column together (the PAX layout).  The page consists of the slot header of a
+ * SlottedPage followed by one "mini-page" per column:
+ * <pre>
+ *     [header: ceil(N/8) bytes][column 0: N values][column 1: N values] ... [column k-1: N values]
+ * </pre>
+ * where N is the number of slots and value i of a column belongs to the tuple in slot i.  Values are
+ * written as on a SlottedPage, and values of empty slots are all zeros.
+ * <p>
+ * A scan that tests one column touches only that column's mini-page, and full rows are rebuilt only for
+ * the slots that qualify (see {@link #iterator(int, Op, Field)}).  Comparisons on int columns are made on
+ * the raw bytes without creating Fields.
+ *
+ * @see SlottedPageFormatter
+ */
+public class PaxPage extends ByteBackedPage {
+
+    private final int slotnum;
+    private final int[] columnOffsets;   // position of each column's mini-page
+    private int emptyslot;
+
+    /**
+     * Constructs empty PaxPage
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     */
+    public PaxPage(PageId pid, TupleDesc td, int pageSize) {
+        this(pid, td, pageSize, new byte[pageSize], false);
+    }
+
+    /**
+     * Constructs PaxPage with its data initialized according to last parameter
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     * @param data data with which to initialize page content
+     */
+    public PaxPage(PageId pid, TupleDesc td, int pageSize, byte[] data) {
+        this(pid, td, pageSize, Arrays.copyOf(data, pageSize), false);
+    }
+
+    /**
+     * Constructor used by log recovery; the schema comes from the catalog.
+     */
+    public PaxPage(PageId pid, byte[] bytes) {
+        this(pid, Database.getCatalog().getTupleDesc(pid.getTableId()), bytes.length, bytes);
+    }
+
+    /**
+     * Wraps the given bytes (of length pageSize) without copying them.
+     * @param shared true if bytes is an immutable snapshot that must be copied before it is modified
+     */
+    private PaxPage(PageId pid, TupleDesc td, int pageSize, byte[] bytes, boolean shared) {
+        super(pid, td, pageSize, bytes, shared);
+        slotnum = SlottedPageFormatter.computePageCapacity(pageSize, td);
+        columnOffsets = new int[td.numFields()];
+        int offset = SlottedPageFormatter.getHeaderSize(slotnum);
+        for (int i = 0; i < td.numFields(); i++) {
+            columnOffsets[i] = offset;
+            offset += slotnum * td.getFieldType(i).getLen();
+        }
+        emptyslot = slotnum - SlottedPageFormatter.countUsedSlots(data, slotnum);
+        setBeforeImage();  // used for logging, leave this line at end of constructor
+    }
+
+    /**
+     * @return the position of the value of field fieldno for the tuple in slot slotno
+     */
+    private int getValueOffset(int slotno, int fieldno) {
+        return columnOffsets[fieldno] + slotno * td.getFieldType(fieldno).getLen();
+    }
+
+    /**
+     * @param slotno the slot number
+     * @return true if this slot is used (i.e., is occupied by a Tuple).
+     */
+    @Override
+    public boolean isSlotUsed(int slotno) {
+        if (slotno < 0 || slotno >= slotnum) {
+            throw new ArrayIndexOutOfBoundsException(slotno);
+        }
+        return SlottedPageFormatter.isSlotUsed(slotno, data);
+    }
+
+    /**
+     * @return the number of slots this page can hold.  Same as a SlottedPage with this schema.
+     */
+    @Override
+    public int getNumSlots() {
+        return slotnum;
+    }
+
+    @Override
+    public int getNumEmptySlots() {
+        return emptyslot;
+    }
+
+    @Override
+    protected void decodeTuple(int slotno, Tuple t) {
+        for (int i = 0; i < td.numFields(); i++) {
+            td.getFieldType(i).parseInto(data, getValueOffset(slotno, i), t, i);
+        }
+    }
+
+    @Override
+    protected Field decodeField(int slotno, int fieldno) {
+        return td.getFieldType(fieldno).parse(data, getValueOffset(slotno, fieldno));
+    }
+
+    @Override
+    protected void decodeFieldInto(int slotno, int fieldno, Tuple t, int i) {
+        td.getFieldType(fieldno).parseInto(data, getValueOffset(slotno, fieldno), t, i);
+    }
+
+    @Override
+    protected boolean fieldMatches(int slotno, int fieldno, Op op, Field operand) {
+        if (isRawComparable(td.getFieldType(fieldno), operand)) {
+            return rawMatches(data, getValueOffset(slotno, fieldno), td.getFieldType(fieldno), op, operand);
+        }
+        return super.fieldMatches(slotno, fieldno, op, operand);
+    }
+
+    @Override
+    protected boolean canInsert(int slotno, Tuple t) {
+        return isSlotEmpty(slotno);
+    }
+
+    @Override
+    protected int findFreeSlot(Tuple t) {
+        if (emptyslot == 0) {
+            return -1;
+        }
+        for (int i = 0; i < slotnum; i++) {
+            if (isSlotEmpty(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected void writeTuple(int slotno, Tuple t) {
+        for (int i = 0; i < td.numFields(); i++) {
+            td.getFieldType(i).serialize(t, i, data, getValueOffset(slotno, i));
+        }
+        SlottedPageFormatter.markSlot(slotno, data, true);
+        emptyslot--;
+    }
+
+    @Override
+    protected void clearSlot(int slotno) {
+        for (int i = 0; i < td.numFields(); i++) {
+            int offset = getValueOffset(slotno, i);
+            Arrays.fill(data, offset, offset + td.getFieldType(i).getLen(), (byte) 0);
+        }
+        SlottedPageFormatter.markSlot(slotno, data, false);
+        emptyslot++;
+    }
+
+    @Override
+    protected Page makeSnapshotPage(byte[] bytes) {
+        return new PaxPage(pid, td, pageSize, bytes, true);
+    }
+}
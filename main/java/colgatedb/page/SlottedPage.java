@@ -1,14 +1,13 @@
 package colgatedb.page;
 
 import colgatedb.Database;
-import colgatedb.tuple.RecordId;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
 
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * ColgateDB
@@ -29,18 +28,23 @@ import java.util.NoSuchElementException;
  * SlottedPage stores a collection of fixed-length tuples, all having the same schema.
  * Upon insertion, a tuple is assigned to a slot.  The number of slots available depends on
  * the size of the page and the schema of the tuples.
+ * <p>
+ * A SlottedPage is backed by the raw bytes of the page (see {@link SlottedPageFormatter} for the format).
+ * Reading a page is just a copy of those bytes: tuples are decoded lazily, the first time they are
+ * requested, and individual fields can be decoded without materializing the whole tuple
+ * (see {@link #getField(int, int)}).  The bytes are kept current as tuples are inserted and deleted
+ * (only the affected slot and header bit are rewritten), so {@link #getPageData()} never re-encodes.
+ * Slot occupancy is also kept as a bitmap of 64-bit words, so that finding a free slot or the next used
+ * slot examines 64 slots at a time.
+ * Page bytes are copy-on-write; see {@link ByteBackedPage}.
+ *
+ * @see VarLenSlottedPage
  */
-public class SlottedPage implements Page {
+public class SlottedPage extends ByteBackedPage {
 
-    private final PageId pid;
-    private final TupleDesc td;
-    private final int pageSize;
-    private Tuple[] tuplearr;
-    private int slotnum;
+    private final int slotnum;
     private int emptyslot;// added after feedback
-    private final Byte oldDataLock = (byte) 0;
-    byte[] oldData;
-    // ------------------------------------------------
+    private long[] usedBits;   // slot occupancy, 64 slots per word; mirrors the header of data
 
     /**
      * Constructs empty SlottedPage
@@ -49,13 +53,7 @@ public class SlottedPage implements Page {
      * @param pageSize the size of this page
      */
     public SlottedPage(PageId pid, TupleDesc td, int pageSize) {
-        this.pid = pid;
-        this.td = td;
-        this.pageSize = pageSize;
-        slotnum = (int)Math.floor((pageSize * 8.0)/(td.getSize()*8+1));
-        emptyslot = slotnum;
-        tuplearr = new Tuple[slotnum];
-        setBeforeImage();  // used for logging, leave this line at end of constructor
+        this(pid, td, pageSize, new byte[pageSize], false);
     }
 
     /**
@@ -66,9 +64,7 @@ public class SlottedPage implements Page {
      * @param data data with which to initialize page content
      */
     public SlottedPage(PageId pid, TupleDesc td, int pageSize, byte[] data) {
-        this(pid, td, pageSize);
-        setPageData(data);
-        setBeforeImage();  // used for logging, leave this line at end of constructor
+        this(pid, td, pageSize, Arrays.copyOf(data, pageSize), false);
     }
 
     /**
@@ -78,36 +74,39 @@ public class SlottedPage implements Page {
         this(pid, Database.getCatalog().getTupleDesc(pid.getTableId()), bytes.length, bytes);
     }
 
-    @Override
-    public PageId getId() {
-        return pid;
-    }
-
     /**
-     * @param slotno the slot number
-     * @return true if this slot is used (i.e., is occupied by a Tuple).
+     * Wraps the given bytes (of length pageSize) without copying them.
+     * @param shared true if bytes is an immutable snapshot that must be copied before it is modified
      */
-    public boolean isSlotUsed(int slotno) {
-        if (tuplearr[slotno] == null){
-                return false;
+    private SlottedPage(PageId pid, TupleDesc td, int pageSize, byte[] bytes, boolean shared) {
+        super(pid, td, pageSize, bytes, shared);
+        slotnum = SlottedPageFormatter.computePageCapacity(pageSize, td);
+        usedBits = SlottedPageFormatter.readBitmap(data, slotnum);
+        int used = 0;
+        for (long word : usedBits) {
+            used += Long.bitCount(word);
         }
-        return true;
+        emptyslot = slotnum - used;
+        setBeforeImage();  // used for logging, leave this line at end of constructor
     }
 
-
     /**
-     *
      * @param slotno the slot number
-     * @return true if this slot is empty (i.e., is not occupied by a Tuple).
+     * @return true if this slot is used (i.e., is occupied by a Tuple).
      */
-    public boolean isSlotEmpty(int slotno) {
-        return !isSlotUsed(slotno);
+    @Override
+    public boolean isSlotUsed(int slotno) {
+        if (slotno < 0 || slotno >= slotnum) {
+            throw new ArrayIndexOutOfBoundsException(slotno);
+        }
+        return (usedBits[slotno >>> 6] & (1L << slotno)) != 0;
     }
 
     /**
      * @return the number of slots this page can hold.  Determined by
      * the page size and the schema (TupleDesc).
      */
+    @Override
     public int getNumSlots() {
         return slotnum;
     }
@@ -115,6 +114,7 @@ public class SlottedPage implements Page {
     /**
      * @return the number of slots on this page that are empty.
      */
+    @Override
     public int getNumEmptySlots() {
         //  version before submission: for loop check if empty
         // for Efficiency: maintain a counter variable rather than loop.
@@ -122,176 +122,88 @@ public class SlottedPage implements Page {
     }
 
     /**
-     * @param slotno the slot of interest
-     * @return returns the Tuple at given slot
-     * @throws PageException if slot is empty
-     */
-    public Tuple getTuple(int slotno) {
-        if (isSlotUsed(slotno)){
-            return tuplearr[slotno];
-        }
-        throw new PageException("An empty slot!");
-    }
-
-    /**
-     * Adds the specified tuple to specific slot in page.
-     * <p>
-     * The tuple should be updated to reflect that it is now stored on this page
-     * (hint: set its RecordId).
-     *
-     * @param slotno the slot into which this tuple should be inserted
-     * @param t The tuple to add.
-     * @throws PageException if the slot is full or TupleDesc of
-     *                          passed tuple is a mismatch with TupleDesc of this page.
+     * Finds the next used slot a word of the bitmap at a time.
      */
-    public void insertTuple(int slotno, Tuple t) {
-        if (td.equals(t.getTupleDesc()) && isSlotEmpty(slotno)){
-            RecordId newid = new RecordId(pid,slotno);
-            t.setRecordId(newid);
-            tuplearr[slotno] = t;
-            emptyslot--;
-            return;
+    @Override
+    protected int nextUsedSlot(int slotno) {
+        if (slotno >= slotnum) {
+            return slotnum;
         }
-        throw new PageException("Unable to insert into "+slotno+"!");
-    }
-
-    /**
-     * Adds the specified tuple to the page into an available slot.
-     * <p>
-     * The tuple should be updated to reflect that it is now stored on this page
-     * (hint: set its RecordId).
-     *
-     * @param t The tuple to add.
-     * @throws PageException if the page is full (no empty slots) or TupleDesc of
-     *                          passed tuple is a mismatch with TupleDesc of this page.
-     */
-    public void insertTuple(Tuple t) throws PageException {
-        if (td.equals(t.getTupleDesc())){
-            for (int i = 0; i < tuplearr.length; i++){
-                if (isSlotEmpty(i)){
-                    insertTuple(i,t);
-                    return;
-                }
+        int w = slotno >>> 6;
+        long word = usedBits[w] & (-1L << slotno);   // ignore slots before slotno
+        while (word == 0) {
+            if (++w == usedBits.length) {
+                return slotnum;
             }
+            word = usedBits[w];
         }
-        throw new PageException("Unable to insert!");
+        return (w << 6) + Long.numberOfTrailingZeros(word);
     }
 
-    /**
-     * Delete the specified tuple from the page; the tuple should be updated to reflect
-     * that it is no longer stored on any page.
-     *
-     * @param t The tuple to delete
-     * @throws PageException if this tuple doesn't have a record id, is not on this page, or tuple
-     *                          slot is already empty.
-     */
-    public void deleteTuple(Tuple t) throws PageException {
-        // Feedback: Just set the tuple's RecordId to be null, don't make a new RecordId object.
-        RecordId tid = t.getRecordId();
-        if (tid != null && tid.getPageId() == pid && isSlotUsed(tid.tupleno())){
-            tuplearr[tid.tupleno()] = null;
-            emptyslot++;
-            // version before submission: RecordId newid = new RecordId(null,0);
-            // after feedback
-            t.setRecordId(null);
-            return;
-        }
-        throw new PageException("Unable to delete tuple!");
+    @Override
+    protected void decodeTuple(int slotno, Tuple t) {
+        SlottedPageFormatter.decodeInto(data, slotno, slotnum, t);
     }
 
-
-    /**
-     * Creates an iterator over the (non-empty) slots of the page.
-     *
-     * @return an iterator over all tuples on this page
-     * (Note: calling remove on this iterator throws an UnsupportedOperationException)
-     */
-    public Iterator<Tuple> iterator() {
-        return new MyIterator();
+    @Override
+    protected Field decodeField(int slotno, int fieldno) {
+        return SlottedPageFormatter.decodeField(data, slotno, fieldno, slotnum, td);
     }
 
-    class MyIterator implements Iterator<Tuple> {
-
-        private int currIdx;
+    @Override
+    protected void decodeFieldInto(int slotno, int fieldno, Tuple t, int i) {
+        td.getFieldType(fieldno).parseInto(data, SlottedPageFormatter.getFieldOffset(slotno, fieldno, slotnum, td), t, i);
+    }
 
-        public MyIterator() {
-            currIdx = 0;
+    @Override
+    protected boolean fieldMatches(int slotno, int fieldno, Op op, Field operand) {
+        if (isRawComparable(td.getFieldType(fieldno), operand)) {
+            return rawMatches(data, SlottedPageFormatter.getFieldOffset(slotno, fieldno, slotnum, td),
+                    td.getFieldType(fieldno), op, operand);
         }
+        return super.fieldMatches(slotno, fieldno, op, operand);
+    }
 
-        @Override
-        public boolean hasNext() {
-            // feedback: sometimes returns true when answer is false (e.g., an empty page).
-            // Should call findNextIdx in this
-            // version before submisson:
-            /*int i = findNextIdx(currIdx);
-            return i < tuplearr.length && i >= 0;*/
-            if (findNextIdx(currIdx) < tuplearr.length){
-                return true;
-            }
-            return false;
-        }
+    @Override
+    protected boolean canInsert(int slotno, Tuple t) {
+        return isSlotEmpty(slotno);
+    }
 
-        public int findNextIdx(int idx){
-            //find the next idx which the slot is not empty
-            while (idx < tuplearr.length && isSlotEmpty(idx)) {
-                idx++;
-            }
-            return idx;
+    @Override
+    protected int findFreeSlot(Tuple t) {
+        if (emptyslot == 0) {
+            return -1;
         }
-        @Override
-        public Tuple next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException();
+        // search a word of the bitmap at a time; bits past the last slot are never free
+        for (int w = 0; w < usedBits.length; w++) {
+            long free = ~usedBits[w];
+            if (free != 0) {
+                int slotno = (w << 6) + Long.numberOfTrailingZeros(free);
+                return slotno < slotnum ? slotno : -1;
             }
-            Tuple result;
-            if (isSlotUsed(currIdx)) {
-                result = tuplearr[currIdx];
-                currIdx = findNextIdx(currIdx+1);
-            }
-            else{// empty slot, find and return the next nonempty Tuple A, change currIdx to be the index of the next
-                // nonempty Tuple after A
-                int i = findNextIdx(currIdx+1);
-                result = tuplearr[i];
-                currIdx = findNextIdx(i+1);
-            }
-            return result;
-        }
-
-        @Override
-        public void remove() {
-            // it's not uncommon for a class to implement the Iterator interface
-            // yet not support remove.
-            throw new UnsupportedOperationException("my data can't be modified!");
         }
+        return -1;
     }
 
     @Override
-    public byte[] getPageData() {
-         return SlottedPageFormatter.pageToBytes(this,td,pageSize);
-    }
-
-    /**
-     * Fill the contents of this according to the data stored in byte array.
-     * @param data
-     */
-    private void setPageData(byte[] data) {
-         SlottedPageFormatter.bytesToPage(data,this,td);
+    protected void writeTuple(int slotno, Tuple t) {
+        SlottedPageFormatter.encodeTuple(t, data, slotno, slotnum, td);
+        SlottedPageFormatter.markSlot(slotno, data, true);
+        usedBits[slotno >>> 6] |= 1L << slotno;
+        emptyslot--;
     }
 
     @Override
-    public Page getBeforeImage() {
-        byte[] oldDataRef;
-        synchronized (oldDataLock) {
-            oldDataRef = Arrays.copyOf(oldData, oldData.length);
-        }
-        return new SlottedPage(pid, td, pageSize, oldDataRef);
+    protected void clearSlot(int slotno) {
+        SlottedPageFormatter.clearSlot(data, slotno, slotnum, td);
+        SlottedPageFormatter.markSlot(slotno, data, false);
+        usedBits[slotno >>> 6] &= ~(1L << slotno);
+        emptyslot++;
     }
 
     @Override
-    public void setBeforeImage() {
-        synchronized (oldDataLock) {
-            oldData = getPageData().clone();
-        }
+    protected Page makeSnapshotPage(byte[] bytes) {
+        return new SlottedPage(pid, td, pageSize, bytes, true);
     }
 
 }
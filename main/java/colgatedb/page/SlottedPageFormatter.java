@@ -7,8 +7,7 @@ import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
 import colgatedb.tuple.Type;
 
-import java.io.*;
-import java.util.Iterator;
+import java.util.Arrays;
 
 /**
  * ColgateDB
@@ -68,7 +67,7 @@ public class SlottedPageFormatter {
      * @return number of tuples that this page can hold
      */
     public static int computePageCapacity(int pageSize, TupleDesc td) {
-        return (int)Math.floor((pageSize * 8.0)/(td.getSize()*8+1));
+        return (pageSize * 8) / (td.getSize() * 8 + 1);
     }
 
     /**
@@ -79,7 +78,7 @@ public class SlottedPageFormatter {
      * @return the size of the header in bytes.
      */
     public static int getHeaderSize(int numSlots) {
-        return (int)Math.ceil(numSlots/8.0);
+        return (numSlots + 7) >>> 3;
     }
 
     /**
@@ -90,45 +89,44 @@ public class SlottedPageFormatter {
      * @return
      */
     public static byte[] pageToBytes(SlottedPage page, TupleDesc td, int pageSize) {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream(pageSize);
-            DataOutputStream dos = new DataOutputStream(baos);
-            // write out the page data to the DataOutputStream dos, starting with the header then the tuples
-            // see the Javadocs for DataOutputStream for handy methods
-            // to write out the data of a Field use the Field.serialize method
-            // also, you may find it the markSlot method very useful here
-            int numslot = computePageCapacity(pageSize,td);
-            int headerside = getHeaderSize(numslot);
-            byte[] arr = new byte[headerside];
-            //mark header bitmap
-            for (int i = 0; i < numslot; i++) {
-                markSlot(i, arr, page.isSlotUsed(i));
+        byte[] bytes = new byte[pageSize];   // empty slots and excess bytes stay zeroed out
+        int numslot = computePageCapacity(pageSize,td);
+        long[] used = new long[(numslot + 63) >>> 6];
+        for (int i = 0; i < numslot; i++) {
+            if (page.isSlotUsed(i)) {
+                used[i >>> 6] |= 1L << i;
+                encodeTuple(page.getTuple(i), bytes, i, numslot, td);
             }
-            dos.write(arr);
-            //payload
-            for (int j = 0; j < numslot; j++) {
-                if (page.isSlotUsed(j)) {
-                    Tuple atuple = page.getTuple(j);
-                    Iterator<Field> it = atuple.fields();
-                    while (it.hasNext()) {
-                        it.next().serialize(dos);
-                    }
-                }
-                else{//write zero for empty slots
-                    dos.write(new byte[td.getSize()]);
-                }
-            }
-            //zero out
-            int free = pageSize-getHeaderSize(numslot)-numslot*td.getSize();
-            for (int m = 0; m < free; m++){
-                dos.writeByte(0);
-            }
-            return baos.toByteArray();
-        } catch (Exception e) {
-            throw new PageException(e);
+        }
+        writeBitmap(used, bytes, numslot);
+        return bytes;
+    }
+
+    /**
+     * Writes the given tuple into the payload of the given slot.  The header is not modified.
+     * @param t the tuple to write
+     * @param bytes bytes representing page data
+     * @param slot the slot to write to
+     * @param numSlots the number of slots on the page
+     * @param td the TupleDesc of tuples on this page
+     */
+    public static void encodeTuple(Tuple t, byte[] bytes, int slot, int numSlots, TupleDesc td) {
+        int offset = getSlotOffset(slot, numSlots, td);
+        for (int j = 0; j < td.numFields(); j++) {
+            Type type = td.getFieldType(j);
+            type.serialize(t, j, bytes, offset);
+            offset += type.getLen();
         }
     }
 
+    /**
+     * Zeroes out the payload of the given slot.  The header is not modified.
+     */
+    public static void clearSlot(byte[] bytes, int slot, int numSlots, TupleDesc td) {
+        int offset = getSlotOffset(slot, numSlots, td);
+        Arrays.fill(bytes, offset, offset + td.getSize(), (byte) 0);
+    }
+
     /**
      * Populate the empty page with data that is read from the given bytes.  See the javadoc at the top of file
      * for byte format description.
@@ -137,38 +135,111 @@ public class SlottedPageFormatter {
      * @param td the TupleDesc of tuples on this page
      */
     public static void bytesToPage(byte[] bytes, SlottedPage emptyPage, TupleDesc td) {
-
-        try {
-            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
-            // read in the data DataInputStream dis, first the header then the bytes of each tuple
-            // see the Javadocs for DataInputStream for handy methods
-            // to read the data associated with a Field in a tuple, use the Type.parse method
-            // also, you may find it the isSlotUsed method very useful here
-            int numslot = emptyPage.getNumSlots();
-            int headersize = getHeaderSize(numslot);
-            //header
-            dis.skipBytes(headersize);
-            //payload, insert tuples into the page
-            for (int i = 0; i < numslot; i++){
-                if (isSlotUsed(i,bytes)){
-                    Tuple temp = new Tuple(td);
-                    for (int j = 0; j < td.numFields();j++){
-                        Type atype = td.getFieldType(j);
-                        Field field = ((Type) atype).parse(dis);
-                        temp.setField(j,field);
-                    }
-                    emptyPage.insertTuple(i,temp);
-                }
-                else{//skip empty slots
-                    dis.skipBytes(td.getSize());
-                }
+        int numslot = emptyPage.getNumSlots();
+        long[] used = readBitmap(bytes, numslot);
+        for (int w = 0; w < used.length; w++) {
+            for (long word = used[w]; word != 0; word &= word - 1) {   // visit each set bit
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                emptyPage.insertTuple(i, decodeTuple(bytes, i, numslot, td));
             }
-            dis.close();
-        } catch (IOException e) {
-            throw new PageException(e);
         }
     }
 
+    /**
+     * Decodes the tuple stored in the given slot directly from the page bytes.  The caller is responsible
+     * for checking that the slot is used.
+     * @param bytes bytes representing page data
+     * @param slot the slot to decode
+     * @param numSlots the number of slots on the page
+     * @param td the TupleDesc of tuples on this page
+     * @return a new Tuple holding the slot's data (its RecordId is not set)
+     */
+    public static Tuple decodeTuple(byte[] bytes, int slot, int numSlots, TupleDesc td) {
+        Tuple t = new Tuple(td);
+        decodeInto(bytes, slot, numSlots, t);
+        return t;
+    }
+
+    /**
+     * Like {@link #decodeTuple(byte[], int, int, TupleDesc)}, but overwrites the fields of an existing tuple
+     * (whose schema is that of the page) instead of creating one.  Its RecordId is not modified.
+     */
+    public static void decodeInto(byte[] bytes, int slot, int numSlots, Tuple t) {
+        TupleDesc td = t.getTupleDesc();
+        int offset = getSlotOffset(slot, numSlots, td);
+        for (int j = 0; j < td.numFields(); j++) {
+            Type type = td.getFieldType(j);
+            type.parseInto(bytes, offset, t, j);
+            offset += type.getLen();
+        }
+    }
+
+    /**
+     * Decodes a single field of the tuple stored in the given slot, without decoding the rest of the tuple.
+     * @param bytes bytes representing page data
+     * @param slot the slot of interest
+     * @param fieldno the index of the field within the tuple
+     * @param numSlots the number of slots on the page
+     * @param td the TupleDesc of tuples on this page
+     * @return the value of the field
+     */
+    public static Field decodeField(byte[] bytes, int slot, int fieldno, int numSlots, TupleDesc td) {
+        return td.getFieldType(fieldno).parse(bytes, getFieldOffset(slot, fieldno, numSlots, td));
+    }
+
+    /**
+     * @return the byte offset of the given field of the given slot within the page
+     */
+    static int getFieldOffset(int slot, int fieldno, int numSlots, TupleDesc td) {
+        return getSlotOffset(slot, numSlots, td) + td.getFieldOffset(fieldno);
+    }
+
+    /**
+     * @return the byte offset of the given slot's payload within the page
+     */
+    static int getSlotOffset(int slot, int numSlots, TupleDesc td) {
+        return getHeaderSize(numSlots) + slot * td.getSize();
+    }
+
+    /**
+     * @return the number of used slots according to the header of the page bytes.
+     */
+    static int countUsedSlots(byte[] header, int numSlots) {
+        int count = 0;
+        for (long word : readBitmap(header, numSlots)) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the header into a bitmap of 64-bit words: slot i is bit (i % 64) of word (i / 64), the same bit
+     * order as the header bytes.
+     * @param header a byte header, formatted as described in the javadoc at the top.
+     * @param numSlots the number of slots on the page
+     * @return the bitmap; bits beyond numSlots are zero
+     */
+    static long[] readBitmap(byte[] header, int numSlots) {
+        long[] words = new long[(numSlots + 63) >>> 6];
+        int headerSize = getHeaderSize(numSlots);
+        for (int b = 0; b < headerSize; b++) {
+            words[b >>> 3] |= (header[b] & 0xFFL) << ((b & 7) << 3);
+        }
+        return words;
+    }
+
+    /**
+     * Writes a bitmap produced by {@link #readBitmap} back into the header.
+     * @param words the bitmap
+     * @param header a byte header, formatted as described in the javadoc at the top.
+     * @param numSlots the number of slots on the page
+     */
+    static void writeBitmap(long[] words, byte[] header, int numSlots) {
+        int headerSize = getHeaderSize(numSlots);
+        for (int b = 0; b < headerSize; b++) {
+            header[b] = (byte) (words[b >>> 3] >>> ((b & 7) << 3));
+        }
+    }
 
     /**
      * Checks whether a slot in the header is used or not.  Optional helper method.
@@ -176,15 +247,9 @@ public class SlottedPageFormatter {
      * @param header a byte header, formatted as described in the javadoc at the top.
      * @return
      */
-    private static boolean isSlotUsed(int i, byte[] header) {
-        if (i>= 0 && i < 8*header.length) {
-            int bytenum = header[(int)Math.floor(i/8.0)];
-            int idx = i%8;
-            int check = (int)Math.pow(2,idx);
-            if ((bytenum & check) == check){
-                return true;
-            }
-            return false;
+    static boolean isSlotUsed(int i, byte[] header) {
+        if (i >= 0 && i < 8*header.length) {
+            return (header[i >>> 3] & (1 << (i & 7))) != 0;
         }
         return false;
     }
@@ -195,19 +260,12 @@ public class SlottedPageFormatter {
      * @param header a byte header, formatted as described in the javadoc at the top.
      * @param isUsed if true, slot should be set to 1; if false, set to 0
      */
-    private static void markSlot(int i, byte[] header, boolean isUsed) {
-        if (i>= 0 && i < header.length*8) {
-            int byteidx = (int)Math.floor(i / 8.0);
-            int bytenum = header[byteidx];
-            int idx = i % 8;
-            if (isUsed && !(isSlotUsed(i,header))) {
-                //mark empty slot to 1
-                int result = bytenum^((int)Math.pow(2,idx));
-                header[byteidx]= (byte)result;
-            } else if(!(isUsed) && (isSlotUsed(i,header))){
-                //mark used slot to 0
-                int result = bytenum|((int)Math.pow(2,idx));
-                header[byteidx]= (byte)result;
+    static void markSlot(int i, byte[] header, boolean isUsed) {
+        if (i >= 0 && i < header.length*8) {
+            if (isUsed) {
+                header[i >>> 3] |= (byte) (1 << (i & 7));
+            } else {
+                header[i >>> 3] &= (byte) ~(1 << (i & 7));
             }
         }
     }
@@ -0,0 +1,169 @@
+package colgatedb.page;
+
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+
+import java.util.Iterator;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * TuplePage is the interface for pages that hold tuples of a single schema, each in a numbered slot.
+ * A tuple's slot number is part of its {@link colgatedb.tuple.RecordId} and does not change while the
+ * tuple is on the page.  How slots are laid out in bytes depends on the implementation.
+ *
+ * @see SlottedPage
+ * @see VarLenSlottedPage
+ */
+public interface TuplePage extends Page {
+
+    /**
+     * @return the schema of the tuples held on this page
+     */
+    TupleDesc getTupleDesc();
+
+    /**
+     * @return the number of slots on this page.  Valid slot numbers are 0..getNumSlots()-1.
+     */
+    int getNumSlots();
+
+    /**
+     * @return the number of further tuples this page can accept.  For pages with variable-length
+     * tuples this is an estimate.
+     */
+    int getNumEmptySlots();
+
+    /**
+     * @param slotno the slot number
+     * @return true if this slot is used (i.e., is occupied by a Tuple).
+     */
+    boolean isSlotUsed(int slotno);
+
+    /**
+     * @param slotno the slot number
+     * @return true if this slot is empty (i.e., is not occupied by a Tuple).
+     */
+    boolean isSlotEmpty(int slotno);
+
+    /**
+     * @param slotno the slot of interest
+     * @return returns the Tuple at given slot
+     * @throws PageException if slot is empty
+     */
+    Tuple getTuple(int slotno);
+
+    /**
+     * Copies the tuple at the given slot into row, overwriting its fields and RecordId.  Unlike
+     * {@link #getTuple(int)}, no Tuple is created or cached.
+     * @param slotno the slot of interest
+     * @param row a tuple with the same schema as this page
+     * @throws PageException if slot is empty
+     */
+    void readTuple(int slotno, Tuple row);
+
+    /**
+     * Reads a single field of the tuple at the given slot, without materializing the tuple if possible.
+     * @param slotno the slot of interest
+     * @param fieldno the index of the field within the tuple
+     * @return the value of the field
+     * @throws PageException if slot is empty
+     */
+    Field getField(int slotno, int fieldno);
+
+    /**
+     * @param t a tuple
+     * @return true if t can be inserted into this page by {@link #insertTuple(Tuple)}
+     */
+    boolean hasRoomFor(Tuple t);
+
+    /**
+     * Adds the specified tuple to specific slot in page and sets its RecordId.
+     *
+     * @param slotno the slot into which this tuple should be inserted
+     * @param t The tuple to add.
+     * @throws PageException if the slot is full, the page lacks space or TupleDesc of
+     *                          passed tuple is a mismatch with TupleDesc of this page.
+     */
+    void insertTuple(int slotno, Tuple t);
+
+    /**
+     * Adds the specified tuple to the page into an available slot and sets its RecordId.
+     *
+     * @param t The tuple to add.
+     * @throws PageException if the page is full or TupleDesc of
+     *                          passed tuple is a mismatch with TupleDesc of this page.
+     */
+    void insertTuple(Tuple t);
+
+    /**
+     * Delete the specified tuple from the page; the tuple's RecordId is set to null.
+     *
+     * @param t The tuple to delete
+     * @throws PageException if this tuple doesn't have a record id, is not on this page, or tuple
+     *                          slot is already empty.
+     */
+    void deleteTuple(Tuple t);
+
+    /**
+     * @return an iterator over all tuples on this page, in slot order
+     * (Note: calling remove on this iterator throws an UnsupportedOperationException)
+     */
+    Iterator<Tuple> iterator();
+
+    /**
+     * Returns an iterator over the tuples on this page whose field fieldno satisfies "field op operand".
+     * The condition is evaluated on the field alone, so tuples that do not qualify are never materialized.
+     *
+     * @param fieldno the field to test
+     * @param op the comparison
+     * @param operand the value to compare against
+     * @return an iterator over the qualifying tuples on this page, in slot order
+     * (Note: calling remove on this iterator throws an UnsupportedOperationException)
+     */
+    Iterator<Tuple> iterator(int fieldno, Op op, Field operand);
+
+    /**
+     * Like {@link #iterator(int, Op, Field)}, but each call to next copies the tuple into row (see
+     * {@link #readTuple(int, Tuple)}) and returns row, which is only valid until the following call.
+     * If op is null, every tuple on this page is returned.
+     *
+     * @param fieldno the field to test
+     * @param op the comparison, or null
+     * @param operand the value to compare against
+     * @param row a tuple with the same schema as this page
+     * @return an iterator that returns row for each qualifying tuple on this page, in slot order
+     */
+    Iterator<Tuple> iterator(int fieldno, Op op, Field operand, Tuple row);
+
+    /**
+     * Returns an iterator over the tuples on this page that satisfy every condition
+     * "field fieldnos[i] ops[i] operands[i]", projected onto the given columns.  Conditions are evaluated
+     * on the fields alone, and of a qualifying tuple only the projected fields are decoded.  Each returned
+     * tuple has the schema {@code getTupleDesc().project(columns)} and the RecordId of the tuple it came from.
+     *
+     * @param fieldnos the fields to test
+     * @param ops the comparisons, one per field tested
+     * @param operands the values to compare against, one per field tested
+     * @param columns the fields to return, in order, or null for all fields
+     * @param row a tuple with the projected schema that each call to next overwrites and returns, or null
+     *            to return a new tuple each time
+     * @return an iterator over the qualifying tuples on this page, in slot order
+     * @throws PageException if a field number is invalid or row does not have the projected schema
+     */
+    Iterator<Tuple> iterator(int[] fieldnos, Op[] ops, Field[] operands, int[] columns, Tuple row);
+}
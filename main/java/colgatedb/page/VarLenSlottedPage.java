@@ -0,0 +1,246 @@
+package colgatedb.page;
+
+import colgatedb.Database;
+import colgatedb.tuple.Field;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+
+import java.util.Arrays;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * VarLenSlottedPage stores a collection of variable-length tuples, all having the same schema.
+ * Strings take only as many bytes as they have characters (plus a 2-byte length), so a page holds many
+ * more rows than a {@link SlottedPage} when strings are short.
+ * <p>
+ * The page has a slot directory of (offset, length) entries that grows from the front of the page while
+ * tuples are allocated from the end (see {@link VarLenSlottedPageFormatter} for the format).  A tuple keeps
+ * its slot, and so its RecordId, for as long as it is on the page; when a deletion leaves holes, the page
+ * is compacted in place the next time an insert needs contiguous space.  Empty slots at the end of the
+ * directory are dropped, so the number of slots varies as tuples come and go.
+ * <p>
+ * Like SlottedPage, tuples are decoded lazily from the page bytes and the bytes are copy-on-write
+ * (see {@link ByteBackedPage}).
+ *
+ * @see VarLenSlottedPageFormatter
+ */
+public class VarLenSlottedPage extends ByteBackedPage {
+
+    private int numSlots;       // number of directory entries
+    private int numUsed;        // number of directory entries that hold a tuple
+    private int usedBytes;      // total length of the tuples on the page
+    private int freeEnd;        // lowest tuple offset (or pageSize): tuples may be allocated below this
+
+    /**
+     * Constructs empty VarLenSlottedPage
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     */
+    public VarLenSlottedPage(PageId pid, TupleDesc td, int pageSize) {
+        this(pid, td, pageSize, new byte[pageSize], false);
+    }
+
+    /**
+     * Constructs VarLenSlottedPage with its data initialized according to last parameter
+     * @param pid  page id to assign to this page
+     * @param td   the schema for tuples held on this page
+     * @param pageSize the size of this page
+     * @param data data with which to initialize page content
+     */
+    public VarLenSlottedPage(PageId pid, TupleDesc td, int pageSize, byte[] data) {
+        this(pid, td, pageSize, Arrays.copyOf(data, pageSize), false);
+    }
+
+    /**
+     * Constructor used by log recovery; the schema comes from the catalog.
+     */
+    public VarLenSlottedPage(PageId pid, byte[] bytes) {
+        this(pid, Database.getCatalog().getTupleDesc(pid.getTableId()), bytes.length, bytes);
+    }
+
+    /**
+     * Wraps the given bytes (of length pageSize) without copying them.
+     * @param shared true if bytes is an immutable snapshot that must be copied before it is modified
+     */
+    private VarLenSlottedPage(PageId pid, TupleDesc td, int pageSize, byte[] bytes, boolean shared) {
+        super(pid, td, pageSize, bytes, shared);
+        if (pageSize > VarLenSlottedPageFormatter.MAX_PAGE_SIZE ||
+                pageSize < VarLenSlottedPageFormatter.getDirectoryEnd(1) + VarLenSlottedPageFormatter.getMinTupleLength(td)) {
+            throw new PageException("Unsupported page size for variable-length pages: " + pageSize);
+        }
+        numSlots = VarLenSlottedPageFormatter.getNumSlots(data);
+        if (VarLenSlottedPageFormatter.getDirectoryEnd(numSlots) > pageSize) {
+            throw new PageException("Corrupt page: directory of " + numSlots + " slots does not fit");
+        }
+        freeEnd = pageSize;
+        for (int i = 0; i < numSlots; i++) {
+            int offset = VarLenSlottedPageFormatter.getTupleOffset(data, i);
+            if (offset != 0) {
+                numUsed++;
+                usedBytes += VarLenSlottedPageFormatter.getTupleLength(data, i);
+                freeEnd = Math.min(freeEnd, offset);
+            }
+        }
+        setBeforeImage();  // used for logging, leave this line at end of constructor
+    }
+
+    /**
+     * @param slotno the slot number
+     * @return true if this slot is used (i.e., is occupied by a Tuple).  Slots beyond the end of the
+     * directory are empty.
+     */
+    @Override
+    public boolean isSlotUsed(int slotno) {
+        return slotno >= 0 && slotno < numSlots && VarLenSlottedPageFormatter.getTupleOffset(data, slotno) != 0;
+    }
+
+    /**
+     * @return the number of entries in the slot directory.  Unlike a SlottedPage this is not fixed: it
+     * grows as tuples are inserted.
+     */
+    @Override
+    public int getNumSlots() {
+        return numSlots;
+    }
+
+    /**
+     * @return an estimate of how many more tuples fit on this page, assuming they are the average size
+     * of the tuples already here (or the smallest possible size if the page is empty).
+     */
+    @Override
+    public int getNumEmptySlots() {
+        int avg = numUsed > 0 ? Math.max(1, usedBytes / numUsed) : VarLenSlottedPageFormatter.getMinTupleLength(td);
+        int free = getFreeBytes();
+        int reusable = Math.min(numSlots - numUsed, free / avg);
+        free -= reusable * avg;
+        return reusable + free / (avg + VarLenSlottedPageFormatter.ENTRY_SIZE);
+    }
+
+    /**
+     * @return the total number of free bytes, including holes that compaction would reclaim
+     */
+    public int getFreeBytes() {
+        return pageSize - VarLenSlottedPageFormatter.getDirectoryEnd(numSlots) - usedBytes;
+    }
+
+    @Override
+    protected void decodeTuple(int slotno, Tuple t) {
+        VarLenSlottedPageFormatter.decodeInto(data, VarLenSlottedPageFormatter.getTupleOffset(data, slotno), t);
+    }
+
+    @Override
+    protected Field decodeField(int slotno, int fieldno) {
+        return VarLenSlottedPageFormatter.decodeField(data, VarLenSlottedPageFormatter.getTupleOffset(data, slotno),
+                fieldno, td);
+    }
+
+    /**
+     * @return the number of bytes needed to hold t in the given slot: the tuple plus any new directory entries
+     */
+    private int spaceNeeded(int slotno, Tuple t) {
+        int newEntries = Math.max(0, slotno + 1 - numSlots);
+        return VarLenSlottedPageFormatter.getTupleLength(t, td) + newEntries * VarLenSlottedPageFormatter.ENTRY_SIZE;
+    }
+
+    @Override
+    protected boolean canInsert(int slotno, Tuple t) {
+        return slotno >= 0 && !isSlotUsed(slotno) && spaceNeeded(slotno, t) <= getFreeBytes();
+    }
+
+    @Override
+    protected int findFreeSlot(Tuple t) {
+        int slotno = numSlots;
+        if (numUsed < numSlots) {
+            for (int i = 0; i < numSlots; i++) {
+                if (isSlotEmpty(i)) {
+                    slotno = i;
+                    break;
+                }
+            }
+        }
+        return canInsert(slotno, t) ? slotno : -1;
+    }
+
+    @Override
+    protected void writeTuple(int slotno, Tuple t) {
+        int len = VarLenSlottedPageFormatter.getTupleLength(t, td);
+        int newNumSlots = Math.max(numSlots, slotno + 1);
+        if (freeEnd - len < VarLenSlottedPageFormatter.getDirectoryEnd(newNumSlots)) {
+            compact();
+        }
+        // new directory entries come out of the free gap, which is all zeros, i.e., empty entries
+        numSlots = newNumSlots;
+        VarLenSlottedPageFormatter.setNumSlots(data, numSlots);
+        freeEnd -= len;
+        VarLenSlottedPageFormatter.encodeTuple(t, data, freeEnd, td);
+        VarLenSlottedPageFormatter.setEntry(data, slotno, freeEnd, len);
+        numUsed++;
+        usedBytes += len;
+    }
+
+    @Override
+    protected void clearSlot(int slotno) {
+        int offset = VarLenSlottedPageFormatter.getTupleOffset(data, slotno);
+        int len = VarLenSlottedPageFormatter.getTupleLength(data, slotno);
+        Arrays.fill(data, offset, offset + len, (byte) 0);
+        VarLenSlottedPageFormatter.setEntry(data, slotno, 0, 0);
+        numUsed--;
+        usedBytes -= len;
+        // drop empty entries from the end of the directory
+        while (numSlots > 0 && VarLenSlottedPageFormatter.getTupleOffset(data, numSlots - 1) == 0) {
+            numSlots--;
+        }
+        VarLenSlottedPageFormatter.setNumSlots(data, numSlots);
+        if (offset == freeEnd) {
+            freeEnd = pageSize;
+            for (int i = 0; i < numSlots; i++) {
+                int o = VarLenSlottedPageFormatter.getTupleOffset(data, i);
+                if (o != 0) {
+                    freeEnd = Math.min(freeEnd, o);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves all tuples to the end of the page so that the free space is one contiguous gap.
+     * Slot numbers do not change.
+     */
+    private void compact() {
+        byte[] packed = new byte[pageSize];
+        int dirEnd = VarLenSlottedPageFormatter.getDirectoryEnd(numSlots);
+        System.arraycopy(data, 0, packed, 0, dirEnd);
+        int end = pageSize;
+        for (int i = 0; i < numSlots; i++) {
+            int offset = VarLenSlottedPageFormatter.getTupleOffset(data, i);
+            if (offset != 0) {
+                int len = VarLenSlottedPageFormatter.getTupleLength(data, i);
+                end -= len;
+                System.arraycopy(data, offset, packed, end, len);
+                VarLenSlottedPageFormatter.setEntry(packed, i, end, len);
+            }
+        }
+        data = packed;   // safe: called after prepareWrite, so data is not shared
+        freeEnd = end;
+    }
+
+    @Override
+    protected Page makeSnapshotPage(byte[] bytes) {
+        return new VarLenSlottedPage(pid, td, pageSize, bytes, true);
+    }
+}
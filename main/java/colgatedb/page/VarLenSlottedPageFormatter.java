@@ -0,0 +1,197 @@
+package colgatedb.page;
+
+import colgatedb.tuple.Field;
+import colgatedb.tuple.StringField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * VarLenSlottedPageFormatter describes the byte format of a {@link VarLenSlottedPage} and provides
+ * static helpers for reading and writing it in place.
+ * <p>
+ * The page begins with a header followed by a slot directory:
+ * <pre>
+ *     [numSlots: 2 bytes][offset_0: 2 bytes][length_0: 2 bytes] ... [offset_N-1][length_N-1]
+ * </pre>
+ * where N is numSlots.  All values are unsigned, big-endian.  Entry i gives the position and length of the
+ * tuple in slot i; an offset of 0 means the slot is empty (no tuple can start inside the header).
+ * <p>
+ * Tuples are allocated from the end of the page towards the directory, so the free space is the gap
+ * between the end of the directory and the lowest tuple offset (plus any holes left by deletions, which
+ * are reclaimed by compaction).  Unused bytes are always zero.
+ * <p>
+ * A tuple is its fields written one after another.  Fixed-length types are written as they are on a
+ * {@link SlottedPage}.  Strings are written compactly, as a 2-byte length followed by that many bytes,
+ * instead of being padded to {@link Type#STRING_LEN}.
+ * <p>
+ * Because offsets are 2 bytes, pages may be at most {@link #MAX_PAGE_SIZE} bytes.
+ */
+public class VarLenSlottedPageFormatter {
+
+    /**
+     * Largest page size whose offsets fit in the 2-byte directory entries.
+     */
+    public static final int MAX_PAGE_SIZE = 1 << 16;
+
+    static final int HEADER_SIZE = 2;
+    static final int ENTRY_SIZE = 4;
+
+    /**
+     * @return the number of bytes td's tuple t occupies on a VarLenSlottedPage
+     */
+    public static int getTupleLength(Tuple t, TupleDesc td) {
+        int len = 0;
+        for (int i = 0; i < td.numFields(); i++) {
+            if (td.getFieldType(i) == Type.STRING_TYPE) {
+                len += 2 + getStringLength((StringField) t.getField(i));
+            } else {
+                len += td.getFieldType(i).getLen();
+            }
+        }
+        return len;
+    }
+
+    /**
+     * @return the smallest number of bytes a tuple with schema td can occupy (i.e., all strings empty)
+     */
+    public static int getMinTupleLength(TupleDesc td) {
+        int len = 0;
+        for (int i = 0; i < td.numFields(); i++) {
+            len += td.getFieldType(i) == Type.STRING_TYPE ? 2 : td.getFieldType(i).getLen();
+        }
+        return len;
+    }
+
+    private static int getStringLength(StringField f) {
+        return Math.min(f.getValue().length(), Type.STRING_LEN);
+    }
+
+    /**
+     * Writes t into bytes starting at offset.
+     * @return the number of bytes written
+     */
+    public static int encodeTuple(Tuple t, byte[] bytes, int offset, TupleDesc td) {
+        int start = offset;
+        for (int i = 0; i < td.numFields(); i++) {
+            Type type = td.getFieldType(i);
+            if (type == Type.STRING_TYPE) {
+                String s = ((StringField) t.getField(i)).getValue();
+                int len = getStringLength((StringField) t.getField(i));
+                writeShort(bytes, offset, len);
+                offset += 2;
+                for (int j = 0; j < len; j++) {
+                    bytes[offset + j] = (byte) s.charAt(j);   // same as DataOutputStream.writeBytes
+                }
+                offset += len;
+            } else {
+                type.serialize(t, i, bytes, offset);
+                offset += type.getLen();
+            }
+        }
+        return offset - start;
+    }
+
+    /**
+     * Decodes the tuple that starts at offset.  The tuple's RecordId is not set.
+     */
+    public static Tuple decodeTuple(byte[] bytes, int offset, TupleDesc td) {
+        Tuple t = new Tuple(td);
+        decodeInto(bytes, offset, t);
+        return t;
+    }
+
+    /**
+     * Decodes the tuple that starts at offset into an existing tuple of the same schema, overwriting its
+     * fields.  Its RecordId is not modified.
+     */
+    public static void decodeInto(byte[] bytes, int offset, Tuple t) {
+        TupleDesc td = t.getTupleDesc();
+        for (int i = 0; i < td.numFields(); i++) {
+            Type type = td.getFieldType(i);
+            if (type == Type.STRING_TYPE) {
+                t.setField(i, parseField(bytes, offset, type));
+            } else {
+                type.parseInto(bytes, offset, t, i);
+            }
+            offset += getFieldLength(bytes, offset, type);
+        }
+    }
+
+    /**
+     * Decodes a single field of the tuple that starts at offset, skipping over the fields before it.
+     */
+    public static Field decodeField(byte[] bytes, int offset, int fieldno, TupleDesc td) {
+        for (int i = 0; i < fieldno; i++) {
+            offset += getFieldLength(bytes, offset, td.getFieldType(i));
+        }
+        return parseField(bytes, offset, td.getFieldType(fieldno));
+    }
+
+    private static Field parseField(byte[] bytes, int offset, Type type) {
+        if (type == Type.STRING_TYPE) {
+            int len = readShort(bytes, offset);
+            if (len > Type.STRING_LEN) {
+                throw new PageException("invalid string length " + len);
+            }
+            return new StringField(new String(bytes, offset + 2, len), Type.STRING_LEN);
+        }
+        return type.parse(bytes, offset);
+    }
+
+    private static int getFieldLength(byte[] bytes, int offset, Type type) {
+        return type == Type.STRING_TYPE ? 2 + readShort(bytes, offset) : type.getLen();
+    }
+
+    static int getNumSlots(byte[] bytes) {
+        return readShort(bytes, 0);
+    }
+
+    static void setNumSlots(byte[] bytes, int numSlots) {
+        writeShort(bytes, 0, numSlots);
+    }
+
+    /**
+     * @return the position of the first byte after a directory of numSlots entries
+     */
+    static int getDirectoryEnd(int numSlots) {
+        return HEADER_SIZE + ENTRY_SIZE * numSlots;
+    }
+
+    static int getTupleOffset(byte[] bytes, int slot) {
+        return readShort(bytes, HEADER_SIZE + ENTRY_SIZE * slot);
+    }
+
+    static int getTupleLength(byte[] bytes, int slot) {
+        return readShort(bytes, HEADER_SIZE + ENTRY_SIZE * slot + 2);
+    }
+
+    static void setEntry(byte[] bytes, int slot, int offset, int length) {
+        writeShort(bytes, HEADER_SIZE + ENTRY_SIZE * slot, offset);
+        writeShort(bytes, HEADER_SIZE + ENTRY_SIZE * slot + 2, length);
+    }
+
+    static int readShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+}
@@ -168,7 +168,10 @@ public class LockManagerImpl implements LockManager {
     @Override
     public synchronized List<TransactionId> getTidsForPage(PageId pid) {
         List<TransactionId> tids = new ArrayList<>();
-        tids.addAll(locktable.get(pid).getLockHolders());
+        LockTableEntry entry = locktable.get(pid);
+        if (entry != null) {
+            tids.addAll(entry.getLockHolders());
+        }
         return tids;
     }
 
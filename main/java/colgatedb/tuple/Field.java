@@ -29,6 +29,16 @@ public interface Field extends Serializable {
      */
     void serialize(DataOutputStream dos) throws IOException;
 
+    /**
+     * Write the bytes representing this field into a byte array, using the same
+     * encoding as {@link #serialize(DataOutputStream)}.  Exactly
+     * {@link Type#getLen()} bytes are written.
+     *
+     * @param bytes  The array to write to.
+     * @param offset The position of the field's first byte.
+     */
+    void serialize(byte[] bytes, int offset);
+
     /**
      * Compare the value of this field object to the passed in value.
      *
@@ -39,7 +49,7 @@ public interface Field extends Serializable {
     public boolean compare(Op op, Field value);
 
     /**
-     * Returns the type of this field (see {@link Type#INT_TYPE} or {@link Type#STRING_TYPE}
+     * Returns the type of this field (see {@link Type})
      *
      * @return type of this field
      */
@@ -53,6 +53,10 @@ public class IntField implements Field {
         dos.writeInt(value);
     }
 
+    public void serialize(byte[] bytes, int offset) {
+        Type.writeInt(bytes, offset, value);
+    }
+
     /**
      * Compare the specified field to the value of this Field.
      * Return semantics are as specified by Field.compare
@@ -60,29 +64,35 @@ public class IntField implements Field {
      * @see Field#compare
      */
     public boolean compare(Op op, Field val) {
+        return compare(value, op, ((IntField) val).value);
+    }
 
-        IntField iVal = (IntField) val;
-
+    /**
+     * Compares two int values with the semantics of {@link #compare(Op, Field)}, without creating Fields.
+     *
+     * @return true if "left op right" holds
+     */
+    public static boolean compare(int left, Op op, int right) {
         switch (op) {
             case EQUALS:
-                return value == iVal.value;
+                return left == right;
             case NOT_EQUALS:
-                return value != iVal.value;
+                return left != right;
 
             case GREATER_THAN:
-                return value > iVal.value;
+                return left > right;
 
             case GREATER_THAN_OR_EQ:
-                return value >= iVal.value;
+                return left >= right;
 
             case LESS_THAN:
-                return value < iVal.value;
+                return left < right;
 
             case LESS_THAN_OR_EQ:
-                return value <= iVal.value;
+                return left <= right;
 
             case LIKE:
-                return value == iVal.value;
+                return left == right;
         }
 
         return false;
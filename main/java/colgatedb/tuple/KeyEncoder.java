@@ -0,0 +1,189 @@
+package colgatedb.tuple;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * KeyEncoder turns chosen fields of a tuple into a normalized key: a byte array such that comparing the
+ * keys of two tuples with {@link #compare(byte[], byte[])} (an unsigned, byte-by-byte comparison) gives
+ * the same order as comparing their fields one after another with {@link Field#compare}.  Two tuples
+ * have equal keys exactly when the chosen fields are equal, so keys can also be hashed with
+ * {@link #hash(byte[])}.  A sort, grouping or index can then work on keys without touching Fields.
+ * <p>
+ * Encodings, for each field in turn:
+ * <ul>
+ *     <li>INT_TYPE: four bytes, big-endian, with the sign bit flipped so that negative values come first.</li>
+ *     <li>LONG_TYPE and TIMESTAMP_TYPE: likewise, in eight bytes.</li>
+ *     <li>DOUBLE_TYPE: the eight bytes of {@link Double#doubleToLongBits}, with the sign bit flipped for
+ *     positive values and every bit flipped for negative values, which gives the order of
+ *     {@link Double#compare}.</li>
+ *     <li>STRING_TYPE: each char c (a UTF-16 unit, which is what String.compareTo compares) as one byte
+ *     if 0 &lt; c &lt; 0x80, as two bytes 0x80|(c&gt;&gt;8), c&amp;0xFF if c &lt; 0x4000, and otherwise as 0xC0
+ *     followed by two bytes of c.  A 0 char is written as 0x00 0x01 and the string ends with 0x00 0x00,
+ *     so no encoding is a prefix of another and a shorter string sorts before its extensions.</li>
+ * </ul>
+ * The bytes of a field that is sorted in descending order are inverted.
+ */
+public class KeyEncoder implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int[] fields;          // the fields that make up the key, most significant first
+    private final boolean[] ascending;   // ascending[i] is false if fields[i] is sorted in descending order
+    private final Type[] types;          // types[i] is the type of fields[i]
+
+    /**
+     * @param td the schema of the tuples to encode
+     * @param fields the fields that make up the key, most significant first
+     * @param ascending for each of fields, true for ascending order or false for descending order
+     * @throws IllegalArgumentException if the arrays differ in length or a field is not in td
+     */
+    public KeyEncoder(TupleDesc td, int[] fields, boolean[] ascending) {
+        if (fields.length != ascending.length) {
+            throw new IllegalArgumentException("fields and ascending must have the same length");
+        }
+        this.fields = fields.clone();
+        this.ascending = ascending.clone();
+        this.types = new Type[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] < 0 || fields[i] >= td.numFields()) {
+                throw new IllegalArgumentException("invalid field " + fields[i]);
+            }
+            types[i] = td.getFieldType(fields[i]);
+        }
+    }
+
+    /**
+     * Creates an encoder that sorts every field in ascending order.
+     */
+    public KeyEncoder(TupleDesc td, int... fields) {
+        this(td, fields, allAscending(fields.length));
+    }
+
+    private static boolean[] allAscending(int n) {
+        boolean[] asc = new boolean[n];
+        Arrays.fill(asc, true);
+        return asc;
+    }
+
+    /**
+     * @return the number of bytes in the key of t
+     */
+    public int getKeyLength(Tuple t) {
+        int len = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (types[i] == Type.STRING_TYPE) {
+                String s = t.getString(fields[i]);
+                for (int j = 0; j < s.length(); j++) {
+                    len += charLength(s.charAt(j));
+                }
+                len += 2;
+            } else {
+                len += types[i].getLen();
+            }
+        }
+        return len;
+    }
+
+    private static int charLength(char c) {
+        if (c == 0) {
+            return 2;
+        }
+        return c < 0x80 ? 1 : c < 0x4000 ? 2 : 3;
+    }
+
+    /**
+     * @return the key of t, in a new array of length {@link #getKeyLength(Tuple)}
+     */
+    public byte[] encode(Tuple t) {
+        byte[] key = new byte[getKeyLength(t)];
+        encode(t, key, 0);
+        return key;
+    }
+
+    /**
+     * Writes the key of t into bytes starting at offset.
+     * @return the number of bytes written, which is {@link #getKeyLength(Tuple)}
+     */
+    public int encode(Tuple t, byte[] bytes, int offset) {
+        int start = offset;
+        for (int i = 0; i < fields.length; i++) {
+            int fieldStart = offset;
+            switch (types[i]) {
+                case INT_TYPE:
+                    Type.writeInt(bytes, offset, t.getInt(fields[i]) ^ Integer.MIN_VALUE);
+                    offset += 4;
+                    break;
+                case LONG_TYPE:
+                case TIMESTAMP_TYPE:
+                    Type.writeLong(bytes, offset, t.getLong(fields[i]) ^ Long.MIN_VALUE);
+                    offset += 8;
+                    break;
+                case DOUBLE_TYPE:
+                    long bits = Double.doubleToLongBits(t.getDouble(fields[i]));
+                    Type.writeLong(bytes, offset, bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+                    offset += 8;
+                    break;
+                default:
+                    offset = encodeString(t.getString(fields[i]), bytes, offset);
+            }
+            if (!ascending[i]) {
+                for (int j = fieldStart; j < offset; j++) {
+                    bytes[j] = (byte) ~bytes[j];
+                }
+            }
+        }
+        return offset - start;
+    }
+
+    private static int encodeString(String s, byte[] bytes, int offset) {
+        for (int j = 0; j < s.length(); j++) {
+            char c = s.charAt(j);
+            if (c == 0) {
+                bytes[offset++] = 0;
+                bytes[offset++] = 1;
+            } else if (c < 0x80) {
+                bytes[offset++] = (byte) c;
+            } else if (c < 0x4000) {
+                bytes[offset++] = (byte) (0x80 | (c >>> 8));
+                bytes[offset++] = (byte) c;
+            } else {
+                bytes[offset++] = (byte) 0xC0;
+                bytes[offset++] = (byte) (c >>> 8);
+                bytes[offset++] = (byte) c;
+            }
+        }
+        bytes[offset++] = 0;
+        bytes[offset++] = 0;
+        return offset;
+    }
+
+    /**
+     * Compares two keys made by the same encoder.
+     * @return a negative number, zero or a positive number as k1 sorts before, with or after k2
+     */
+    public static int compare(byte[] k1, byte[] k2) {
+        return Arrays.compareUnsigned(k1, k2);
+    }
+
+    /**
+     * @return a hash code for a key; equal keys have equal hash codes
+     */
+    public static int hash(byte[] key) {
+        return Arrays.hashCode(key);
+    }
+}
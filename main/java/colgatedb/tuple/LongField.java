@@ -0,0 +1,105 @@
+package colgatedb.tuple;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * Instance of Field that stores a single 64-bit integer.
+ */
+public class LongField implements Field {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long value;
+
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param l The value of this field.
+     */
+    public LongField(long l) {
+        value = l;
+    }
+
+    public String toString() {
+        return Long.toString(value);
+    }
+
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    public boolean equals(Object field) {
+        return (field instanceof LongField) && (((LongField) field).value == value);
+    }
+
+    public void serialize(DataOutputStream dos) throws IOException {
+        dos.writeLong(value);
+    }
+
+    public void serialize(byte[] bytes, int offset) {
+        Type.writeLong(bytes, offset, value);
+    }
+
+    /**
+     * Compare the specified field to the value of this Field.
+     * Return semantics are as specified by Field.compare
+     *
+     * @see Field#compare
+     */
+    public boolean compare(Op op, Field val) {
+        return compare(value, op, ((LongField) val).value);
+    }
+
+    /**
+     * Compares two long values with the semantics of {@link #compare(Op, Field)}, without creating Fields.
+     *
+     * @return true if "left op right" holds
+     */
+    public static boolean compare(long left, Op op, long right) {
+        switch (op) {
+            case EQUALS:
+            case LIKE:
+                return left == right;
+            case NOT_EQUALS:
+                return left != right;
+            case GREATER_THAN:
+                return left > right;
+            case GREATER_THAN_OR_EQ:
+                return left >= right;
+            case LESS_THAN:
+                return left < right;
+            case LESS_THAN_OR_EQ:
+                return left <= right;
+        }
+        return false;
+    }
+
+    /**
+     * Return the Type of this field.
+     *
+     * @return Type.LONG_TYPE
+     */
+    public Type getType() {
+        return Type.LONG_TYPE;
+    }
+}
@@ -2,6 +2,7 @@ package colgatedb.tuple;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * ColgateDB
@@ -80,6 +81,20 @@ public class StringField implements Field {
             dos.write((byte) 0);
     }
 
+    /**
+     * Write this string into bytes at the given offset, using the same format as
+     * {@link #serialize(DataOutputStream)}: always writes maxSize + 4 bytes.
+     */
+    public void serialize(byte[] bytes, int offset) {
+        int len = Math.min(value.length(), maxSize);
+        new IntField(len).serialize(bytes, offset);
+        offset += 4;
+        for (int i = 0; i < len; i++) {
+            bytes[offset + i] = (byte) value.charAt(i);   // same as DataOutputStream.writeBytes
+        }
+        Arrays.fill(bytes, offset + len, offset + maxSize, (byte) 0);
+    }
+
     /**
      * Compare the specified field to the value of this Field. Return semantics
      * are as specified by Field.compare
@@ -0,0 +1,89 @@
+package colgatedb.tuple;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+/**
+ * Instance of Field that stores a point in time, as a number of milliseconds since
+ * 1970-01-01T00:00:00Z.  It is stored and compared like a {@link LongField}.
+ */
+public class TimestampField implements Field {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long millis;
+
+    /**
+     * @return the milliseconds since the epoch
+     */
+    public long getValue() {
+        return millis;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param millis The value of this field, in milliseconds since the epoch.
+     */
+    public TimestampField(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @return the value in ISO-8601 format, e.g. 2016-03-01T12:00:00Z
+     */
+    public String toString() {
+        return Instant.ofEpochMilli(millis).toString();
+    }
+
+    public int hashCode() {
+        return Long.hashCode(millis);
+    }
+
+    public boolean equals(Object field) {
+        return (field instanceof TimestampField) && (((TimestampField) field).millis == millis);
+    }
+
+    public void serialize(DataOutputStream dos) throws IOException {
+        dos.writeLong(millis);
+    }
+
+    public void serialize(byte[] bytes, int offset) {
+        Type.writeLong(bytes, offset, millis);
+    }
+
+    /**
+     * Compare the specified field to the value of this Field.
+     * Return semantics are as specified by Field.compare
+     *
+     * @see Field#compare
+     */
+    public boolean compare(Op op, Field val) {
+        return LongField.compare(millis, op, ((TimestampField) val).millis);
+    }
+
+    /**
+     * Return the Type of this field.
+     *
+     * @return Type.TIMESTAMP_TYPE
+     */
+    public Type getType() {
+        return Type.TIMESTAMP_TYPE;
+    }
+}
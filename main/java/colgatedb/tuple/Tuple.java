@@ -1,13 +1,13 @@
 package colgatedb.tuple;
 
+import colgatedb.page.PageId;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-import java.util.HashMap;
-import java.util.Map;
-
 
 /**
  * ColgateDB
@@ -30,8 +30,14 @@ public class Tuple implements Serializable {
 
     private static final long serialVersionUID = 1L;
     private TupleDesc mytd;
-    private HashMap<Integer,Field> map;
+    private final Field[] fields;   // fields[i] is the ith field, or null if it has not been set
+    private long[] prims;           // values of fields set with setInt, setLong or setDouble; null if there are none
     private RecordId rid;
+    private PageId ridPage;         // if rid is null and this is not, rid is created on demand from ridPage and ridSlot
+    private int ridSlot;
+
+    // marks a field whose value is held in prims; its Field is created only if getField is called
+    private static final Field IN_PRIMS = new IntField(0);
     /**
      * Create a new tuple with the specified schema (type).
      *
@@ -39,7 +45,7 @@ public class Tuple implements Serializable {
      */
     public Tuple(TupleDesc td) {
         mytd = td;
-        map = new HashMap<>();
+        fields = new Field[td.numFields()];
     }
 
     /*
@@ -58,12 +64,12 @@ public class Tuple implements Serializable {
      * @throws NoSuchElementException if i is not a valid field reference.
      */
     public void setField(int i, Field f) {
-        if (i >= 0 && i < mytd.numFields()) {
+        if (i >= 0 && i < fields.length) {
             if (!mytd.getFieldType(i).equals(f.getType())) {
                 throw new RuntimeException("Field type does not match!");
             }
             else{
-                map.put(i,f);
+                fields[i] = f;
             }
         }
         else{
@@ -71,18 +77,197 @@ public class Tuple implements Serializable {
         }
     }
 
+    /**
+     * Change the value of the ith field of this tuple, which must be an int, without creating an IntField.
+     *
+     * @param i index of the field to change. It must be a valid index.
+     * @param value new value for the field.
+     * @throws RuntimeException if field i is not of type INT_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference.
+     */
+    public void setInt(int i, int value) {
+        checkType(i, Type.INT_TYPE);
+        setPrim(i, value);
+    }
+
+    /**
+     * Change the value of the ith field of this tuple, which must be a long or a timestamp (in milliseconds
+     * since the epoch), without creating a Field.
+     *
+     * @param i index of the field to change. It must be a valid index.
+     * @param value new value for the field.
+     * @throws RuntimeException if field i is not of type LONG_TYPE or TIMESTAMP_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference.
+     */
+    public void setLong(int i, long value) {
+        checkLongType(i);
+        setPrim(i, value);
+    }
+
+    /**
+     * Change the value of the ith field of this tuple, which must be a double, without creating a DoubleField.
+     *
+     * @param i index of the field to change. It must be a valid index.
+     * @param value new value for the field.
+     * @throws RuntimeException if field i is not of type DOUBLE_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference.
+     */
+    public void setDouble(int i, double value) {
+        checkType(i, Type.DOUBLE_TYPE);
+        setPrim(i, Double.doubleToRawLongBits(value));
+    }
+
+    private void setPrim(int i, long value) {
+        if (prims == null) {
+            prims = new long[fields.length];
+        }
+        prims[i] = value;
+        fields[i] = IN_PRIMS;
+    }
+
+    /**
+     * Change the value of the ith field of this tuple to the value of the jth field of src, without
+     * creating a Field if the value is held as a primitive.
+     *
+     * @param i index of the field to change. It must be a valid index.
+     * @param src the tuple to copy from.
+     * @param j index of the field of src to copy. It must have the same type as field i.
+     * @throws RuntimeException if the types of the two fields do not match.
+     * @throws NoSuchElementException if i or j is not a valid field reference.
+     */
+    public void setField(int i, Tuple src, int j) {
+        if (j < 0 || j >= src.fields.length) {
+            throw new NoSuchElementException("Invalid field reference j!");
+        }
+        checkType(i, src.mytd.getFieldType(j));
+        Field f = src.fields[j];
+        if (f == IN_PRIMS) {
+            setPrim(i, src.prims[j]);
+        } else {
+            fields[i] = f;
+        }
+    }
+
     /**
      * @param i field index to return. Must be a valid index.
      * @return the value of the ith field, or null if it has not been set.
      * @throws NoSuchElementException if i is not a valid field reference.
      */
     public Field getField(int i) {
-        if (i >= 0 && i < mytd.numFields()){
-            return map.get(i);
+        if (i >= 0 && i < fields.length){
+            Field f = fields[i];
+            if (f == IN_PRIMS) {
+                f = materialize(i);
+                fields[i] = f;
+            }
+            return f;
         }
         throw new NoSuchElementException();
     }
 
+    /**
+     * Returns the value of the ith field, which must be an int, without creating an IntField.
+     *
+     * @param i field index to return. Must be a valid index.
+     * @throws RuntimeException if field i is not of type INT_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference or the field has not been set.
+     */
+    public int getInt(int i) {
+        checkType(i, Type.INT_TYPE);
+        Field f = fields[i];
+        if (f == IN_PRIMS) {
+            return (int) prims[i];
+        }
+        return ((IntField) checkSet(i, f)).getValue();
+    }
+
+    /**
+     * Returns the value of the ith field, which must be a long or a timestamp (in milliseconds since the
+     * epoch), without creating a Field.
+     *
+     * @param i field index to return. Must be a valid index.
+     * @throws RuntimeException if field i is not of type LONG_TYPE or TIMESTAMP_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference or the field has not been set.
+     */
+    public long getLong(int i) {
+        checkLongType(i);
+        Field f = fields[i];
+        if (f == IN_PRIMS) {
+            return prims[i];
+        }
+        checkSet(i, f);
+        return f instanceof LongField ? ((LongField) f).getValue() : ((TimestampField) f).getValue();
+    }
+
+    /**
+     * Returns the value of the ith field, which must be a double, without creating a DoubleField.
+     *
+     * @param i field index to return. Must be a valid index.
+     * @throws RuntimeException if field i is not of type DOUBLE_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference or the field has not been set.
+     */
+    public double getDouble(int i) {
+        checkType(i, Type.DOUBLE_TYPE);
+        Field f = fields[i];
+        if (f == IN_PRIMS) {
+            return Double.longBitsToDouble(prims[i]);
+        }
+        return ((DoubleField) checkSet(i, f)).getValue();
+    }
+
+    private Field materialize(int i) {
+        switch (mytd.getFieldType(i)) {
+            case INT_TYPE:
+                return new IntField((int) prims[i]);
+            case LONG_TYPE:
+                return new LongField(prims[i]);
+            case DOUBLE_TYPE:
+                return new DoubleField(Double.longBitsToDouble(prims[i]));
+            case TIMESTAMP_TYPE:
+                return new TimestampField(prims[i]);
+            default:
+                throw new IllegalStateException("no primitive representation for field " + i);
+        }
+    }
+
+    private static Field checkSet(int i, Field f) {
+        if (f == null) {
+            throw new NoSuchElementException("Field " + i + " has not been set!");
+        }
+        return f;
+    }
+
+    private void checkLongType(int i) {
+        if (i < 0 || i >= fields.length) {
+            throw new NoSuchElementException("Invalid field reference i!");
+        }
+        Type type = mytd.getFieldType(i);
+        if (type != Type.LONG_TYPE && type != Type.TIMESTAMP_TYPE) {
+            throw new RuntimeException("Field type does not match!");
+        }
+    }
+
+    /**
+     * Returns the value of the ith field, which must be a string.
+     *
+     * @param i field index to return. Must be a valid index.
+     * @throws RuntimeException if field i is not of type STRING_TYPE.
+     * @throws NoSuchElementException if i is not a valid field reference or the field has not been set.
+     */
+    public String getString(int i) {
+        checkType(i, Type.STRING_TYPE);
+        return ((StringField) checkSet(i, fields[i])).getValue();
+    }
+
+    private void checkType(int i, Type type) {
+        if (i < 0 || i >= fields.length) {
+            throw new NoSuchElementException("Invalid field reference i!");
+        }
+        if (mytd.getFieldType(i) != type) {
+            throw new RuntimeException("Field type does not match!");
+        }
+    }
+
     /**
      * Returns the contents of this Tuple as a string. Note that to pass the
      * system tests, the format needs to be as follows:
@@ -92,29 +277,106 @@ public class Tuple implements Serializable {
      * where \t is a tab and \n is a newline
      */
     public String toString() {
-        String result = "";
-        for (int i = 0; i < map.size()-1; i++){
-            result += map.get(i)+"\t".toString();
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < fields.length; i++){
+            if (i > 0) {
+                result.append('\t');
+            }
+            result.append(getField(i));
         }
-        result += map.get(map.size()-1).toString();
-        return result;
+        return result.toString();
+    }
+
+    /**
+     * Two tuples are equal if they have equal schemas and equal field values.  RecordIds are not compared,
+     * so a tuple equals the copy that a page decodes from its bytes.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Tuple)) {
+            return false;
+        }
+        Tuple other = (Tuple) o;
+        if (!mytd.equals(other.mytd)) {
+            return false;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            Field f = getField(i);
+            if (f == null ? other.getField(i) != null : !f.equals(other.getField(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < fields.length; i++) {
+            Field f = getField(i);
+            hash = 31 * hash + (f == null ? 0 : f.hashCode());
+        }
+        return hash;
     }
 
 
     /**
-     * @return An iterator which iterates over all the fields of this tuple
+     * @return An iterator which iterates over all the fields of this tuple.  The fields are not copied;
+     * to avoid creating the iterator at all, loop over {@link #getField(int)}.
      */
     public Iterator<Field> fields() {
-        // hint: use java.util.Arrays.asList to convert array into a list, then return list iterator.
-        ArrayList<Field> list1 = new ArrayList<Field>(map.values());
-        Iterator<Field> FieldsIterator = list1.iterator();
-        return FieldsIterator;
+        return new Iterator<Field>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < fields.length;
+            }
+
+            @Override
+            public Field next() {
+                if (next >= fields.length) {
+                    throw new NoSuchElementException();
+                }
+                return getField(next++);
+            }
+        };
+    }
+
+    /**
+     * Creates the concatenation of two tuples, e.g., the result of joining them.
+     *
+     * @param td the schema of the result: the fields of t1's schema followed by those of t2's
+     * @param t1 the tuple whose fields come first
+     * @param t2 the tuple whose fields come second
+     * @return a new tuple holding the fields of t1 followed by the fields of t2
+     */
+    public static Tuple concat(TupleDesc td, Tuple t1, Tuple t2) {
+        Tuple t = new Tuple(td);
+        System.arraycopy(t1.fields, 0, t.fields, 0, t1.fields.length);
+        System.arraycopy(t2.fields, 0, t.fields, t1.fields.length, t2.fields.length);
+        if (t1.prims != null || t2.prims != null) {
+            t.prims = new long[t.fields.length];
+            if (t1.prims != null) {
+                System.arraycopy(t1.prims, 0, t.prims, 0, t1.prims.length);
+            }
+            if (t2.prims != null) {
+                System.arraycopy(t2.prims, 0, t.prims, t1.fields.length, t2.prims.length);
+            }
+        }
+        return t;
     }
 
     /**
      * @return The RecordId representing the location of this tuple on disk. May be null.
      */
     public RecordId getRecordId() {
+        if (rid == null && ridPage != null) {
+            rid = new RecordId(ridPage, ridSlot);
+        }
         if (rid == null || rid.getPageId() == null){
             return null;
         }
@@ -128,5 +390,54 @@ public class Tuple implements Serializable {
      */
     public void setRecordId(RecordId rid) {
         this.rid = rid;
+        this.ridPage = null;
+    }
+
+    /**
+     * Set the RecordId information for this tuple.  The RecordId object is only created if
+     * {@link #getRecordId()} is called, so a tuple that is reused for many rows does not create one per row.
+     *
+     * @param pid the page that holds this tuple.
+     * @param tupleno the slot that holds this tuple.
+     */
+    public void setRecordId(PageId pid, int tupleno) {
+        this.rid = null;
+        this.ridPage = pid;
+        this.ridSlot = tupleno;
+    }
+
+    /**
+     * Set the RecordId of this tuple to that of src, without creating a RecordId object.
+     *
+     * @param src the tuple whose RecordId to copy.
+     */
+    public void copyRecordId(Tuple src) {
+        this.rid = src.rid;
+        this.ridPage = src.ridPage;
+        this.ridSlot = src.ridSlot;
+    }
+
+    /**
+     * Returns a new tuple with the same schema, field values and RecordId as this one.  Operators that
+     * receive reused tuples (see {@link colgatedb.operators.DbIterator#setReuseTuples(boolean)}) must copy
+     * any tuple they keep beyond the next call to their child's next().
+     */
+    public Tuple copy() {
+        Tuple t = new Tuple(mytd);
+        System.arraycopy(fields, 0, t.fields, 0, fields.length);
+        if (prims != null) {
+            t.prims = prims.clone();
+        }
+        t.copyRecordId(this);
+        return t;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // the IN_PRIMS marker is compared by identity, so it cannot survive serialization
+        for (int i = 0; i < fields.length; i++) {
+            getField(i);
+        }
+        getRecordId();
+        out.defaultWriteObject();
     }
 }
@@ -1,10 +1,15 @@
 package colgatedb.tuple;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ColgateDB
@@ -19,7 +24,13 @@ import java.util.NoSuchElementException;
  */
 
 /**
- * TupleDesc describes the schema of a tuple.
+ * TupleDesc describes the schema of a tuple.  TupleDescs are immutable.
+ * <p>
+ * Everything that depends only on the field types (the size of a tuple and the byte offset of each field
+ * within it) is computed once and kept in a Layout that is shared by all TupleDescs with the same types.
+ * Two TupleDescs are therefore equal exactly when they share a Layout, so {@link #equals} and
+ * {@link #hashCode} take constant time.  {@link #intern()} additionally returns a single instance for
+ * each distinct schema (types and names) that is still in use.
  */
 public class TupleDesc implements Serializable {
 
@@ -50,7 +61,60 @@ public class TupleDesc implements Serializable {
         }
     }
 
-    private TDItem[] schema;//added array for storing TDItem objects
+    /**
+     * What is common to all TupleDescs with the same field types.  There is one Layout per list of types.
+     */
+    private static class Layout implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final Type[] types;
+        final int[] offsets;   // offsets[i] is the byte offset of field i in a serialized tuple
+        final int size;        // the size in bytes of a serialized tuple
+        final int hash;
+
+        Layout(Type[] types) {
+            this.types = types;
+            this.offsets = new int[types.length];
+            int offset = 0;
+            for (int i = 0; i < types.length; i++) {
+                offsets[i] = offset;
+                offset += types[i].getLen();
+            }
+            this.size = offset;
+            this.hash = Arrays.hashCode(types);
+        }
+    }
+
+    private static final ConcurrentHashMap<List<Type>, Layout> layouts = new ConcurrentHashMap<>();
+    // canonical TupleDescs, held weakly so that schemas no longer in use (e.g., those of past joins) can be
+    // collected; entries whose TupleDesc has been collected are removed as references are enqueued
+    private static final ConcurrentHashMap<List<Object>, InternRef> interned = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<TupleDesc> collected = new ReferenceQueue<>();
+
+    private static class InternRef extends WeakReference<TupleDesc> {
+        final List<Object> key;
+
+        InternRef(TupleDesc td, List<Object> key) {
+            super(td, collected);
+            this.key = key;
+        }
+    }
+
+    private static Layout layoutFor(Type[] types) {
+        Layout layout = layouts.get(Arrays.asList(types));
+        if (layout == null) {
+            Type[] copy = types.clone();
+            layout = new Layout(copy);
+            Layout existing = layouts.putIfAbsent(Arrays.asList(copy), layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    private final TDItem[] schema;//added array for storing TDItem objects
+    private final transient Layout layout;
     private static final long serialVersionUID = 1L;
 
     /**
@@ -65,11 +129,9 @@ public class TupleDesc implements Serializable {
     public TupleDesc(Type[] typeAr, String[] fieldAr) {
         schema = new TDItem[typeAr.length];
         for (int i = 0; i < typeAr.length; i++){
-            if (fieldAr[i] != null){
-                TDItem temp = new TDItem(typeAr[i],fieldAr[i]);
-                schema[i] = temp;
-            }
+            schema[i] = new TDItem(typeAr[i], fieldAr[i]);
         }
+        layout = layoutFor(typeAr);
     }
 
     /**
@@ -86,6 +148,43 @@ public class TupleDesc implements Serializable {
             TDItem temp = new TDItem(typeAr[i],"");
             schema[i] = temp;
         }
+        layout = layoutFor(typeAr);
+    }
+
+    private TupleDesc(TDItem[] schema, Layout layout) {
+        this.schema = schema;
+        this.layout = layout;
+    }
+
+    /**
+     * Returns the canonical TupleDesc with the same field types and names as this one: for any two
+     * TupleDescs with the same types and names, intern returns the same object as long as that object is
+     * in use.  Canonical TupleDescs are held weakly, so interning does not keep a schema alive.
+     *
+     * @return the canonical TupleDesc for this schema
+     */
+    public TupleDesc intern() {
+        Reference<? extends TupleDesc> ref;
+        while ((ref = collected.poll()) != null) {
+            InternRef stale = (InternRef) ref;
+            interned.remove(stale.key, stale);
+        }
+        List<Object> key = new ArrayList<Object>(2 * schema.length);
+        for (TDItem item : schema) {
+            key.add(item.fieldType);
+            key.add(item.fieldName);
+        }
+        while (true) {
+            InternRef existing = interned.get(key);
+            TupleDesc td = existing == null ? null : existing.get();
+            if (td != null) {
+                return td;
+            }
+            InternRef mine = new InternRef(this, key);
+            if (existing == null ? interned.putIfAbsent(key, mine) == null : interned.replace(key, existing, mine)) {
+                return this;
+            }
+        }
     }
 
     /**
@@ -105,7 +204,7 @@ public class TupleDesc implements Serializable {
      */
     public Type getFieldType(int i) throws NoSuchElementException {
         if (i >= 0 && i < schema.length){
-            return schema[i].fieldType;
+            return layout.types[i];
         }
         throw new NoSuchElementException();
     }
@@ -133,8 +232,7 @@ public class TupleDesc implements Serializable {
      */
     public int fieldNameToIndex(String name) throws NoSuchElementException {
         for (int i = 0; i < schema.length; i++){
-            if (schema[i] != null && schema[i].fieldName.equals(name)){
-                // schema[i] might be null
+            if (name != null && name.equals(schema[i].fieldName)){
                 return i;
             }
         }
@@ -149,12 +247,20 @@ public class TupleDesc implements Serializable {
      * @see Type#getLen()
      */
     public int getSize() {
-        //throw new UnsupportedOperationException("implement me!");
-        int result = 0;
-        for (int i = 0; i < schema.length; i++){
-            result += schema[i].fieldType.getLen();
+        return layout.size;
+    }
+
+    /**
+     * @param i The index of a field. It must be a valid index.
+     * @return the byte offset of the ith field within a serialized tuple of this TupleDesc, which is the
+     * sum of the lengths of the fields before it.
+     * @throws NoSuchElementException if i is not a valid field reference.
+     */
+    public int getFieldOffset(int i) throws NoSuchElementException {
+        if (i >= 0 && i < schema.length){
+            return layout.offsets[i];
         }
-        return result;
+        throw new NoSuchElementException();
     }
 
     /**
@@ -177,27 +283,12 @@ public class TupleDesc implements Serializable {
      * @return true if the object is equal to this TupleDesc.
      */
     public boolean equals(Object o) {
-        if (o instanceof TupleDesc){
-            TupleDesc newo = (TupleDesc) o;
-            if (newo.schema.length == schema.length){
-                for (int i = 0; i < schema.length; i++) {
-                    if (!(schema[i].fieldType.equals(newo.schema[i].fieldType))) {
-                        return false;
-                    }
-                }
-                return true;
-            }
-            return false;
-        }
-        return false;
+        // TupleDescs with the same types share their Layout
+        return o instanceof TupleDesc && ((TupleDesc) o).layout == layout;
     }
 
     public int hashCode() {
-        // If you want to use TupleDesc as keys for HashMap, implement this so
-        // that equal objects have equals hashCode() results.  If you're not
-        // sure yet (you may not be), then leave the UnsupportedOperationException
-        // so that if this method ever gets called, it will trigger an exception.
-        throw new UnsupportedOperationException("unimplemented");
+        return layout.hash;
     }
 
     /**
@@ -207,13 +298,29 @@ public class TupleDesc implements Serializable {
      * @return String describing this descriptor.
      */
     public String toString(){
-        String result = "";
-        int l = schema.length;
-        for (int i = 0; i < l-1; i++){
-            result = result + schema[i].fieldName + "(" + schema[i].fieldType+"), ";
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < schema.length; i++){
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(schema[i]);
         }
-        result = result + schema[l-1].fieldName + "(" + schema[l-1].fieldType+")";
-        return result;
+        return result.toString();
+    }
+
+    /**
+     * @param columns indices of fields of this TupleDesc, in the desired order
+     * @return a TupleDesc with the types and names of the given fields
+     * @throws NoSuchElementException if an index is not a valid field reference
+     */
+    public TupleDesc project(int[] columns) {
+        Type[] types = new Type[columns.length];
+        String[] names = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            types[i] = getFieldType(columns[i]);
+            names[i] = getFieldName(columns[i]);
+        }
+        return new TupleDesc(types, names).intern();
     }
 
     /**
@@ -227,22 +334,21 @@ public class TupleDesc implements Serializable {
     public static TupleDesc merge(TupleDesc td1, TupleDesc td2) {
         int newNum = td1.numFields()+td2.numFields();
         Type[] typearr = new Type[newNum];
-        String[] strarr = new String[newNum];
-        int m = 0;
-        for (int i = 0; i < td1.numFields(); i++){
-            typearr[m] = (td1.schema[i].fieldType);
-            strarr[m] = (td1.schema[i].fieldName);
-            m++;
-        }
-        for (int j =0; j < td2.numFields();j++){
-            typearr[m] = (td2.schema[j].fieldType);
-            strarr[m] = (td2.schema[j].fieldName);
-            m++;
-        }
-        TupleDesc result = new TupleDesc(typearr,strarr);
-        return result;
-
+        TDItem[] items = new TDItem[newNum];
+        System.arraycopy(td1.layout.types, 0, typearr, 0, td1.numFields());
+        System.arraycopy(td2.layout.types, 0, typearr, td1.numFields(), td2.numFields());
+        System.arraycopy(td1.schema, 0, items, 0, td1.numFields());   // TDItems are immutable, so can be shared
+        System.arraycopy(td2.schema, 0, items, td1.numFields(), td2.numFields());
+        return new TupleDesc(items, layoutFor(typearr)).intern();
+    }
 
+    private Object readResolve() {
+        // the Layout is not serialized; find the shared one for these types
+        Type[] types = new Type[schema.length];
+        for (int i = 0; i < schema.length; i++) {
+            types[i] = schema[i].fieldType;
+        }
+        return new TupleDesc(schema, layoutFor(types));
     }
 
 
@@ -38,6 +38,21 @@ public enum Type implements Serializable {
             }
         }
 
+        @Override
+        public Field parse(byte[] bytes, int offset) {
+            return new IntField(readInt(bytes, offset));
+        }
+
+        @Override
+        public void parseInto(byte[] bytes, int offset, Tuple t, int fieldno) {
+            t.setInt(fieldno, readInt(bytes, offset));
+        }
+
+        @Override
+        public void serialize(Tuple t, int fieldno, byte[] bytes, int offset) {
+            writeInt(bytes, offset, t.getInt(fieldno));
+        }
+
     }, STRING_TYPE() {
         @Override
         public int getLen() {
@@ -56,6 +71,112 @@ public enum Type implements Serializable {
                 throw new RuntimeException("Error reading from stream", new ParseException("couldn't parse", 0));
             }
         }
+
+        @Override
+        public Field parse(byte[] bytes, int offset) {
+            int strLen = readInt(bytes, offset);
+            if (strLen < 0 || strLen > STRING_LEN) {
+                throw new RuntimeException("Error reading from bytes", new ParseException("couldn't parse", offset));
+            }
+            return new StringField(new String(bytes, offset + 4, strLen), STRING_LEN);
+        }
+
+        @Override
+        public void parseInto(byte[] bytes, int offset, Tuple t, int fieldno) {
+            t.setField(fieldno, parse(bytes, offset));
+        }
+
+        @Override
+        public void serialize(Tuple t, int fieldno, byte[] bytes, int offset) {
+            t.getField(fieldno).serialize(bytes, offset);
+        }
+    }, LONG_TYPE() {
+        @Override
+        public int getLen() {
+            return 8;
+        }
+
+        @Override
+        public Field parse(DataInputStream dis) {
+            try {
+                return new LongField(dis.readLong());
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading from stream", new ParseException("couldn't parse", 0));
+            }
+        }
+
+        @Override
+        public Field parse(byte[] bytes, int offset) {
+            return new LongField(readLong(bytes, offset));
+        }
+
+        @Override
+        public void parseInto(byte[] bytes, int offset, Tuple t, int fieldno) {
+            t.setLong(fieldno, readLong(bytes, offset));
+        }
+
+        @Override
+        public void serialize(Tuple t, int fieldno, byte[] bytes, int offset) {
+            writeLong(bytes, offset, t.getLong(fieldno));
+        }
+    }, DOUBLE_TYPE() {
+        @Override
+        public int getLen() {
+            return 8;
+        }
+
+        @Override
+        public Field parse(DataInputStream dis) {
+            try {
+                return new DoubleField(dis.readDouble());
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading from stream", new ParseException("couldn't parse", 0));
+            }
+        }
+
+        @Override
+        public Field parse(byte[] bytes, int offset) {
+            return new DoubleField(Double.longBitsToDouble(readLong(bytes, offset)));
+        }
+
+        @Override
+        public void parseInto(byte[] bytes, int offset, Tuple t, int fieldno) {
+            t.setDouble(fieldno, Double.longBitsToDouble(readLong(bytes, offset)));
+        }
+
+        @Override
+        public void serialize(Tuple t, int fieldno, byte[] bytes, int offset) {
+            writeLong(bytes, offset, Double.doubleToLongBits(t.getDouble(fieldno)));
+        }
+    }, TIMESTAMP_TYPE() {
+        @Override
+        public int getLen() {
+            return 8;
+        }
+
+        @Override
+        public Field parse(DataInputStream dis) {
+            try {
+                return new TimestampField(dis.readLong());
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading from stream", new ParseException("couldn't parse", 0));
+            }
+        }
+
+        @Override
+        public Field parse(byte[] bytes, int offset) {
+            return new TimestampField(readLong(bytes, offset));
+        }
+
+        @Override
+        public void parseInto(byte[] bytes, int offset, Tuple t, int fieldno) {
+            t.setLong(fieldno, readLong(bytes, offset));
+        }
+
+        @Override
+        public void serialize(Tuple t, int fieldno, byte[] bytes, int offset) {
+            writeLong(bytes, offset, t.getLong(fieldno));
+        }
     };
 
     public static final int STRING_LEN = 128;
@@ -74,4 +195,68 @@ public enum Type implements Serializable {
      */
     public abstract Field parse(DataInputStream dis);
 
+    /**
+     * Decodes a field directly from a byte array, using the same encoding as {@link #parse(DataInputStream)}
+     * but without the overhead of a stream.
+     * @param bytes the bytes to read from
+     * @param offset the position of the field's first byte
+     * @return a Field object of the same type as this object
+     * @throws RuntimeException if the bytes are not of the appropriate type.
+     */
+    public abstract Field parse(byte[] bytes, int offset);
+
+    /**
+     * Decodes a field from a byte array, like {@link #parse(byte[], int)}, and stores it in a tuple.
+     * Types with a primitive representation (see {@link Tuple#setInt(int, int)}) store it without
+     * creating a Field.
+     * @param bytes the bytes to read from
+     * @param offset the position of the field's first byte
+     * @param t the tuple to store the value in
+     * @param fieldno the field of t to set; it must have this type
+     */
+    public abstract void parseInto(byte[] bytes, int offset, Tuple t, int fieldno);
+
+    /**
+     * Encodes a field of a tuple into a byte array, like {@link Field#serialize(byte[], int)}, without
+     * creating a Field for values held as primitives.
+     * @param t the tuple
+     * @param fieldno the field of t to write; it must have this type
+     * @param bytes the bytes to write to
+     * @param offset the position of the field's first byte
+     */
+    public abstract void serialize(Tuple t, int fieldno, byte[] bytes, int offset);
+
+    /**
+     * Reads a big-endian int (the encoding used by DataOutputStream) from a byte array.
+     */
+    public static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) |
+                ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Reads a big-endian long (the encoding used by DataOutputStream) from a byte array.
+     */
+    public static long readLong(byte[] bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a big-endian int (the encoding used by DataOutputStream) into a byte array.
+     */
+    public static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Writes a big-endian long (the encoding used by DataOutputStream) into a byte array.
+     */
+    public static void writeLong(byte[] bytes, int offset, long value) {
+        writeInt(bytes, offset, (int) (value >>> 32));
+        writeInt(bytes, offset + 4, (int) value);
+    }
+
 }
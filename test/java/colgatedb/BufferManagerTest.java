@@ -403,6 +403,52 @@ public class BufferManagerTest {
 
     }
 
+    /**
+     * Pages larger than the default page size take the room of several default-size pages.
+     */
+    @Test
+    public void testLargePagesTakeSeveralFrames() {
+        dm.pageSize = 2 * Database.getPageSize();
+        initializeBufferManager(3);
+        buffMgr.pinPage(pid0, pm);
+        buffMgr.unpinPage(pid0, false);
+        buffMgr.pinPage(pid1, pm);   // 4 frames needed, only 3 available
+        assertFalse(buffMgr.inBufferPool(pid0));
+        try {
+            buffMgr.pinPage(pid2, pm);
+            fail("pid1 is pinned and takes two frames, so pid2 does not fit");
+        } catch (BufferManagerException e) {
+            // expected
+        }
+        dm.pageSize = Database.getPageSize();
+        buffMgr.unpinPage(pid1, false);
+        buffMgr.discardPage(pid1);
+        buffMgr.pinPage(pid0, pm);
+        buffMgr.pinPage(pid1, pm);
+        buffMgr.pinPage(pid2, pm);
+    }
+
+    /**
+     * Pages smaller than the default page size take only their own size, so more of them fit.
+     */
+    @Test
+    public void testSmallPagesShareFrames() {
+        dm.pageSize = Database.getPageSize() / 2;
+        initializeBufferManager(1);
+        buffMgr.pinPage(pid0, pm);
+        buffMgr.pinPage(pid1, pm);   // two half-size pages fill the pool
+        try {
+            buffMgr.pinPage(pid2, pm);
+            fail("the pool is full of pinned pages");
+        } catch (BufferManagerException e) {
+            // expected
+        }
+        buffMgr.unpinPage(pid0, false);
+        buffMgr.pinPage(pid2, pm);
+        assertFalse(buffMgr.inBufferPool(pid0));
+        assertTrue(buffMgr.inBufferPool(pid1));
+    }
+
     /**
      * MockDiskManager is a fake disk manager used for testing purposes.
      *
@@ -414,6 +460,12 @@ public class BufferManagerTest {
 
         // keep track of reads and writes (and allocations?)
         List<PageContainer> pages = new ArrayList<>();
+        int pageSize = Database.getPageSize();
+
+        @Override
+        public int getPageSize(int tableid) {
+            return pageSize;
+        }
 
         @Override
         public void allocatePage(PageId pid) {
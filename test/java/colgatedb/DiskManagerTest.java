@@ -0,0 +1,126 @@
+package colgatedb;
+
+import colgatedb.page.PageMaker;
+import colgatedb.page.SimplePageId;
+import colgatedb.page.SlottedPage;
+import colgatedb.page.SlottedPageMaker;
+import colgatedb.tuple.TupleDesc;
+import com.sun.nio.file.ExtendedOpenOption;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+public class DiskManagerTest {
+
+    private final TupleDesc td = TestUtility.getTupleDesc(2);
+    private int blockSize;
+
+    @Before
+    public void setUp() throws IOException {
+        File probe = File.createTempFile("probe", ".dat");
+        probe.deleteOnExit();
+        try {
+            blockSize = (int) Files.getFileStore(probe.toPath()).getBlockSize();
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeNoException("block size not available", e);
+        }
+    }
+
+    /**
+     * Skips the calling test if the temporary directory does not support O_DIRECT.
+     */
+    private static void assumeDirectIOSupported() throws IOException {
+        File probe = File.createTempFile("probe", ".dat");
+        probe.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(probe.toPath(), StandardOpenOption.READ,
+                ExtendedOpenOption.DIRECT)) {
+            assertTrue(channel.isOpen());
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeNoException("O_DIRECT not supported", e);
+        }
+    }
+
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("table", ".dat");
+        file.deleteOnExit();
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Writes a page holding one tuple to each of two tables with different page sizes, and reads them back.
+     */
+    @Test
+    public void directRoundTrip() throws IOException {
+        assumeDirectIOSupported();
+        DiskManagerImpl dm = new DiskManagerImpl(blockSize);
+        dm.addFileEntry(1, tempFile());
+        dm.addFileEntry(2, tempFile(), 2 * blockSize);
+        dm.setDirectIO(true);
+        assertEquals(blockSize, dm.getPageSize(1));
+        assertEquals(2 * blockSize, dm.getPageSize(2));
+        for (int tableid = 1; tableid <= 2; tableid++) {
+            PageMaker pm = new SlottedPageMaker(td, dm.getPageSize(tableid));
+            for (int pageno = 0; pageno < 3; pageno++) {
+                SimplePageId pid = new SimplePageId(tableid, pageno);
+                dm.allocatePage(pid);
+                SlottedPage page = (SlottedPage) dm.readPage(pid, pm);
+                page.insertTuple(TestUtility.getIntTuple(new int[]{tableid, pageno}));
+                dm.writePage(page);
+            }
+            assertEquals(3, dm.getNumPages(tableid));
+            for (int pageno = 0; pageno < 3; pageno++) {
+                SimplePageId pid = new SimplePageId(tableid, pageno);
+                SlottedPage page = (SlottedPage) dm.readPage(pid, pm);
+                SlottedPage expected = new SlottedPage(pid, td, dm.getPageSize(tableid));
+                expected.insertTuple(TestUtility.getIntTuple(new int[]{tableid, pageno}));
+                assertArrayEquals(expected.getPageData(), page.getPageData());
+            }
+        }
+    }
+
+    @Test
+    public void misalignedPageSize() throws IOException {
+        DiskManagerImpl dm = new DiskManagerImpl(blockSize);
+        dm.addFileEntry(1, tempFile(), blockSize + 1);
+        try {
+            dm.setDirectIO(true);
+            fail("page size is not a multiple of the block size");
+        } catch (DiskManagerException e) {
+            // expected
+        }
+        dm.addFileEntry(1, tempFile(), blockSize);
+        dm.setDirectIO(true);
+        try {
+            dm.addFileEntry(2, tempFile(), blockSize / 2);
+            fail("page size is not a multiple of the block size");
+        } catch (DiskManagerException e) {
+            // expected
+        }
+    }
+}
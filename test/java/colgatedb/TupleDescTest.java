@@ -5,6 +5,7 @@ import colgatedb.tuple.Type;
 import com.gradescope.jh61b.grader.GradedTest;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -258,6 +259,42 @@ public class TupleDescTest {
         assertTrue(combinedStringArrays(td2, td2, td3));
     }
 
+    @Test
+    public void offsetsHashCodeAndIntern() {
+        TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE, Type.INT_TYPE},
+                new String[]{"a", "b", null});
+        assertEquals(0, td.getFieldOffset(0));
+        assertEquals(Type.INT_TYPE.getLen(), td.getFieldOffset(1));
+        assertEquals(Type.INT_TYPE.getLen() + Type.STRING_TYPE.getLen(), td.getFieldOffset(2));
+        assertNull(td.getFieldName(2));
+        assertEquals(Type.INT_TYPE, td.getFieldType(2));
+
+        TupleDesc sameTypes = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE, Type.INT_TYPE});
+        assertEquals(td, sameTypes);
+        assertEquals(td.hashCode(), sameTypes.hashCode());
+        assertNotEquals(td, new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE}));
+
+        TupleDesc copy = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE, Type.INT_TYPE},
+                new String[]{"a", "b", null});
+        assertSame(td.intern(), copy.intern());
+        assertNotSame(td.intern(), sameTypes.intern());   // the names differ
+        assertSame(TupleDesc.merge(td, sameTypes), TupleDesc.merge(copy, sameTypes));
+    }
+
+    /**
+     * Interning must not keep a schema alive once nothing else refers to it.
+     */
+    @Test
+    public void internedSchemaCanBeCollected() {
+        TupleDesc td = TupleDesc.merge(TestUtility.getTupleDesc(2, "collect"), TestUtility.getTupleDesc(2, "me"));
+        WeakReference<TupleDesc> ref = new WeakReference<TupleDesc>(td);
+        td = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+
     /**
      * Ensures that merged tupledesc's field names = td1's field names + td2's field names
      */
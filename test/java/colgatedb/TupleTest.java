@@ -1,5 +1,6 @@
 package colgatedb;
 
+import colgatedb.page.SimplePageId;
 import colgatedb.tuple.*;
 import com.gradescope.jh61b.grader.GradedTest;
 import org.junit.Test;
@@ -135,5 +136,95 @@ public class TupleTest {
         assertFalse(fieldIterator.hasNext());
     }
 
-}
+    @Test
+    public void concat() {
+        TupleDesc td1 = new TupleDesc(new Type[]{Type.INT_TYPE});
+        TupleDesc td2 = new TupleDesc(new Type[]{Type.STRING_TYPE, Type.INT_TYPE});
+        Tuple t1 = new Tuple(td1);
+        t1.setField(0, new IntField(1));
+        Tuple t2 = new Tuple(td2);
+        t2.setField(0, new StringField("two"));
+        t2.setField(1, new IntField(3));
+        Tuple t = Tuple.concat(TupleDesc.merge(td1, td2), t1, t2);
+        assertEquals("1\ttwo\t3", t.toString());
+        assertSame(t2.getField(0), t.getField(1));
+    }
+
+    @Test
+    public void primitiveAccess() {
+        TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE, Type.INT_TYPE});
+        Tuple t = new Tuple(td);
+        t.setInt(0, 42);
+        t.setField(1, new StringField("hi"));
+        t.setField(2, new IntField(-7));
+        assertEquals(42, t.getInt(0));
+        assertEquals(-7, t.getInt(2));
+        assertEquals("hi", t.getString(1));
+        assertEquals(new IntField(42), t.getField(0));
+        assertEquals("42\thi\t-7", t.toString());
+
+        byte[] bytes = new byte[4];
+        Type.INT_TYPE.serialize(t, 0, bytes, 0);
+        Tuple u = new Tuple(td);
+        Type.INT_TYPE.parseInto(bytes, 0, u, 2);
+        assertEquals(42, u.getInt(2));
+
+        Tuple joined = Tuple.concat(TupleDesc.merge(td, td), u, t);
+        assertEquals(42, joined.getInt(2));
+        assertEquals(42, joined.getInt(3));
+        try {
+            t.getInt(1);
+            fail("field 1 is a string");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        try {
+            u.getInt(0);
+            fail("field 0 has not been set");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
 
+    @Test
+    public void copyAndReuse() {
+        TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+        Tuple t = new Tuple(td);
+        t.setInt(0, 1);
+        t.setField(1, new StringField("one"));
+        t.setRecordId(new SimplePageId(0, 3), 4);
+        Tuple copy = t.copy();
+        t.setInt(0, 2);
+        t.setField(1, new StringField("two"));
+        assertEquals("1\tone", copy.toString());
+        assertEquals("2\ttwo", t.toString());
+        assertEquals(new RecordId(new SimplePageId(0, 3), 4), copy.getRecordId());
+
+        Tuple u = new Tuple(new TupleDesc(new Type[]{Type.STRING_TYPE, Type.INT_TYPE}));
+        u.setField(0, t, 1);
+        u.setField(1, copy, 0);
+        u.copyRecordId(t);
+        assertEquals("two\t1", u.toString());
+        assertEquals(t.getRecordId(), u.getRecordId());
+    }
+
+    @Test
+    public void equalsComparesValues() {
+        TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+        Tuple t = new Tuple(td);
+        t.setInt(0, 1);
+        t.setField(1, new StringField("one"));
+        Tuple u = new Tuple(td);
+        u.setField(0, new IntField(1));   // the same value, held as a Field rather than a primitive
+        u.setField(1, new StringField("one"));
+        u.setRecordId(new SimplePageId(0, 3), 4);
+        assertEquals(t, u);
+        assertEquals(t.hashCode(), u.hashCode());
+        u.setInt(0, 2);
+        assertNotEquals(t, u);
+        Tuple v = new Tuple(new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE}, new String[]{"a", "b"}));
+        v.setField(0, t, 0);
+        v.setField(1, t, 1);
+        assertEquals(t, v);   // TupleDescs are equal if their types are
+    }
+}
@@ -0,0 +1,180 @@
+package colgatedb.dbfile;
+
+import colgatedb.Catalog;
+import colgatedb.Database;
+import colgatedb.TestUtility;
+import colgatedb.operators.Predicate;
+import colgatedb.page.PageFormat;
+import colgatedb.transactions.TransactionAbortedException;
+import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+public class ClusteredHeapFileTest {
+
+    private static final int pageSize = 64;   // 7 tuples of two ints per page
+    private static final TupleDesc td = TestUtility.getTupleDesc(2, "f");
+    private final TransactionId tid = new TransactionId();
+    private File file;
+    private ClusteredHeapFile hf;
+
+    @Before
+    public void setUp() throws IOException {
+        Database.reset();
+        Database.setPageSize(pageSize);
+        Database.setBufferPoolSize(200);
+        file = File.createTempFile("clustered", ".dat");
+        file.deleteOnExit();
+        hf = Catalog.addClusteredHeapFile("clustered", td, "f0", file, PageFormat.SLOTTED, pageSize);
+    }
+
+    /**
+     * Inserts a tuple for each key, in a random order, and returns the keys.
+     */
+    private List<Integer> insertShuffled(int numKeys) throws TransactionAbortedException {
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(460));
+        for (int key : keys) {
+            hf.insertTuple(tid, TestUtility.getIntTuple(new int[]{key, -key}));
+        }
+        return keys;
+    }
+
+    private static List<Tuple> readAll(DbFileIterator iterator) throws TransactionAbortedException {
+        List<Tuple> tuples = new ArrayList<Tuple>();
+        iterator.open();
+        while (iterator.hasNext()) {
+            tuples.add(iterator.next());
+        }
+        iterator.close();
+        return tuples;
+    }
+
+    private static int key(Tuple t) {
+        return ((IntField) t.getField(0)).getValue();
+    }
+
+    /**
+     * Checks that the tuples hold exactly the keys from lo to hi, and that the pages they come from hold
+     * disjoint, increasing ranges of keys.
+     */
+    private static void assertClustered(List<Tuple> tuples, int lo, int hi) {
+        boolean[] seen = new boolean[hi - lo + 1];
+        int pageno = -1;
+        int pageMax = Integer.MIN_VALUE;   // the highest key on the pages before the current one
+        int currMax = Integer.MIN_VALUE;
+        for (Tuple t : tuples) {
+            int k = key(t);
+            assertTrue(k >= lo && k <= hi);
+            assertFalse(seen[k - lo]);
+            seen[k - lo] = true;
+            if (t.getRecordId().getPageId().pageNumber() != pageno) {
+                pageno = t.getRecordId().getPageId().pageNumber();
+                pageMax = Math.max(pageMax, currMax);
+            }
+            assertTrue(k > pageMax);
+            currMax = Math.max(currMax, k);
+        }
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+    }
+
+    @Test
+    public void insertAndScan() throws TransactionAbortedException {
+        insertShuffled(200);
+        assertTrue(hf.numPages() > 200 / 7);
+        assertEquals(200, readAll(hf.iterator(tid)).size());
+        assertClustered(readAll(hf.rangeIterator(tid, null, null)), 0, 199);
+    }
+
+    @Test
+    public void rangeIterator() throws TransactionAbortedException {
+        insertShuffled(200);
+        assertClustered(readAll(hf.rangeIterator(tid, new IntField(50), new IntField(80))), 50, 80);
+        assertClustered(readAll(hf.rangeIterator(tid, null, new IntField(10))), 0, 10);
+        assertClustered(readAll(hf.rangeIterator(tid, new IntField(190), null)), 190, 199);
+        assertTrue(readAll(hf.rangeIterator(tid, new IntField(300), null)).isEmpty());
+        assertTrue(readAll(hf.rangeIterator(tid, null, new IntField(-1))).isEmpty());
+
+        // a scan with predicates on the key uses the key order
+        List<Predicate> predicates = new ArrayList<Predicate>();
+        predicates.add(new Predicate(0, Op.GREATER_THAN, new IntField(100)));
+        predicates.add(new Predicate(0, Op.LESS_THAN_OR_EQ, new IntField(120)));
+        assertClustered(readAll(hf.iterator(tid, predicates, null)), 101, 120);
+        List<Tuple> found = readAll(hf.iterator(tid, new Predicate(0, Op.EQUALS, new IntField(42))));
+        assertEquals(1, found.size());
+        assertEquals(-42, ((IntField) found.get(0).getField(1)).getValue());
+    }
+
+    @Test
+    public void duplicateKeys() throws TransactionAbortedException {
+        // more tuples with one key than fit on a page, between other keys
+        hf.insertTuple(tid, TestUtility.getIntTuple(new int[]{1, 0}));
+        hf.insertTuple(tid, TestUtility.getIntTuple(new int[]{9, 0}));
+        for (int i = 0; i < 20; i++) {
+            hf.insertTuple(tid, TestUtility.getIntTuple(new int[]{5, i}));
+        }
+        assertEquals(20, readAll(hf.rangeIterator(tid, new IntField(5), new IntField(5))).size());
+        assertEquals(21, readAll(hf.rangeIterator(tid, null, new IntField(5))).size());
+        assertEquals(22, readAll(hf.iterator(tid)).size());
+    }
+
+    @Test
+    public void directoryRebuilt() throws TransactionAbortedException {
+        insertShuffled(100);
+        Database.getBufferManager().flushAllPages();
+
+        // a new file object over the same data builds its directory from the pages
+        ClusteredHeapFile reopened = new ClusteredHeapFile(td, pageSize, hf.getId(), hf.numPages(),
+                PageFormat.SLOTTED, null, 0);
+        assertClustered(readAll(reopened.rangeIterator(tid, new IntField(20), new IntField(60))), 20, 60);
+        for (int key = 100; key < 150; key++) {
+            reopened.insertTuple(tid, TestUtility.getIntTuple(new int[]{key, -key}));
+        }
+        assertClustered(readAll(reopened.rangeIterator(tid, null, null)), 0, 149);
+    }
+
+    @Test
+    public void insertInToNewPage() throws TransactionAbortedException {
+        insertShuffled(50);
+        hf.insertInToNewPage(tid, TestUtility.getIntTuple(new int[]{25, 0}));
+        assertEquals(2, readAll(hf.rangeIterator(tid, new IntField(25), new IntField(25))).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noVacuum() {
+        new Vacuum(hf);
+    }
+}
@@ -1,9 +1,13 @@
 package colgatedb.dbfile;
 
 import colgatedb.*;
+import colgatedb.operators.Predicate;
 import colgatedb.page.*;
+import colgatedb.transactions.Transaction;
 import colgatedb.transactions.TransactionAbortedException;
 import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.Op;
 import colgatedb.tuple.RecordId;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
@@ -13,9 +17,15 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static colgatedb.page.PageTestUtility.assertEqualTuples;
 import static org.junit.Assert.*;
@@ -159,6 +169,369 @@ public class HeapFileMoreTest {
         assertIteratorsMatch(tups, iterator);
     }
 
+    @Test
+    public void testPredicateSkipsPages() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(tups);
+        List<Tuple> expected = new LinkedList<Tuple>();
+        for (Tuple t : tups) {
+            if (((IntField) t.getField(0)).getValue() == 2) {
+                expected.add(t);
+            }
+        }
+        Predicate p = new Predicate(0, Op.EQUALS, new IntField(2));
+        assertTrue(hf.getZoneMap().mayMatch(0, 0, Op.EQUALS, new IntField(2)));   // not yet summarized
+        DbFileIterator iterator = hf.iterator(tid, p);
+        iterator.open();
+        assertIteratorsMatch(expected, iterator);
+        iterator.close();
+        assertFalse(hf.getZoneMap().mayMatch(0, 0, Op.EQUALS, new IntField(2)));
+        assertTrue(hf.getZoneMap().mayMatch(2, 0, Op.EQUALS, new IntField(2)));
+        assertFalse(hf.getZoneMap().mayMatch(3, 1, Op.GREATER_THAN, new IntField(1)));
+
+        // inserts widen the summaries (the new tuple goes on page 0)
+        Tuple t = TestUtility.getIntTuple(new int[]{2, 5});
+        hf.insertTuple(tid, t);
+        assertEquals(0, t.getRecordId().getPageId().pageNumber());
+        assertTrue(hf.getZoneMap().mayMatch(0, 0, Op.EQUALS, new IntField(2)));
+        assertFalse(hf.getZoneMap().mayMatch(0, 0, Op.GREATER_THAN, new IntField(2)));
+    }
+
+    @Test
+    public void testFreeSpaceMap() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{-1,-1,0}, tups); // first two pages full
+        FreeSpaceMap fsm = hf.getFreeSpaceMap();
+        assertEquals(FreeSpaceMap.UNKNOWN, fsm.getFree(0));
+        Tuple t = TestUtility.getIntTuple(new int[]{10, 10});
+        hf.insertTuple(tid, t);
+        assertEquals(2, t.getRecordId().getPageId().pageNumber());
+        assertEquals(0, fsm.getFree(0));
+        assertEquals(0, fsm.getFree(1));
+        assertEquals(2, fsm.findPage(0));   // later inserts go straight to page 2
+        int free = fsm.getFree(2);
+        assertTrue(free > 0);
+
+        // the map survives a restart; pages added after the save are unknown
+        File fsmFile = new File(Database.getCatalog().getFile(hf.getId()).getPath() + ".fsm");
+        fsmFile.deleteOnExit();
+        hf.saveFreeSpaceMap();
+        FreeSpaceMap reloaded = new FreeSpaceMap(4, fsmFile);
+        assertEquals(0, reloaded.getFree(0));
+        assertEquals(free, reloaded.getFree(2));
+        assertEquals(FreeSpaceMap.UNKNOWN, reloaded.getFree(3));
+        assertEquals(2, reloaded.findPage(0));
+        assertEquals(3, reloaded.findPage(3));
+
+        // deleting a tuple makes room again
+        Database.getBufferManager().evictDirty(true);
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        Tuple first = iterator.next();
+        iterator.close();
+        hf.deleteTuple(tid, first);
+        assertTrue(fsm.getFree(0) > 0);
+        assertEquals(0, fsm.findPage(0));
+    }
+
+    @Test
+    public void testScanOnlyFillsUnknownFreeSpace() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{1, 1}, tups);
+        FreeSpaceMap fsm = hf.getFreeSpaceMap();
+        fsm.update(0, 0);   // as for a new page that its creator has not yet locked
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        iterator.close();
+        assertEquals(0, fsm.getFree(0));
+        assertTrue(fsm.getFree(1) > 0 && fsm.getFree(1) != FreeSpaceMap.UNKNOWN);
+    }
+
+    @Test
+    public void testInsertTuples() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{-1,1}, tups); // first page full
+        int slotsPerPage = tups.size() - 1;
+        Database.getBufferManager().evictDirty(true);
+        List<Tuple> newTups = new LinkedList<Tuple>();
+        int n = 3 * slotsPerPage - 2;   // fills page 1 and one new page, and all but one slot of another
+        for (int i = 0; i < n; i++) {
+            newTups.add(TestUtility.getIntTuple(new int[]{100, i}));
+        }
+        assertEquals(n, hf.insertTuples(tid, newTups.iterator()));
+        // page 1 is filled first, then just enough new pages are added
+        assertEquals(1, newTups.get(0).getRecordId().getPageId().pageNumber());
+        assertEquals(1, newTups.get(slotsPerPage - 2).getRecordId().getPageId().pageNumber());
+        assertEquals(2, newTups.get(slotsPerPage - 1).getRecordId().getPageId().pageNumber());
+        assertEquals(4, hf.numPages());
+        assertEquals(1, hf.getFreeSpaceMap().getFree(3));
+        assertEquals(3, hf.getFreeSpaceMap().findPage(0));
+        tups.addAll(newTups);
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        assertIteratorsMatch(tups, iterator);
+        assertEquals(0, hf.insertTuples(tid, new LinkedList<Tuple>().iterator()));
+    }
+
+    @Test
+    public void testPredicatesAndColumns() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(tups);   // tuple (p, i) is the ith tuple on page p
+        List<Predicate> predicates = new LinkedList<Predicate>();
+        predicates.add(new Predicate(0, Op.GREATER_THAN_OR_EQ, new IntField(1)));
+        predicates.add(new Predicate(1, Op.EQUALS, new IntField(1)));
+        for (boolean reuse : new boolean[]{false, true}) {
+            DbFileIterator iterator = hf.iterator(tid, predicates, new int[]{0});
+            iterator.setReuseTuples(reuse);
+            iterator.open();
+            for (int p = 1; p < 4; p++) {
+                assertTrue(iterator.hasNext());
+                Tuple t = iterator.next();
+                assertEquals(1, t.getTupleDesc().numFields());
+                assertEquals(p, t.getInt(0));
+                assertEquals(p, t.getRecordId().getPageId().pageNumber());
+                assertEquals(1, t.getRecordId().tupleno());
+            }
+            assertFalse(iterator.hasNext());
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testFetchTuples() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{2,3,1}, tups);
+        List<RecordId> rids = new ArrayList<RecordId>();
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        while (iterator.hasNext()) {
+            rids.add(iterator.next().getRecordId());
+        }
+        iterator.close();
+
+        assertEqualTuples(tups.get(3), hf.fetchTuple(tid, rids.get(3)));
+
+        // out of page order, with a repeat: results come back in request order
+        List<RecordId> request = new ArrayList<RecordId>();
+        int[] order = {5, 0, 3, 1, 0, 4};
+        for (int i : order) {
+            request.add(rids.get(i));
+        }
+        List<Tuple> fetched = hf.fetchTuples(tid, request);
+        assertEquals(order.length, fetched.size());
+        for (int i = 0; i < order.length; i++) {
+            assertEqualTuples(tups.get(order[i]), fetched.get(i));
+            assertEquals(request.get(i), fetched.get(i).getRecordId());
+        }
+
+        try {
+            hf.fetchTuple(tid, new RecordId(new SimplePageId(hf.getId(), 0), 2));   // empty slot
+            fail("Should raise an exception");
+        } catch (DbException e) {
+            // expected
+        }
+        try {
+            hf.fetchTuples(tid, Collections.singletonList(new RecordId(new SimplePageId(hf.getId(), 3), 0)));
+            fail("Should raise an exception");
+        } catch (DbException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDeleteTuples() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{3,3,3}, tups);
+        List<Tuple> stored = new ArrayList<Tuple>();
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        while (iterator.hasNext()) {
+            stored.add(iterator.next());
+        }
+        iterator.close();
+        Database.getBufferManager().evictDirty(true);
+
+        // a tuple that is not in the file: nothing is deleted
+        Tuple stranger = TestUtility.getIntTuple(new int[]{9, 9});
+        stranger.setRecordId(new RecordId(new SimplePageId(hf.getId() + 1, 0), 0));
+        try {
+            hf.deleteTuples(tid, Arrays.asList(stored.get(0), stranger));
+            fail("Should raise an exception");
+        } catch (DbException e) {
+            // expected
+        }
+        assertNotNull(stored.get(0).getRecordId());
+
+        // delete tuples from pages 2, 0 and 2 again
+        List<Tuple> victims = Arrays.asList(stored.get(8), stored.get(1), stored.get(6));
+        assertEquals(3, hf.deleteTuples(tid, victims));
+        for (Tuple t : victims) {
+            assertNull(t.getRecordId());
+        }
+        tups.remove(8);
+        tups.remove(6);
+        tups.remove(1);
+        iterator = hf.iterator(tid);
+        iterator.open();
+        assertIteratorsMatch(tups, iterator);
+        iterator.close();
+    }
+
+    @Test
+    public void testVacuum() throws IOException, TransactionAbortedException {
+        // a full page followed by three sparse ones; the pages dirtied by a vacuum transaction stay in the pool
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{-1, 1, 1, 2}, tups, 4);
+        Map<RecordId, RecordId> moves = new Vacuum(hf).run();
+
+        // the tuples of pages 3 and 2 move to page 1, which is then no longer sparse
+        assertEquals(3, moves.size());
+        for (RecordId rid : moves.values()) {
+            assertEquals(1, rid.getPageId().pageNumber());
+        }
+        assertEquals(4, hf.numPages());
+        assertTrue(hf.getFreeSpaceMap().isEmpty(2));
+        assertTrue(hf.getFreeSpaceMap().isEmpty(3));
+        assertFalse(hf.getFreeSpaceMap().isEmpty(1));
+
+        // every tuple is still there, and the scan does not visit the emptied pages
+        List<Tuple> stored = new ArrayList<Tuple>();
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        while (iterator.hasNext()) {
+            Tuple t = iterator.next();
+            assertTrue(t.getRecordId().getPageId().pageNumber() <= 1);
+            stored.add(t);
+        }
+        iterator.close();
+        assertEquals(tups.size(), stored.size());
+        for (RecordId rid : moves.values()) {
+            assertNotNull(hf.fetchTuple(tid, rid));
+        }
+
+        // a page emptied by vacuum is reused, and visited again, once a tuple is inserted into it
+        Database.getBufferManager().evictDirty(true);
+        hf.getFreeSpaceMap().update(1, 0);
+        Tuple t = TestUtility.getIntTuple(new int[]{9, 9});
+        hf.insertTuple(tid, t);
+        assertEquals(2, t.getRecordId().getPageId().pageNumber());
+        assertFalse(hf.getFreeSpaceMap().isEmpty(2));
+    }
+
+    @Test
+    public void testInsertPassesOverLockedPages() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(new int[]{3}, tups, 4);
+        TransactionId other = new TransactionId();
+        Tuple t1 = TestUtility.getIntTuple(new int[]{7, 7});
+        hf.insertTuple(other, t1);
+        assertEquals(0, t1.getRecordId().getPageId().pageNumber());
+
+        // page 0 has room but is locked by the other transaction: a new page is used rather than waiting
+        Tuple t2 = TestUtility.getIntTuple(new int[]{8, 8});
+        hf.insertTuple(tid, t2);
+        assertEquals(1, t2.getRecordId().getPageId().pageNumber());
+        assertEquals(2, hf.numPages());
+
+        // the next insert goes to the same page
+        Tuple t3 = TestUtility.getIntTuple(new int[]{9, 9});
+        hf.insertTuple(tid, t3);
+        assertEquals(1, t3.getRecordId().getPageId().pageNumber());
+    }
+
+    @Test
+    public void testConcurrentInserts() throws Exception {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        final HeapFile hf = initializeHeapFile(new int[]{3}, tups, 50);
+        final int numThreads = 4;
+        final int perThread = 60;
+        final int perTransaction = 10;
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[numThreads];
+        for (int n = 0; n < numThreads; n++) {
+            final int thread = n;
+            threads[n] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int done = 0; done < perThread; ) {
+                            Transaction txn = new Transaction();
+                            txn.start();
+                            try {
+                                for (int i = done; i < done + perTransaction; i++) {
+                                    hf.insertTuple(txn.getId(), TestUtility.getIntTuple(new int[]{thread + 1, i}));
+                                }
+                                txn.commit();
+                                done += perTransaction;
+                            } catch (TransactionAbortedException e) {
+                                txn.abort();   // and try again
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        // every tuple is stored exactly once, and every page counted is in the file
+        Set<RecordId> rids = new HashSet<RecordId>();
+        int[] counts = new int[numThreads + 1];   // the initial tuples have 0 in their first field
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.open();
+        while (iterator.hasNext()) {
+            Tuple t = iterator.next();
+            assertTrue(rids.add(t.getRecordId()));
+            counts[((IntField) t.getField(0)).getValue()]++;
+        }
+        iterator.close();
+        assertEquals(3 + numThreads * perThread, rids.size());
+        for (int n = 1; n <= numThreads; n++) {
+            assertEquals(perThread, counts[n]);
+        }
+    }
+
+    @Test
+    public void testReuseTuples() throws IOException, TransactionAbortedException {
+        List<Tuple> tups = new LinkedList<Tuple>();
+        HeapFile hf = initializeHeapFile(tups);
+        DbFileIterator iterator = hf.iterator(tid);
+        iterator.setReuseTuples(true);
+        iterator.open();
+        Tuple row = null;
+        List<Tuple> copies = new LinkedList<Tuple>();
+        for (Tuple expected : tups) {
+            assertTrue(iterator.hasNext());
+            Tuple t = iterator.next();
+            if (row == null) {
+                row = t;
+            }
+            assertSame(row, t);
+            assertEqualTuples(expected, t);
+            assertEquals(expected.getRecordId().getPageId().pageNumber(), t.getRecordId().getPageId().pageNumber());
+            assertEquals(expected.getRecordId().tupleno(), t.getRecordId().tupleno());
+            copies.add(t.copy());
+        }
+        assertFalse(iterator.hasNext());
+        iterator.close();
+        Iterator<Tuple> it = copies.iterator();
+        for (Tuple expected : tups) {
+            Tuple copy = it.next();
+            assertNotSame(row, copy);
+            assertEqualTuples(expected, copy);
+        }
+    }
+
     /**
      * Given a list of expectedTuples and an *open* DBFileIterator, check that
      * the DBFileIterator's output matches the contents of expectedTuples.
@@ -190,8 +563,12 @@ public class HeapFileMoreTest {
      * @throws IOException
      */
     static HeapFile initializeHeapFile(int[] tupsPerPage, List<Tuple> tups) throws IOException {
+        return initializeHeapFile(tupsPerPage, tups, 1);  // make sure unused pages are being unpinned!
+    }
+
+    static HeapFile initializeHeapFile(int[] tupsPerPage, List<Tuple> tups, int poolSize) throws IOException {
         Database.setPageSize(pageSize);
-        Database.setBufferPoolSize(1);  // make sure unused pages are being unpinned!
+        Database.setBufferPoolSize(poolSize);
 
         DiskManagerImpl tempDM = new DiskManagerImpl(pageSize);
 
@@ -12,6 +12,7 @@ import org.junit.Test;
 
 import static colgatedb.dbfile.TestUtilHeapFile.createHeapFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -66,5 +67,13 @@ public class DeleteTest {
                 TestUtility.getIntTuple(3, 1), // the length of hfScan
                 op.next()));
     }
-}
 
+    @Test
+    public void reusedTuples() throws Exception {
+        Delete op = new Delete(tid, new OperatorTestUtility.ReusingScan(hfScan));
+        op.open();
+        assertTrue(PageTestUtility.compareTuples(TestUtility.getIntTuple(3, 1), op.next()));
+        hfScan.rewind();
+        assertFalse(hfScan.hasNext());
+    }
+}
@@ -11,6 +11,9 @@ import com.gradescope.jh61b.grader.GradedTest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -116,6 +119,29 @@ public class FilterTest {
         op.close();
     }
 
+    /**
+     * A tuple found by hasNext but not yet returned must not survive close: the closed operator has no
+     * more tuples, and once reopened it starts from the beginning.
+     */
+    @Test
+    public void closeDropsFoundTuple() throws Exception {
+        List<Tuple> tuples = new ArrayList<Tuple>();
+        for (int i = -5; i < 5; i++) {
+            tuples.add(TestUtility.getIntTuple(i, testWidth));
+        }
+        Predicate pred = new Predicate(0, Op.LESS_THAN, OperatorTestUtility.getField(2));
+        Filter op = new Filter(pred, new TupleIterator(TestUtility.getTupleDesc(testWidth), tuples));
+        op.open();
+        assertTrue(PageTestUtility.compareTuples(TestUtility.getIntTuple(-5, testWidth), op.next()));
+        assertTrue(op.hasNext());
+        op.close();
+        assertFalse(op.hasNext());
+
+        op.open();
+        assertTrue(PageTestUtility.compareTuples(TestUtility.getIntTuple(-5, testWidth), op.next()));
+        op.close();
+    }
+
     /**
      * Unit test for Filter.getNext() using a &lt; predicate that filters
      * some tuples
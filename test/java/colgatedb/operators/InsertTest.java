@@ -67,5 +67,15 @@ public class InsertTest {
                 op.next()));
         assertEquals(1, empty.numPages());
     }
-}
 
+    @Test
+    public void reusedTuples() throws Exception {
+        Insert op = new Insert(tid, new OperatorTestUtility.ReusingScan(scan1), empty.getId());
+        op.open();
+        op.next();
+        scan1.rewind();
+        SeqScan scan = new SeqScan(tid, empty.getId(), "");
+        scan.open();
+        OperatorTestUtility.matchAllTuples(scan1, scan);
+    }
+}
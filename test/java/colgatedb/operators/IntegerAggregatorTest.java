@@ -140,6 +140,45 @@ public class IntegerAggregatorTest {
         }
     }
 
+    /**
+     * Test IntegerAggregator.mergeTupleIntoGroup() and iterator() over a count
+     */
+    @Test
+    public void mergeCount() throws Exception {
+        scan1.open();
+        IntegerAggregator agg = new IntegerAggregator(0, Type.INT_TYPE, 1, Aggregator.Op.COUNT);
+
+        int[][] count = {
+                {1, 1},
+                {1, 2},
+                {1, 3},
+                {1, 3, 3, 1}
+        };
+        for (int[] step : count) {
+            agg.mergeTupleIntoGroup(scan1.next());
+            DbIterator it = agg.iterator();
+            it.open();
+            OperatorTestUtility.matchAllTuples(OperatorTestUtility.createTupleList(width1, step), it);
+        }
+    }
+
+    /**
+     * Test IntegerAggregator.mergeTupleIntoGroup() and iterator() over a sum without grouping
+     */
+    @Test
+    public void mergeNoGrouping() throws Exception {
+        scan1.open();
+        IntegerAggregator agg = new IntegerAggregator(Aggregator.NO_GROUPING, null, 1, Aggregator.Op.SUM);
+
+        int[] steps = {2, 6, 12, 14};
+        for (int step : steps) {
+            agg.mergeTupleIntoGroup(scan1.next());
+            DbIterator it = agg.iterator();
+            it.open();
+            OperatorTestUtility.matchAllTuples(OperatorTestUtility.createTupleList(1, new int[]{step}), it);
+        }
+    }
+
     /**
      * Test IntegerAggregator.iterator() for DbIterator behaviour
      */
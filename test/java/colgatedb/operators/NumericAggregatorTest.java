@@ -0,0 +1,96 @@
+package colgatedb.operators;
+
+import colgatedb.tuple.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class NumericAggregatorTest {
+
+    private static final TupleDesc td = new TupleDesc(
+            new Type[]{Type.INT_TYPE, Type.LONG_TYPE, Type.DOUBLE_TYPE, Type.TIMESTAMP_TYPE});
+
+    private static Tuple tuple(int group, long l, double d, long ts) {
+        Tuple t = new Tuple(td);
+        t.setInt(0, group);
+        t.setLong(1, l);
+        t.setDouble(2, d);
+        t.setLong(3, ts);
+        return t;
+    }
+
+    private static Map<Field, Field> run(Aggregator agg) throws Exception {
+        agg.mergeTupleIntoGroup(tuple(1, 5000000000L, 1.5, 1000));
+        agg.mergeTupleIntoGroup(tuple(1, 3, -0.5, 3000));
+        agg.mergeTupleIntoGroup(tuple(2, -7, 2.0, 500));
+        DbIterator it = agg.iterator();
+        it.open();
+        Map<Field, Field> result = new HashMap<>();
+        while (it.hasNext()) {
+            Tuple t = it.next();
+            result.put(t.getField(0), t.getField(1));
+        }
+        return result;
+    }
+
+    @Test
+    public void aggregates() throws Exception {
+        Map<Field, Field> sum = run(new NumericAggregator(0, Type.INT_TYPE, 1, Type.LONG_TYPE, Aggregator.Op.SUM));
+        assertEquals(new LongField(5000000003L), sum.get(new IntField(1)));
+        assertEquals(new LongField(-7), sum.get(new IntField(2)));
+
+        Map<Field, Field> avg = run(new NumericAggregator(0, Type.INT_TYPE, 2, Type.DOUBLE_TYPE, Aggregator.Op.AVG));
+        assertEquals(new DoubleField(0.5), avg.get(new IntField(1)));
+
+        Map<Field, Field> max = run(new NumericAggregator(0, Type.INT_TYPE, 3, Type.TIMESTAMP_TYPE, Aggregator.Op.MAX));
+        assertEquals(new TimestampField(3000), max.get(new IntField(1)));
+
+        Map<Field, Field> count = run(new NumericAggregator(0, Type.INT_TYPE, 2, Type.DOUBLE_TYPE, Aggregator.Op.COUNT));
+        assertEquals(new IntField(2), count.get(new IntField(1)));
+
+        assertEquals(Type.LONG_TYPE, Aggregate.aggregateType(Type.TIMESTAMP_TYPE, Aggregator.Op.SUM));
+        assertEquals(Type.TIMESTAMP_TYPE, Aggregate.aggregateType(Type.TIMESTAMP_TYPE, Aggregator.Op.MIN));
+    }
+
+    @Test
+    public void aggregateOperator() throws Exception {
+        ArrayList<Tuple> tuples = new ArrayList<>();
+        tuples.add(tuple(1, 10, 1.0, 5));
+        tuples.add(tuple(1, 20, 2.0, 6));
+        Aggregate agg = new Aggregate(new TupleIterator(td, tuples), 1, Aggregator.NO_GROUPING, Aggregator.Op.MIN);
+        assertEquals(Type.LONG_TYPE, agg.getTupleDesc().getFieldType(0));
+        agg.open();
+        assertEquals(10L, agg.next().getLong(0));
+        assertFalse(agg.hasNext());
+    }
+
+    @Test
+    public void predicates() {
+        Tuple t = tuple(1, 5000000000L, 2.5, 1000);
+        assertTrue(new Predicate(1, Op.GREATER_THAN, new LongField(4999999999L)).filter(t));
+        assertFalse(new Predicate(2, Op.LESS_THAN, new DoubleField(2.5)).filter(t));
+        assertTrue(new Predicate(3, Op.EQUALS, new TimestampField(1000)).filter(t));
+        Tuple u = tuple(2, 5000000000L, 3.0, 999);
+        assertTrue(new JoinPredicate(1, Op.EQUALS, 1).filter(t, u));
+        assertTrue(new JoinPredicate(2, Op.LESS_THAN, 2).filter(t, u));
+        assertTrue(new JoinPredicate(3, Op.GREATER_THAN, 3).filter(t, u));
+    }
+}
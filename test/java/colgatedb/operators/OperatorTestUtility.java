@@ -223,5 +223,47 @@ public class OperatorTestUtility {
         }
     }
 
-}
+    /**
+     * Wraps an iterator so that every call to next returns the same Tuple object, overwritten with the next
+     * tuple of the wrapped iterator, as an iterator does after {@link DbIterator#setReuseTuples(boolean)}.
+     */
+    public static class ReusingScan implements DbIterator {
+        private final DbIterator child;
+        private final Tuple row;
+
+        public ReusingScan(DbIterator child) {
+            this.child = child;
+            this.row = new Tuple(child.getTupleDesc());
+        }
+
+        public void open() throws DbException, TransactionAbortedException {
+            child.open();
+        }
+
+        public void close() {
+            child.close();
+        }
+
+        public void rewind() throws DbException, TransactionAbortedException {
+            child.rewind();
+        }
 
+        public TupleDesc getTupleDesc() {
+            return child.getTupleDesc();
+        }
+
+        public boolean hasNext() throws DbException, TransactionAbortedException {
+            return child.hasNext();
+        }
+
+        public Tuple next() throws DbException, TransactionAbortedException, NoSuchElementException {
+            Tuple t = child.next();
+            for (int i = 0; i < row.getTupleDesc().numFields(); i++) {
+                row.setField(i, t, i);
+            }
+            row.setRecordId(t.getRecordId());
+            return row;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package colgatedb.operators;
+
+import colgatedb.Database;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+
+public class OrderByTest {
+
+    @Before
+    public void setUp() {
+        Database.reset();
+    }
+
+    @Test
+    public void sortsReusedTuples() throws Exception {
+        DbIterator child = new OperatorTestUtility.ReusingScan(OperatorTestUtility.createTupleList(2,
+                new int[]{3, 30,
+                        1, 10,
+                        2, 20}));
+        OrderBy op = new OrderBy(0, true, child);
+        op.open();
+        DbIterator expected = OperatorTestUtility.createTupleList(2,
+                new int[]{1, 10,
+                        2, 20,
+                        3, 30});
+        expected.open();
+        OperatorTestUtility.compareDbIterators(expected, op);
+        op.close();
+    }
+}
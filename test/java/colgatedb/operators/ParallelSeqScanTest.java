@@ -0,0 +1,150 @@
+package colgatedb.operators;
+
+import colgatedb.Database;
+import colgatedb.dbfile.DbFileIterator;
+import colgatedb.dbfile.HeapFile;
+import colgatedb.dbfile.PageRange;
+import colgatedb.dbfile.TestUtilHeapFile;
+import colgatedb.transactions.TransactionId;
+import colgatedb.tuple.Tuple;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class ParallelSeqScanTest {
+
+    private HeapFile hf;
+    private TransactionId tid;
+
+    @Before
+    public void setUp() throws Exception {
+        Database.setPageSize(64);   // 7 tuples per page
+        int[] data = new int[2 * 200];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i;
+        }
+        hf = TestUtilHeapFile.createHeapFile(2, data);
+        tid = new TransactionId();
+    }
+
+    @Test
+    public void split() {
+        assertEquals(29, hf.numPages());
+        List<PageRange> ranges = hf.split(4);
+        assertEquals(4, ranges.size());
+        assertEquals(new PageRange(0, 8), ranges.get(0));
+        assertEquals(new PageRange(8, 15), ranges.get(1));
+        assertEquals(new PageRange(22, 29), ranges.get(3));
+        assertEquals(29, hf.split(100).size());
+    }
+
+    @Test
+    public void preservesOrder() throws Exception {
+        List<String> expected = scan(new SeqScan(tid, hf.getId()));
+        assertEquals(200, expected.size());
+        ParallelSeqScan scan = new ParallelSeqScan(tid, hf.getId(), "t", 4, true, 3);
+        assertEquals(scan.getTupleDesc(), new SeqScan(tid, hf.getId(), "t").getTupleDesc());
+        assertEquals(expected, scan(scan));
+    }
+
+    @Test
+    public void unordered() throws Exception {
+        List<String> expected = scan(new SeqScan(tid, hf.getId()));
+        List<String> actual = scan(new ParallelSeqScan(tid, hf.getId(), 3));
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void closeEarlyAndRewind() throws Exception {
+        ParallelSeqScan scan = new ParallelSeqScan(tid, hf.getId(), "t", 4, false, 1);
+        scan.open();
+        assertTrue(scan.hasNext());
+        scan.next();
+        scan.rewind();
+        int count = 0;
+        while (scan.hasNext()) {
+            scan.next();
+            count++;
+        }
+        assertEquals(200, count);
+        scan.close();
+        assertFalse(scan.hasNext());
+    }
+
+    /**
+     * An Error thrown by a worker must reach the caller instead of leaving it waiting for the worker's end
+     * marker.
+     */
+    @Test(timeout = 10000)
+    public void workerError() throws Exception {
+        File dataFile = File.createTempFile("broken", ".dat");
+        dataFile.deleteOnExit();
+        HeapFile broken = new HeapFile(hf.getTupleDesc(), Database.getPageSize(), hf.getId() + 1, hf.numPages()) {
+            @Override
+            public DbFileIterator iterator(TransactionId tid, PageRange range) {
+                return new DbFileIterator() {
+                    public void open() {
+                    }
+
+                    public boolean hasNext() {
+                        throw new AssertionError("broken worker");
+                    }
+
+                    public Tuple next() {
+                        throw new NoSuchElementException();
+                    }
+
+                    public void rewind() {
+                    }
+
+                    public void close() {
+                    }
+                };
+            }
+        };
+        Database.getCatalog().addTable("broken", broken, "", dataFile);
+        ParallelSeqScan scan = new ParallelSeqScan(tid, broken.getId(), 2);
+        scan.open();
+        try {
+            scan.hasNext();
+            fail("the worker's error should be rethrown");
+        } catch (AssertionError e) {
+            assertEquals("broken worker", e.getMessage());
+        }
+        scan.close();
+    }
+
+    private static List<String> scan(DbIterator it) throws Exception {
+        List<String> result = new ArrayList<>();
+        it.open();
+        while (it.hasNext()) {
+            Tuple t = it.next();
+            result.add(t.toString());
+        }
+        it.close();
+        return result;
+    }
+}
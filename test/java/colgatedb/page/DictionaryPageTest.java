@@ -0,0 +1,158 @@
+package colgatedb.page;
+
+import colgatedb.tuple.Field;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.StringField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class DictionaryPageTest {
+    private PageId pid = new SimplePageId(0, 0);
+    private TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+    private static final String[] GENRES = {"Drama", "Comedy", "Horror"};
+
+    private Tuple makeTuple(int i, String s) {
+        Tuple t = new Tuple(td);
+        t.setField(0, new IntField(i));
+        t.setField(1, new StringField(s));
+        return t;
+    }
+
+    @Test
+    public void stringsStoredOnce() {
+        int pageSize = 4096;
+        DictionaryPage page = new DictionaryPage(pid, td, pageSize);
+        int n = 0;
+        while (page.hasRoomFor(makeTuple(n, GENRES[n % 3]))) {
+            page.insertTuple(makeTuple(n, GENRES[n % 3]));
+            n++;
+        }
+        assertEquals(3, page.getDictionarySize());
+        // 12 byte header, 3 entries of 6 + 7 + 7 bytes, rows of 1 + 4 + 2 bytes
+        assertEquals((pageSize - 12 - 20) / 7, n);
+        assertEquals(page.getCode(0, 1), page.getCode(3, 1));
+        assertNotEquals(page.getCode(0, 1), page.getCode(1, 1));
+        DictionaryPage copy = new DictionaryPage(pid, td, pageSize, page.getPageData());
+        assertSame(copy.getTuple(0).getField(1), copy.getTuple(3).getField(1));
+    }
+
+    @Test
+    public void roundTrip() {
+        DictionaryPage page = new DictionaryPage(pid, td, 1024);
+        for (int i = 0; i < 10; i++) {
+            page.insertTuple(makeTuple(i, GENRES[i % 3]));
+        }
+        DictionaryPage copy = new DictionaryPage(pid, td, 1024, page.getPageData());
+        assertEquals(10, copy.getNumSlots());
+        assertEquals(3, copy.getDictionarySize());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new IntField(i), copy.getField(i, 0));
+            assertEquals(new StringField(GENRES[i % 3]), copy.getField(i, 1));
+        }
+        copy.insertTuple(makeTuple(10, "Drama"));
+        assertEquals(3, copy.getDictionarySize());
+    }
+
+    @Test
+    public void filterOnCodes() {
+        DictionaryPage page = new DictionaryPage(pid, td, 1024);
+        for (int i = 0; i < 9; i++) {
+            page.insertTuple(makeTuple(i, GENRES[i % 3]));
+        }
+        List<Integer> found = new ArrayList<>();
+        Iterator<Tuple> iter = page.iterator(1, Op.EQUALS, new StringField("Horror"));
+        while (iter.hasNext()) {
+            found.add(((IntField) iter.next().getField(0)).getValue());
+        }
+        assertEquals(3, found.size());
+        assertEquals(Integer.valueOf(2), found.get(0));
+        assertEquals(Integer.valueOf(8), found.get(2));
+        iter = page.iterator(1, Op.LESS_THAN, new StringField("Dz"));
+        int count = 0;
+        while (iter.hasNext()) {
+            iter.next();
+            count++;
+        }
+        assertEquals(6, count);   // Comedy and Drama
+    }
+
+    @Test
+    public void filterAndProject() {
+        DictionaryPage page = new DictionaryPage(pid, td, 1024);
+        for (int i = 0; i < 9; i++) {
+            page.insertTuple(makeTuple(i, GENRES[i % 3]));
+        }
+        Iterator<Tuple> iter = page.iterator(new int[]{0, 1}, new Op[]{Op.GREATER_THAN_OR_EQ, Op.NOT_EQUALS},
+                new Field[]{new IntField(3), new StringField("Horror")}, new int[]{1}, null);
+        List<Integer> slots = new ArrayList<>();
+        while (iter.hasNext()) {
+            Tuple t = iter.next();
+            assertEquals(1, t.getTupleDesc().numFields());
+            assertEquals(new StringField(GENRES[t.getRecordId().tupleno() % 3]), t.getField(0));
+            slots.add(t.getRecordId().tupleno());
+        }
+        assertEquals(4, slots.size());   // 3, 4, 6 and 7
+        assertEquals(Integer.valueOf(3), slots.get(0));
+        assertEquals(Integer.valueOf(7), slots.get(3));
+    }
+
+    @Test
+    public void unusedEntriesReclaimed() {
+        int pageSize = 256;
+        DictionaryPage page = new DictionaryPage(pid, td, pageSize);
+        List<Tuple> tuples = new ArrayList<>();
+        int n = 0;
+        while (page.hasRoomFor(makeTuple(n, "distinct value " + n))) {
+            Tuple t = makeTuple(n, "distinct value " + n);
+            page.insertTuple(t);
+            tuples.add(t);
+            n++;
+        }
+        assertEquals(n, page.getDictionarySize());
+        for (int i = 0; i < n - 1; i++) {
+            page.deleteTuple(tuples.get(i));
+        }
+        Tuple t = makeTuple(99, "a new value");
+        page.insertTuple(t);
+        assertEquals(2, page.getDictionarySize());
+        Tuple last = tuples.get(n - 1);
+        assertEquals(new StringField("distinct value " + (n - 1)), page.getField(last.getRecordId().tupleno(), 1));
+        DictionaryPage copy = new DictionaryPage(pid, td, pageSize, page.getPageData());
+        assertEquals(new StringField("a new value"), copy.getField(t.getRecordId().tupleno(), 1));
+        assertEquals(new StringField("distinct value " + (n - 1)), copy.getField(last.getRecordId().tupleno(), 1));
+    }
+
+    @Test
+    public void emptyPageDropsDictionary() {
+        DictionaryPage page = new DictionaryPage(pid, td, 256);
+        Tuple t = makeTuple(1, "Drama");
+        page.insertTuple(t);
+        page.deleteTuple(t);
+        assertEquals(0, page.getDictionarySize());
+        assertEquals(0, page.getNumSlots());
+        assertArrayEquals(new byte[256], page.getPageData());
+    }
+}
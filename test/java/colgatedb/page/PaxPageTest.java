@@ -0,0 +1,88 @@
+package colgatedb.page;
+
+import colgatedb.TestUtility;
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.Op;
+import colgatedb.tuple.StringField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class PaxPageTest {
+    private PageId pid = new SimplePageId(0, 0);
+
+    @Test
+    public void sameCapacityAsSlottedPage() {
+        TupleDesc td = TestUtility.getTupleDesc(3);
+        PaxPage page = new PaxPage(pid, td, 1024);
+        assertEquals(SlottedPageFormatter.computePageCapacity(1024, td), page.getNumSlots());
+        assertEquals(page.getNumSlots(), page.getNumEmptySlots());
+    }
+
+    @Test
+    public void columnsStoredTogether() {
+        TupleDesc td = TestUtility.getTupleDesc(2);
+        PaxPage page = new PaxPage(pid, td, 64);   // 7 slots, 1 byte header
+        page.insertTuple(TestUtility.getIntTuple(new int[]{1, 10}));
+        page.insertTuple(TestUtility.getIntTuple(new int[]{2, 20}));
+        byte[] bytes = page.getPageData();
+        assertEquals(1, Type.readInt(bytes, 1));
+        assertEquals(2, Type.readInt(bytes, 5));
+        assertEquals(10, Type.readInt(bytes, 1 + 7 * 4));
+        assertEquals(20, Type.readInt(bytes, 5 + 7 * 4));
+    }
+
+    @Test
+    public void roundTripAndDelete() {
+        TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+        PaxPage page = new PaxPage(pid, td, 1024);
+        Tuple[] tuples = new Tuple[3];
+        for (int i = 0; i < tuples.length; i++) {
+            tuples[i] = new Tuple(td);
+            tuples[i].setField(0, new IntField(i));
+            tuples[i].setField(1, new StringField("s" + i));
+            page.insertTuple(tuples[i]);
+        }
+        page.deleteTuple(tuples[1]);
+        PaxPage copy = new PaxPage(pid, td, 1024, page.getPageData());
+        assertTrue(copy.isSlotEmpty(1));
+        assertEquals(new StringField("s2"), copy.getField(2, 1));
+        assertEquals(new IntField(0), copy.getTuple(0).getField(0));
+        assertEquals(copy.getNumSlots() - 2, copy.getNumEmptySlots());
+    }
+
+    @Test
+    public void filteredIterator() {
+        TupleDesc td = TestUtility.getTupleDesc(2);
+        PaxPage page = new PaxPage(pid, td, 1024);
+        for (int i = 0; i < 10; i++) {
+            page.insertTuple(TestUtility.getIntTuple(new int[]{i, i * 10}));
+        }
+        Iterator<Tuple> iter = page.iterator(1, Op.GREATER_THAN_OR_EQ, new IntField(70));
+        int count = 0;
+        while (iter.hasNext()) {
+            assertEquals(new IntField(7 + count), iter.next().getField(0));
+            count++;
+        }
+        assertEquals(3, count);
+    }
+}
@@ -219,6 +219,27 @@ public class SlottedPageFormatterTest {
         assertArrayEquals(test1.testPageBytes, pageBytes);
     }
 
+    @Test
+    public void bitmapRoundTrip() {
+        int numSlots = 150;
+        byte[] header = new byte[SlottedPageFormatter.getHeaderSize(numSlots)];
+        int[] used = {0, 7, 8, 63, 64, 65, 127, 149};
+        for (int i : used) {
+            SlottedPageFormatter.markSlot(i, header, true);
+        }
+        long[] words = SlottedPageFormatter.readBitmap(header, numSlots);
+        assertEquals(3, words.length);
+        assertEquals(1L | (1L << 7) | (1L << 8) | (1L << 63), words[0]);
+        assertEquals(1L | 2L | (1L << 63), words[1]);
+        assertEquals(1L << (149 - 128), words[2]);
+        assertEquals(used.length, SlottedPageFormatter.countUsedSlots(header, numSlots));
+        byte[] copy = new byte[header.length];
+        SlottedPageFormatter.writeBitmap(words, copy, numSlots);
+        assertArrayEquals(header, copy);
+        SlottedPageFormatter.markSlot(64, header, false);
+        assertEquals(used.length - 1, SlottedPageFormatter.countUsedSlots(header, numSlots));
+    }
+
     @Test
     @GradedTest(number="7.11", max_score=1.0, visibility="visible")
     public void writeToBytes2() throws IOException {
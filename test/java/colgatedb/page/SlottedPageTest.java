@@ -2,6 +2,7 @@ package colgatedb.page;
 
 import colgatedb.TestUtility;
 import colgatedb.page.*;
+import colgatedb.tuple.IntField;
 import colgatedb.tuple.RecordId;
 import colgatedb.tuple.Tuple;
 import colgatedb.tuple.TupleDesc;
@@ -12,6 +13,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -311,4 +313,117 @@ public class SlottedPageTest {
         }
     }
 
+    /**
+     * Tuples of a page read from bytes are decoded on demand; single fields can be read without
+     * decoding the tuple and decoded tuples carry the correct RecordId.
+     */
+    @Test
+    public void testLazyDecoding() {
+        int numColumns = 3;
+        SlottedPage page = makePage(numColumns);
+        Tuple t = TestUtility.getIntTuple(new int[]{7, 8, 9});
+        page.insertTuple(3, t);
+        SlottedPage pageFromBytes = new SlottedPage(pid, TestUtility.getTupleDesc(numColumns),
+                DEFAULT_PAGE_SIZE, page.getPageData());
+        assertEquals(1, page.getNumSlots() - pageFromBytes.getNumEmptySlots());
+        assertTrue(pageFromBytes.isSlotUsed(3));
+        assertEquals(new IntField(8), pageFromBytes.getField(3, 1));
+
+        Tuple decoded = pageFromBytes.getTuple(3);
+        PageTestUtility.assertEqualTuples(t, decoded);
+        assertEquals(new RecordId(pid, 3), decoded.getRecordId());
+        assertSame(decoded, pageFromBytes.getTuple(3));  // decoded only once
+        assertSame(decoded, pageFromBytes.iterator().next());
+
+        pageFromBytes.deleteTuple(decoded);
+        assertTrue(pageFromBytes.isSlotEmpty(3));
+        assertEquals(page.getNumSlots(), pageFromBytes.getNumEmptySlots());
+    }
+
+    /**
+     * The page must not keep the caller's tuple after an insert: modifying it afterwards (e.g., a loader
+     * reusing one row) must change neither the page's bytes nor what the page returns.
+     */
+    @Test
+    public void testInsertDoesNotAliasTuple() {
+        int numColumns = 2;
+        SlottedPage page = makePage(numColumns);
+        Tuple row = TestUtility.getIntTuple(new int[]{1, 2});
+        page.insertTuple(0, row);
+        row.setField(0, new IntField(3));
+        page.insertTuple(1, row);
+        assertNotSame(row, page.getTuple(0));
+        assertEquals(new IntField(1), page.getTuple(0).getField(0));
+        assertEquals(new IntField(1), page.getField(0, 0));
+        assertEquals(new IntField(1), page.iterator().next().getField(0));
+        assertEquals(new IntField(3), page.getTuple(1).getField(0));
+    }
+
+    /**
+     * Before images are snapshots: later modifications must not leak into them, and setBeforeImage
+     * advances the snapshot to the current contents.
+     */
+    @Test
+    public void testBeforeImageSnapshot() {
+        int numColumns = 2;
+        SlottedPage page = makePage(numColumns);
+        Tuple t1 = TestUtility.getIntTuple(1, numColumns);
+        page.insertTuple(t1);
+        byte[] dataBefore = page.getPageData().clone();
+        SlottedPage before = (SlottedPage) page.getBeforeImage();
+        assertEquals(page.getNumSlots(), before.getNumEmptySlots());
+
+        page.setBeforeImage();
+        Tuple t2 = TestUtility.getIntTuple(2, numColumns);
+        page.insertTuple(t2);
+        page.deleteTuple(t1);
+        PageTestUtility.assertEqualPages(new SlottedPage(pid, TestUtility.getTupleDesc(numColumns),
+                DEFAULT_PAGE_SIZE, dataBefore), (SlottedPage) page.getBeforeImage());
+        assertEquals(page.getNumSlots(), before.getNumEmptySlots());
+
+        // the before image is a page in its own right and can be modified independently
+        before.insertTuple(TestUtility.getIntTuple(3, numColumns));
+        assertEquals(page.getNumSlots() - 1, page.getNumEmptySlots());
+        assertTrue(page.isSlotUsed(t2.getRecordId().tupleno()));
+    }
+
+    @Test
+    public void testBitmapAcrossWords() {
+        SlottedPage page = makePage(4096, 1);   // several 64-slot words
+        assertTrue(page.getNumSlots() > 128);
+        for (int i = 0; i < page.getNumSlots(); i += 3) {
+            page.insertTuple(i, TestUtility.getIntTuple(i, 1));
+        }
+        Iterator<Tuple> iter = page.iterator();
+        for (int i = 0; i < page.getNumSlots(); i += 3) {
+            assertEquals(i, iter.next().getRecordId().tupleno());
+        }
+        assertFalse(iter.hasNext());
+        Tuple t = TestUtility.getIntTuple(1);
+        page.insertTuple(t);
+        assertEquals(1, t.getRecordId().tupleno());
+    }
+
+    /**
+     * Inserts and deletes patch the page's bytes in place: after any mix of them, the bytes must be those
+     * that the formatter produces for the page's contents.
+     */
+    @Test
+    public void testPageDataMatchesFormatter() {
+        int numColumns = 2;
+        TupleDesc td = TestUtility.getTupleDesc(numColumns);
+        SlottedPage page = makePage(numColumns);
+        List<Tuple> stored = new LinkedList<Tuple>();
+        Random random = new Random(460);
+        for (int i = 0; i < 200; i++) {
+            if (!stored.isEmpty() && (page.getNumEmptySlots() == 0 || random.nextInt(3) == 0)) {
+                page.deleteTuple(stored.remove(random.nextInt(stored.size())));
+            } else {
+                Tuple t = TestUtility.getIntTuple(new int[]{i, -i});
+                page.insertTuple(t);
+                stored.add(t);
+            }
+            assertArrayEquals(SlottedPageFormatter.pageToBytes(page, td, DEFAULT_PAGE_SIZE), page.getPageData());
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package colgatedb.page;
+
+import colgatedb.tuple.IntField;
+import colgatedb.tuple.StringField;
+import colgatedb.tuple.Tuple;
+import colgatedb.tuple.TupleDesc;
+import colgatedb.tuple.Type;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class VarLenSlottedPageTest {
+    private PageId pid = new SimplePageId(0, 0);
+    private TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+
+    private Tuple makeTuple(int i, String s) {
+        Tuple t = new Tuple(td);
+        t.setField(0, new IntField(i));
+        t.setField(1, new StringField(s));
+        return t;
+    }
+
+    @Test
+    public void compactStrings() {
+        int pageSize = 4096;
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, pageSize);
+        int n = 0;
+        while (page.hasRoomFor(makeTuple(n, "Drama"))) {
+            page.insertTuple(makeTuple(n, "Drama"));
+            n++;
+        }
+        // each tuple takes 4 + 2 + 5 bytes plus a 4 byte directory entry
+        assertEquals((pageSize - 2) / 15, n);
+        assertTrue(n > 8 * SlottedPageFormatter.computePageCapacity(pageSize, td));
+        assertEquals(0, page.getNumEmptySlots());
+        try {
+            page.insertTuple(makeTuple(n, "Drama"));
+            fail("page should be full");
+        } catch (PageException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, 256);
+        page.insertTuple(makeTuple(1, "a"));
+        page.insertTuple(makeTuple(2, ""));
+        page.insertTuple(makeTuple(3, "a longer string"));
+        VarLenSlottedPage copy = new VarLenSlottedPage(pid, td, 256, page.getPageData());
+        assertEquals(3, copy.getNumSlots());
+        assertEquals("", ((StringField) copy.getTuple(1).getField(1)).getValue());
+        assertEquals(new IntField(3), copy.getField(2, 0));
+        assertEquals(new StringField("a longer string"), copy.getField(2, 1));
+        assertEquals(page.getFreeBytes(), copy.getFreeBytes());
+    }
+
+    @Test
+    public void deleteKeepsSlotsAndCompacts() {
+        int pageSize = 128;
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, pageSize);
+        Tuple[] tuples = new Tuple[4];
+        for (int i = 0; i < tuples.length; i++) {
+            tuples[i] = makeTuple(i, "0123456789012345");   // 22 bytes + 4 byte entry
+            page.insertTuple(tuples[i]);
+        }
+        assertFalse(page.hasRoomFor(makeTuple(9, "0123456789012345")));
+        page.deleteTuple(tuples[1]);
+        page.deleteTuple(tuples[2]);
+        assertNull(tuples[1].getRecordId());
+        assertEquals(4, page.getNumSlots());
+        // needs the space of both holes, so the page must compact
+        Tuple big = makeTuple(9, "01234567890123456789012345678901234567");
+        page.insertTuple(big);
+        assertEquals(1, big.getRecordId().tupleno());
+        assertEquals(new IntField(0), page.getField(0, 0));
+        assertEquals(new IntField(3), page.getField(3, 0));
+        VarLenSlottedPage copy = new VarLenSlottedPage(pid, td, pageSize, page.getPageData());
+        assertEquals(new StringField("01234567890123456789012345678901234567"), copy.getField(1, 1));
+        assertEquals(new IntField(3), copy.getField(3, 0));
+        assertTrue(copy.isSlotEmpty(2));
+    }
+
+    @Test
+    public void trailingSlotsDropped() {
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, 128);
+        Tuple t0 = makeTuple(0, "x");
+        Tuple t1 = makeTuple(1, "y");
+        page.insertTuple(t0);
+        page.insertTuple(t1);
+        page.deleteTuple(t1);
+        assertEquals(1, page.getNumSlots());
+        page.deleteTuple(t0);
+        assertEquals(0, page.getNumSlots());
+        assertArrayEquals(new byte[128], page.getPageData());
+        assertFalse(page.iterator().hasNext());
+    }
+
+    @Test
+    public void iterator() {
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, 256);
+        Tuple t0 = makeTuple(0, "x");
+        Tuple t1 = makeTuple(1, "y");
+        Tuple t2 = makeTuple(2, "z");
+        page.insertTuple(t0);
+        page.insertTuple(t1);
+        page.insertTuple(t2);
+        page.deleteTuple(t1);
+        Iterator<Tuple> iter = page.iterator();
+        assertEquals(t0, iter.next());
+        assertEquals(t2, iter.next());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void beforeImage() {
+        VarLenSlottedPage page = new VarLenSlottedPage(pid, td, 256);
+        page.insertTuple(makeTuple(0, "x"));
+        page.setBeforeImage();
+        page.insertTuple(makeTuple(1, "y"));
+        VarLenSlottedPage before = (VarLenSlottedPage) page.getBeforeImage();
+        assertEquals(1, before.getNumSlots());
+        assertEquals(2, page.getNumSlots());
+    }
+}
@@ -0,0 +1,82 @@
+package colgatedb.tuple;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class KeyEncoderTest {
+
+    private static final TupleDesc td = new TupleDesc(new Type[]{Type.INT_TYPE, Type.STRING_TYPE});
+    private static final String[] strings = {"", "a", "ab", "b", "a\0", "a\1", "\u007f", "\u0080", "\u00ff",
+            "\u3fff", "\u4000", "\ud800", "\uffff", "abc\uffff", "Z"};
+    private static final int[] ints = {Integer.MIN_VALUE, -70000, -1, 0, 1, 255, 256, 70000, Integer.MAX_VALUE};
+
+    @Test
+    public void intOrder() {
+        KeyEncoder enc = new KeyEncoder(td, 0);
+        for (int a : ints) {
+            for (int b : ints) {
+                assertEquals(Integer.signum(Integer.compare(a, b)),
+                        Integer.signum(KeyEncoder.compare(enc.encode(tuple(a, "")), enc.encode(tuple(b, "")))));
+            }
+        }
+    }
+
+    @Test
+    public void stringOrder() {
+        KeyEncoder enc = new KeyEncoder(td, 1);
+        for (String a : strings) {
+            for (String b : strings) {
+                byte[] ka = enc.encode(tuple(0, a));
+                byte[] kb = enc.encode(tuple(0, b));
+                assertEquals(a + " vs " + b, Integer.signum(a.compareTo(b)), Integer.signum(KeyEncoder.compare(ka, kb)));
+                assertEquals(a.equals(b), KeyEncoder.hash(ka) == KeyEncoder.hash(kb) && KeyEncoder.compare(ka, kb) == 0);
+            }
+        }
+    }
+
+    @Test
+    public void multipleFieldsAndDescending() {
+        KeyEncoder enc = new KeyEncoder(td, new int[]{1, 0}, new boolean[]{false, true});
+        Random rand = new Random(460);
+        for (int i = 0; i < 1000; i++) {
+            Tuple t1 = tuple(ints[rand.nextInt(ints.length)], strings[rand.nextInt(strings.length)]);
+            Tuple t2 = tuple(ints[rand.nextInt(ints.length)], strings[rand.nextInt(strings.length)]);
+            int expected = -t1.getString(1).compareTo(t2.getString(1));
+            if (expected == 0) {
+                expected = Integer.compare(t1.getInt(0), t2.getInt(0));
+            }
+            byte[] k1 = enc.encode(t1);
+            assertEquals(enc.getKeyLength(t1), k1.length);
+            assertEquals(Integer.signum(expected), Integer.signum(KeyEncoder.compare(k1, enc.encode(t2))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badField() {
+        new KeyEncoder(td, 2);
+    }
+
+    private static Tuple tuple(int i, String s) {
+        Tuple t = new Tuple(td);
+        t.setInt(0, i);
+        t.setField(1, new StringField(s, Type.STRING_LEN));
+        return t;
+    }
+}
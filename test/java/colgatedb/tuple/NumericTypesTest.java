@@ -0,0 +1,125 @@
+package colgatedb.tuple;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColgateDB
+ * @author Michael Hay mhay@colgate.edu
+ * <p>
+ * ColgateDB was developed by Michael Hay but borrows considerably from past
+ * efforts including SimpleDB (developed by Sam Madden at MIT) and its predecessor
+ * Minibase (developed at U. of Wisconsin by Raghu Ramakrishnan).
+ * <p>
+ * The contents of this file are either wholly the creation of Michael Hay or are
+ * a significant adaptation of code from the SimpleDB project.  A number of
+ * substantive changes have been made to meet the pedagogical goals of the cosc460
+ * course at Colgate.  If this file contains remnants from SimpleDB, we are
+ * grateful for Sam's permission to use and adapt his materials.
+ */
+public class NumericTypesTest {
+
+    private static final TupleDesc td = new TupleDesc(
+            new Type[]{Type.LONG_TYPE, Type.DOUBLE_TYPE, Type.TIMESTAMP_TYPE, Type.INT_TYPE});
+
+    @Test
+    public void encodingMatchesDataOutputStream() throws IOException {
+        Field[] fields = {new LongField(-1234567890123L), new DoubleField(-2.5), new TimestampField(1456833600000L)};
+        for (Field f : fields) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            f.serialize(new DataOutputStream(bos));
+            byte[] expected = bos.toByteArray();
+            assertEquals(f.getType().getLen(), expected.length);
+            byte[] bytes = new byte[expected.length + 2];
+            f.serialize(bytes, 2);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], bytes[i + 2]);
+            }
+            assertEquals(f, f.getType().parse(bytes, 2));
+            assertEquals(f, f.getType().parse(new DataInputStream(new ByteArrayInputStream(expected))));
+        }
+        assertEquals("2016-03-01T12:00:00Z", fields[2].toString());
+    }
+
+    @Test
+    public void compare() {
+        assertTrue(new LongField(5000000000L).compare(Op.GREATER_THAN, new LongField(4999999999L)));
+        assertTrue(new DoubleField(-0.0).compare(Op.LESS_THAN, new DoubleField(0.0)));
+        assertTrue(new DoubleField(Double.NaN).compare(Op.EQUALS, new DoubleField(Double.NaN)));
+        assertTrue(new DoubleField(Double.NaN).compare(Op.GREATER_THAN, new DoubleField(Double.POSITIVE_INFINITY)));
+        assertTrue(new TimestampField(1).compare(Op.LESS_THAN_OR_EQ, new TimestampField(1)));
+        assertNotEquals(new LongField(1), new TimestampField(1));
+        assertEquals(new DoubleField(1.5).hashCode(), new DoubleField(1.5).hashCode());
+    }
+
+    @Test
+    public void primitiveAccess() {
+        Tuple t = new Tuple(td);
+        t.setLong(0, Long.MIN_VALUE);
+        t.setDouble(1, 3.25);
+        t.setLong(2, 86400000L);
+        t.setInt(3, 7);
+        assertEquals(Long.MIN_VALUE, t.getLong(0));
+        assertEquals(3.25, t.getDouble(1), 0.0);
+        assertEquals(86400000L, t.getLong(2));
+        assertEquals(new LongField(Long.MIN_VALUE), t.getField(0));
+        assertEquals(new DoubleField(3.25), t.getField(1));
+        assertEquals(new TimestampField(86400000L), t.getField(2));
+
+        byte[] bytes = new byte[td.getSize()];
+        for (int i = 0; i < td.numFields(); i++) {
+            td.getFieldType(i).serialize(t, i, bytes, td.getFieldOffset(i));
+        }
+        Tuple u = new Tuple(td);
+        for (int i = 0; i < td.numFields(); i++) {
+            td.getFieldType(i).parseInto(bytes, td.getFieldOffset(i), u, i);
+        }
+        assertEquals(t.toString(), u.toString());
+
+        u.setField(1, new DoubleField(-1.0));
+        assertEquals(-1.0, u.getDouble(1), 0.0);
+        try {
+            u.setLong(1, 1);
+            fail("field 1 is a double");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void keyOrder() {
+        double[] doubles = {Double.NEGATIVE_INFINITY, -1e300, -1.0, -Double.MIN_VALUE, -0.0, 0.0,
+                Double.MIN_VALUE, 1.0, 1e300, Double.POSITIVE_INFINITY, Double.NaN};
+        long[] longs = {Long.MIN_VALUE, -1L << 40, -1, 0, 1, 1L << 40, Long.MAX_VALUE};
+        KeyEncoder byDouble = new KeyEncoder(td, 1);
+        KeyEncoder byLong = new KeyEncoder(td, 0);
+        for (int i = 0; i < doubles.length; i++) {
+            for (int j = 0; j < doubles.length; j++) {
+                assertEquals(Integer.signum(Double.compare(doubles[i], doubles[j])), Integer.signum(
+                        KeyEncoder.compare(byDouble.encode(tuple(0, doubles[i])), byDouble.encode(tuple(0, doubles[j])))));
+            }
+        }
+        for (long a : longs) {
+            for (long b : longs) {
+                assertEquals(Integer.signum(Long.compare(a, b)), Integer.signum(
+                        KeyEncoder.compare(byLong.encode(tuple(a, 0)), byLong.encode(tuple(b, 0)))));
+            }
+        }
+    }
+
+    private static Tuple tuple(long l, double d) {
+        Tuple t = new Tuple(td);
+        t.setLong(0, l);
+        t.setDouble(1, d);
+        t.setLong(2, l);
+        t.setInt(3, 0);
+        return t;
+    }
+}